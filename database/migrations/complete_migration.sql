@@ -7,6 +7,8 @@ SET SQL_SAFE_UPDATES = 0;
 SET FOREIGN_KEY_CHECKS = 0;
 
 -- Drop all tables if they exist to ensure a clean schema rebuild
+DROP TABLE IF EXISTS `recommendation_job_checkpoints`;
+DROP TABLE IF EXISTS `product_review_stats`;
 DROP TABLE IF EXISTS `wards`;
 DROP TABLE IF EXISTS `districts`;
 DROP TABLE IF EXISTS `provinces`;
@@ -155,9 +157,19 @@ CREATE TABLE `products` (
     `is_active` BOOLEAN DEFAULT TRUE,
     `view_count` INT DEFAULT 0,
     `purchase_count` INT DEFAULT 0,
+    -- Materialized review aggregates (see product_review_stats)
+    `rating_count` INT NOT NULL DEFAULT 0,
+    `rating_sum` INT NOT NULL DEFAULT 0,
+    -- Sort key of the "popular" listing
+    `popularity_score` BIGINT AS (COALESCE(`purchase_count`, 0) * 10 + COALESCE(`view_count`, 0)) STORED NOT NULL,
     `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     `updated_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
-    FOREIGN KEY (`category_id`) REFERENCES `categories`(`category_id`) ON DELETE SET NULL
+    FOREIGN KEY (`category_id`) REFERENCES `categories`(`category_id`) ON DELETE SET NULL,
+    -- Keyset pagination of the product listing
+    INDEX `idx_products_active_created` (`is_active`, `created_at`, `product_id`),
+    INDEX `idx_products_active_price` (`is_active`, `price`, `product_id`),
+    INDEX `idx_products_active_name` (`is_active`, `product_name`, `product_id`),
+    INDEX `idx_products_active_popularity` (`is_active`, `popularity_score`, `product_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- =========================================================================
@@ -207,37 +219,14 @@ CREATE TABLE `cart_items` (
     `quantity` INT NOT NULL DEFAULT 1,
     `size` VARCHAR(50),
     `color` VARCHAR(50),
+    -- Normalized size|color, so NULL and blank variants compare equal in the unique key
+    `variant_key` VARCHAR(101) AS (CONCAT(TRIM(COALESCE(`size`, '')), '|', TRIM(COALESCE(`color`, '')))) STORED,
     `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     `updated_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     FOREIGN KEY (`cart_id`) REFERENCES `shopping_carts`(`cart_id`) ON DELETE CASCADE,
     FOREIGN KEY (`product_id`) REFERENCES `products`(`product_id`) ON DELETE CASCADE,
-    -- Unique constraint should ideally include size and color, but handling NULLs in unique index varies.
-    -- For simplicity, we remove strict uniqueness on DB or just unique on cart_id + product_id if variants are Products themselves.
-    -- But since Products table has size/color columns, maybe product_id IS the variant?
-    -- Looking at Products table: `sku`, `color`, `size`. So `products` table stores Variants?
-    -- If `products` table stores variants, then `product_id` IS unique for that size/color.
-    -- User's Product table: has `color` and `size`. 
-    -- So `product_id` uniquely identifies a specific variant (e.g. Shirt Red M).
-    -- In that case, `unique_cart_product` (cart_id, product_id) IS CORRECT.
-    -- And `size`/`color` columns in `cart_items` are redundant but harmless (denormalization).
-    -- WAIT. If Product table has size/color, then do we need to store it in cart_items?
-    -- `CartItem` model has `size` and `color`.
-    -- `CartDAO` inserts them.
-    -- If I assume `product_id` is just the "Parent Style", then we need size/color in cart.
-    -- If `product_id` is the "SKU/Variant", then we don't need size/color in cart (it's properties of product).
-    -- The `CartService.addItem` takes `productId`, `size`, `color`.
-    -- If `products` table has `size`/`color`, then `productId` implies them.
-    -- However, often ecommerce has `product` as "Style" and `product_variant` table.
-    -- Here `products` table has `size`, `color`.
-    -- `sku` is unique.
-    -- If I have Shirt X in Red/S and Red/M, are they 2 rows in `products` table?
-    -- If yes, then `product_id` is unique variant.
-    -- If no (e.g. product is "Shirt X" and has lists of sizes?), but column `size` is `VARCHAR(50)`, not `TEXT` or `JSON`.
-    -- This implies 1 row per variant OR 1 row per style and size is just text description?
-    -- Let's assume 1 row per variant since `stock_quantity` is there.
-    -- IF 1 row per variant: `unique_cart_product` is correct. `size`/`color` in `cart_items` is redundant but useful for snapshot.
-    -- So I will add `size` and `color` columns to `cart_items` to match `CartDAO` code, but keep Unique key as is.
-    UNIQUE KEY `unique_cart_product` (`cart_id`, `product_id`)
+    -- One line per product variant: adding the same variant again increments its quantity
+    UNIQUE KEY `uq_cart_item_variant` (`cart_id`, `product_id`, `variant_key`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- =========================================================================
@@ -287,6 +276,20 @@ CREATE TABLE `product_reviews` (
     FOREIGN KEY (`product_id`) REFERENCES `products`(`product_id`) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
+-- Per-product review aggregates, maintained with every review insert and delete
+CREATE TABLE `product_review_stats` (
+    `product_id` BIGINT PRIMARY KEY,
+    `rating_count` INT NOT NULL DEFAULT 0,
+    `rating_sum` INT NOT NULL DEFAULT 0,
+    `rating_1` INT NOT NULL DEFAULT 0,
+    `rating_2` INT NOT NULL DEFAULT 0,
+    `rating_3` INT NOT NULL DEFAULT 0,
+    `rating_4` INT NOT NULL DEFAULT 0,
+    `rating_5` INT NOT NULL DEFAULT 0,
+    `updated_at` TIMESTAMP NULL,
+    FOREIGN KEY (`product_id`) REFERENCES `products`(`product_id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
 CREATE TABLE `banners` (
     `banner_id` BIGINT AUTO_INCREMENT PRIMARY KEY,
     `title` VARCHAR(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci,
@@ -394,5 +397,20 @@ CREATE TABLE `user_similarity` (
     UNIQUE KEY `unique_user_pair` (`user_id_1`, `user_id_2`, `similarity_type`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
+CREATE TABLE `recommendation_job_checkpoints` (
+    `job_name` VARCHAR(100) PRIMARY KEY,
+    `run_id` VARCHAR(36) NOT NULL,
+    `status` VARCHAR(20) NOT NULL, -- running, completed, failed
+    `total_partitions` INT NOT NULL DEFAULT 0,
+    `completed_partitions` INT NOT NULL DEFAULT 0,
+    `total_items` BIGINT NOT NULL DEFAULT 0,
+    `processed_items` BIGINT NOT NULL DEFAULT 0,
+    `input_hash` VARCHAR(64), -- fingerprint of the partitioned item list, checked on resume
+    `last_error` VARCHAR(1000),
+    `started_at` TIMESTAMP NULL,
+    `updated_at` TIMESTAMP NULL,
+    `finished_at` TIMESTAMP NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
 -- Re-enable checks
 SET FOREIGN_KEY_CHECKS = 1;
@@ -0,0 +1,21 @@
+package com.clothes.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Configuration for request-time concurrency
+ * Page data that can be loaded independently runs on virtual threads, so a blocking JDBC
+ * call costs a cheap virtual thread rather than a pooled platform thread.
+ */
+@Configuration
+public class ConcurrencyConfig {
+
+    @Bean(destroyMethod = "close")
+    public ExecutorService pageLoadExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
@@ -51,13 +51,124 @@ public class DatabaseMigrationRunner implements CommandLineRunner {
                         "Index 'unique_cart_product' might not exist or already dropped. details: " + e.getMessage());
             }
 
-            // Optional: Add proper index for searching
+            // One line per cart variant, so adding to cart is a single upsert
             try {
-                jdbcTemplate.execute("CREATE INDEX idx_cart_item_variant ON cart_items (cart_id, product_id)");
-                System.out.println("Created index 'idx_cart_item_variant'.");
+                jdbcTemplate.execute("SELECT variant_key FROM cart_items LIMIT 1");
             } catch (Exception e) {
-                // Ignore if exists
+                System.out.println("Column 'variant_key' missing. Adding...");
+                jdbcTemplate.execute("ALTER TABLE cart_items ADD COLUMN variant_key VARCHAR(101) AS "
+                        + "(CONCAT(TRIM(COALESCE(size, '')), '|', TRIM(COALESCE(color, '')))) STORED");
             }
+            if (jdbcTemplate.queryForList("SHOW INDEX FROM cart_items WHERE Key_name = 'uq_cart_item_variant'")
+                    .isEmpty()) {
+                // Fold duplicate lines into the oldest one before the unique key can be added
+                int merged = jdbcTemplate.update("UPDATE cart_items c JOIN (SELECT MIN(cart_item_id) AS keep_id, "
+                        + "SUM(quantity) AS total FROM cart_items GROUP BY cart_id, product_id, variant_key "
+                        + "HAVING COUNT(*) > 1) d ON c.cart_item_id = d.keep_id SET c.quantity = d.total");
+                int removed = jdbcTemplate.update("DELETE c FROM cart_items c JOIN cart_items k "
+                        + "ON k.cart_id = c.cart_id AND k.product_id = c.product_id "
+                        + "AND k.variant_key = c.variant_key AND k.cart_item_id < c.cart_item_id");
+                jdbcTemplate.execute("CREATE UNIQUE INDEX uq_cart_item_variant "
+                        + "ON cart_items (cart_id, product_id, variant_key)");
+                System.out.println("Created index 'uq_cart_item_variant' (merged " + merged + " cart lines, removed "
+                        + removed + " duplicates).");
+            }
+            // Covered by the unique key's prefix
+            try {
+                jdbcTemplate.execute("ALTER TABLE cart_items DROP INDEX idx_cart_item_variant");
+                System.out.println("Dropped index 'idx_cart_item_variant'.");
+            } catch (Exception e) {
+                // Ignore if already dropped
+            }
+
+            // Sort key of the "popular" listing, stored so it can be indexed
+            try {
+                jdbcTemplate.execute("SELECT popularity_score FROM products LIMIT 1");
+            } catch (Exception e) {
+                System.out.println("Column 'popularity_score' missing. Adding...");
+                try {
+                    jdbcTemplate.execute("ALTER TABLE products ADD COLUMN popularity_score BIGINT AS "
+                            + "(COALESCE(purchase_count, 0) * 10 + COALESCE(view_count, 0)) STORED NOT NULL");
+                } catch (Exception addError) {
+                    System.out.println("Could not add 'popularity_score' (are the view/purchase counters missing?): "
+                            + addError.getMessage());
+                }
+            }
+
+            // Indexes backing keyset pagination of the product listing
+            String[][] listingIndexes = {
+                    { "idx_products_active_created", "(is_active, created_at, product_id)" },
+                    { "idx_products_active_price", "(is_active, price, product_id)" },
+                    { "idx_products_active_name", "(is_active, product_name, product_id)" },
+                    { "idx_products_active_popularity", "(is_active, popularity_score, product_id)" } };
+            for (String[] index : listingIndexes) {
+                try {
+                    jdbcTemplate.execute("CREATE INDEX " + index[0] + " ON products " + index[1]);
+                    System.out.println("Created index '" + index[0] + "'.");
+                } catch (Exception e) {
+                    // Ignore if exists
+                }
+            }
+
+            // Checkpoints of partitioned recommendation jobs
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS recommendation_job_checkpoints (" +
+                    "job_name VARCHAR(100) PRIMARY KEY, " +
+                    "run_id VARCHAR(36) NOT NULL, " +
+                    "status VARCHAR(20) NOT NULL, " +
+                    "total_partitions INT NOT NULL DEFAULT 0, " +
+                    "completed_partitions INT NOT NULL DEFAULT 0, " +
+                    "total_items BIGINT NOT NULL DEFAULT 0, " +
+                    "processed_items BIGINT NOT NULL DEFAULT 0, " +
+                    "input_hash VARCHAR(64), " +
+                    "last_error VARCHAR(1000), " +
+                    "started_at TIMESTAMP NULL, " +
+                    "updated_at TIMESTAMP NULL, " +
+                    "finished_at TIMESTAMP NULL)");
+            System.out.println("Table 'recommendation_job_checkpoints' is ready.");
+            try {
+                jdbcTemplate.execute("SELECT input_hash FROM recommendation_job_checkpoints LIMIT 1");
+            } catch (Exception e) {
+                System.out.println("Column 'input_hash' missing. Adding...");
+                jdbcTemplate.execute("ALTER TABLE recommendation_job_checkpoints ADD COLUMN input_hash VARCHAR(64)");
+            }
+
+            // Materialized review aggregates: count and sum on the product row, histogram per product
+            String[] ratingColumns = { "rating_count", "rating_sum" };
+            for (String column : ratingColumns) {
+                try {
+                    jdbcTemplate.execute("SELECT " + column + " FROM products LIMIT 1");
+                } catch (Exception e) {
+                    System.out.println("Column '" + column + "' missing. Adding...");
+                    jdbcTemplate.execute("ALTER TABLE products ADD COLUMN " + column + " INT NOT NULL DEFAULT 0");
+                }
+            }
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS product_review_stats (" +
+                    "product_id BIGINT PRIMARY KEY, " +
+                    "rating_count INT NOT NULL DEFAULT 0, " +
+                    "rating_sum INT NOT NULL DEFAULT 0, " +
+                    "rating_1 INT NOT NULL DEFAULT 0, " +
+                    "rating_2 INT NOT NULL DEFAULT 0, " +
+                    "rating_3 INT NOT NULL DEFAULT 0, " +
+                    "rating_4 INT NOT NULL DEFAULT 0, " +
+                    "rating_5 INT NOT NULL DEFAULT 0, " +
+                    "updated_at TIMESTAMP NULL, " +
+                    "FOREIGN KEY (product_id) REFERENCES products(product_id) ON DELETE CASCADE)");
+
+            // Reconcile aggregates with product_reviews (backfill, and reviews removed by user deletes)
+            jdbcTemplate.update("INSERT INTO product_review_stats (product_id, rating_count, rating_sum, " +
+                    "rating_1, rating_2, rating_3, rating_4, rating_5, updated_at) " +
+                    "SELECT p.product_id, COUNT(r.review_id), COALESCE(SUM(r.rating), 0), " +
+                    "COALESCE(SUM(r.rating = 1), 0), COALESCE(SUM(r.rating = 2), 0), COALESCE(SUM(r.rating = 3), 0), " +
+                    "COALESCE(SUM(r.rating = 4), 0), COALESCE(SUM(r.rating = 5), 0), NOW() " +
+                    "FROM products p LEFT JOIN product_reviews r ON r.product_id = p.product_id " +
+                    "GROUP BY p.product_id " +
+                    "ON DUPLICATE KEY UPDATE rating_count = VALUES(rating_count), rating_sum = VALUES(rating_sum), " +
+                    "rating_1 = VALUES(rating_1), rating_2 = VALUES(rating_2), rating_3 = VALUES(rating_3), " +
+                    "rating_4 = VALUES(rating_4), rating_5 = VALUES(rating_5), updated_at = NOW()");
+            jdbcTemplate.update("UPDATE products p JOIN product_review_stats s ON s.product_id = p.product_id " +
+                    "SET p.rating_count = s.rating_count, p.rating_sum = s.rating_sum, p.updated_at = p.updated_at " +
+                    "WHERE p.rating_count <> s.rating_count OR p.rating_sum <> s.rating_sum");
+            System.out.println("Table 'product_review_stats' is ready.");
 
             System.out.println("Database Migration Completed Successfully.");
 
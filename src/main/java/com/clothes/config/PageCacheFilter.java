@@ -0,0 +1,178 @@
+package com.clothes.config;
+
+import com.clothes.dao.BlogPostDAO;
+import com.clothes.service.PageCache;
+import com.clothes.service.ProductCounterService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.support.SessionFlashMapManager;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Full-page cache for anonymous catalog pages
+ * GET /, /products, /products/{id}, /blog and /blog/{slug} are served from PageCache when the
+ * session has no login, cart or flash state. Responses carry a strong ETag and conditional
+ * requests get 304. Successful admin writes clear the cache; reviews evict their product's
+ * pages through ReviewChangedEvent. Renders a handler marked degraded
+ * (PageCache.DEGRADED_ATTRIBUTE) are sent but not stored.
+ */
+@Component
+public class PageCacheFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageCacheFilter.class);
+
+    private static final Pattern PRODUCT_PAGE = Pattern.compile("/products/(\\d+)");
+    private static final Pattern BLOG_PAGE = Pattern.compile("/blog/([^/]+)");
+    private static final Pattern CACHEABLE = Pattern.compile("/|/products|/products/\\d+|/blog|/blog/[^/]+");
+
+    // Session attributes that make a page user-specific
+    private static final List<String> PERSONAL_ATTRIBUTES = List.of("userId", "adminId", "cartToken",
+            "appliedVoucher", "cartItemCount", "wishlistCount");
+    private static final String FLASH_MAPS_ATTRIBUTE = SessionFlashMapManager.class.getName() + ".FLASH_MAPS";
+
+    private final PageCache pageCache;
+    private final ProductCounterService productCounterService;
+    private final BlogPostDAO blogPostDAO;
+
+    public PageCacheFilter(PageCache pageCache, ProductCounterService productCounterService,
+            BlogPostDAO blogPostDAO) {
+        this.pageCache = pageCache;
+        this.productCounterService = productCounterService;
+        this.blogPostDAO = blogPostDAO;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = path(request);
+        if ("GET".equals(request.getMethod())) {
+            return !CACHEABLE.matcher(path).matches();
+        }
+        return !path.startsWith("/admin/") && !path.startsWith("/api/admin/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!"GET".equals(request.getMethod())) {
+            // Content write: catalog, categories, blog, banners, sliders
+            chain.doFilter(request, response);
+            if (response.getStatus() < 400) {
+                pageCache.clear();
+            }
+            return;
+        }
+
+        if (!isAnonymous(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String path = path(request);
+        String key = request.getQueryString() != null ? path + "?" + request.getQueryString() : path;
+        PageCache.Page cached = pageCache.get(key);
+        if (cached != null) {
+            countView(path);
+            writePage(request, response, cached);
+            return;
+        }
+
+        long renderGeneration = pageCache.currentGeneration();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+
+        String contentType = wrapper.getContentType();
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK && contentType != null
+                && contentType.startsWith("text/html") && isAnonymous(request)
+                && request.getAttribute(PageCache.DEGRADED_ATTRIBUTE) == null) {
+            PageCache.Page page = pageCache.put(key, contentType, wrapper.getContentAsByteArray(),
+                    renderGeneration);
+            wrapper.setHeader(HttpHeaders.ETAG, page.getEtag());
+            wrapper.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+            if (matchesEtag(request, page.getEtag())) {
+                wrapper.resetBuffer();
+                wrapper.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private void writePage(HttpServletRequest request, HttpServletResponse response, PageCache.Page page)
+            throws IOException {
+        response.setHeader(HttpHeaders.ETAG, page.getEtag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        if (matchesEtag(request, page.getEtag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setContentType(page.getContentType());
+        response.setContentLength(page.getBody().length);
+        response.getOutputStream().write(page.getBody());
+    }
+
+    // Views of pages served from the cache still count
+    private void countView(String path) {
+        try {
+            Matcher product = PRODUCT_PAGE.matcher(path);
+            if (product.matches()) {
+                productCounterService.recordView(Long.parseLong(product.group(1)));
+                return;
+            }
+            Matcher blog = BLOG_PAGE.matcher(path);
+            if (blog.matches()) {
+                blogPostDAO.incrementViewCountBySlug(blog.group(1));
+            }
+        } catch (Exception e) {
+            logger.warn("Error counting view of cached page {}", path, e);
+        }
+    }
+
+    private static boolean isAnonymous(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        if (session == null) {
+            return true;
+        }
+        for (String attribute : PERSONAL_ATTRIBUTES) {
+            if (session.getAttribute(attribute) != null) {
+                return false;
+            }
+        }
+        Object flashMaps = session.getAttribute(FLASH_MAPS_ATTRIBUTE);
+        return !(flashMaps instanceof Collection<?> maps) || maps.isEmpty();
+    }
+
+    private static boolean matchesEtag(HttpServletRequest request, String etag) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
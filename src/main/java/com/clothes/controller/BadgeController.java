@@ -0,0 +1,32 @@
+package com.clothes.controller;
+
+import com.clothes.service.BadgeCountService;
+import com.clothes.service.CartService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Header badge counts in one call, served from the session cache
+ */
+@RestController
+public class BadgeController {
+
+    private final CartService cartService;
+    private final BadgeCountService badgeCountService;
+
+    public BadgeController(CartService cartService, BadgeCountService badgeCountService) {
+        this.cartService = cartService;
+        this.badgeCountService = badgeCountService;
+    }
+
+    @GetMapping("/badges")
+    public Map<String, Object> getBadgeCounts() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("cart", cartService.getBadgeCount());
+        response.put("wishlist", badgeCountService.getWishlistCount());
+        return response;
+    }
+}
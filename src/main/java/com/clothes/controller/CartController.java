@@ -1,9 +1,9 @@
 package com.clothes.controller;
 
-import com.clothes.dao.ProductDAO;
 import com.clothes.model.Product;
 import com.clothes.model.Voucher;
 import com.clothes.service.CartService;
+import com.clothes.service.ProductCache;
 import com.clothes.service.VoucherService;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.stereotype.Controller;
@@ -22,12 +22,12 @@ import java.util.Optional;
 public class CartController {
 
     private final CartService cartService;
-    private final ProductDAO productDAO;
+    private final ProductCache productCache;
     private final VoucherService voucherService;
 
-    public CartController(CartService cartService, ProductDAO productDAO, VoucherService voucherService) {
+    public CartController(CartService cartService, ProductCache productCache, VoucherService voucherService) {
         this.cartService = cartService;
-        this.productDAO = productDAO;
+        this.productCache = productCache;
         this.voucherService = voucherService;
     }
 
@@ -104,7 +104,7 @@ public class CartController {
             RedirectAttributes redirectAttributes) {
         try {
             // Get product details
-            Optional<Product> productOpt = productDAO.findById(productId);
+            Optional<Product> productOpt = productCache.findById(productId);
 
             if (productOpt.isEmpty()) {
                 redirectAttributes.addFlashAttribute("error", "Sản phẩm không tồn tại");
@@ -153,7 +153,7 @@ public class CartController {
             @RequestParam(required = false) String color) {
         java.util.Map<String, Object> response = new java.util.HashMap<>();
         try {
-            Optional<Product> productOpt = productDAO.findById(productId);
+            Optional<Product> productOpt = productCache.findById(productId);
             if (productOpt.isEmpty()) {
                 response.put("success", false);
                 response.put("message", "Sản phẩm không tồn tại");
@@ -233,7 +233,7 @@ public class CartController {
                 redirectAttributes.addFlashAttribute("success", "Đã xóa sản phẩm khỏi giỏ hàng");
             } else {
                 // Check stock
-                Optional<Product> productOpt = productDAO.findById(productId);
+                Optional<Product> productOpt = productCache.findById(productId);
                 if (productOpt.isPresent()) {
                     Product product = productOpt.get();
                     if (product.getStockQuantity() < quantity) {
@@ -286,7 +286,7 @@ public class CartController {
     @GetMapping("/count")
     @ResponseBody
     public int getCartCount() {
-        return cartService.getTotalItems();
+        return cartService.getBadgeCount();
     }
 
     /**
@@ -0,0 +1,77 @@
+package com.clothes.controller;
+
+import com.clothes.service.ProductFeedService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Public product feeds for marketplaces and price comparison sites
+ * Written straight to the response batch by batch, gzipped when the client accepts it. Conditional requests get 304 while the catalog is unchanged.
+ */
+@Controller
+@RequestMapping("/feeds")
+public class FeedController {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeedController.class);
+
+    private final ProductFeedService productFeedService;
+
+    public FeedController(ProductFeedService productFeedService) {
+        this.productFeedService = productFeedService;
+    }
+
+    @GetMapping("/products.csv")
+    public void productsCsv(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        writeFeed(request, response, "text/csv;charset=UTF-8", false);
+    }
+
+    @GetMapping("/products.xml")
+    public void productsXml(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        writeFeed(request, response, "application/xml;charset=UTF-8", true);
+    }
+
+    private void writeFeed(HttpServletRequest request, HttpServletResponse response, String contentType,
+            boolean xml) throws IOException {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        ProductFeedService.FeedVersion version = productFeedService.getVersion();
+        // Gzipped bytes differ, so they get their own strong validator
+        String etag = gzip ? version.getEtag().replaceFirst("\"$", "-gzip\"") : version.getEtag();
+        if (new ServletWebRequest(request, response).checkNotModified(etag, version.getLastModified())) {
+            return;
+        }
+
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=300");
+        String baseUrl = ServletUriComponentsBuilder.fromContextPath(request).build().toUriString();
+        long startTime = System.currentTimeMillis();
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        try (OutputStream output = gzip
+                ? new GZIPOutputStream(response.getOutputStream(), 8192)
+                : response.getOutputStream()) {
+            if (xml) {
+                productFeedService.writeXml(output, baseUrl);
+            } else {
+                productFeedService.writeCsv(output, baseUrl);
+            }
+        }
+        logger.info("Served {} product feed{} in {} ms", xml ? "XML" : "CSV", gzip ? " (gzip)" : "",
+                System.currentTimeMillis() - startTime);
+    }
+}
@@ -1,13 +1,14 @@
 package com.clothes.controller;
 
-import com.clothes.dao.ProductDAO;
-import com.clothes.service.CategoryService;
+import com.clothes.model.ProductCard;
+import com.clothes.service.HomePageService;
 import com.clothes.service.HybridRecommendationService;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpSession;
+import java.util.List;
 
 /**
  * Controller for home page
@@ -15,14 +16,11 @@ import jakarta.servlet.http.HttpSession;
 @Controller
 public class HomeController {
 
-    private final ProductDAO productDAO;
-    private final CategoryService categoryService;
+    private final HomePageService homePageService;
     private final HybridRecommendationService recommendationService;
 
-    public HomeController(ProductDAO productDAO, CategoryService categoryService,
-            HybridRecommendationService recommendationService) {
-        this.productDAO = productDAO;
-        this.categoryService = categoryService;
+    public HomeController(HomePageService homePageService, HybridRecommendationService recommendationService) {
+        this.homePageService = homePageService;
         this.recommendationService = recommendationService;
     }
 
@@ -41,29 +39,19 @@ public class HomeController {
     public String showHomePage(HttpSession session, Model model) {
         Long userId = (Long) session.getAttribute("userId");
 
-        // Get recommended products (personalized or trending)
-        var recommendedProducts = userId != null
-                ? recommendationService.getHomepageRecommendations(userId, 8)
-                : productDAO.findTrending(8);
-
-        // Get new arrivals
-        var newProducts = productDAO.findAllActive();
-        newProducts.sort((p1, p2) -> p2.getCreatedAt().compareTo(p1.getCreatedAt()));
-        if (newProducts.size() > 8) {
-            newProducts = newProducts.subList(0, 8);
-        }
+        // Shared sections come from the precomputed snapshot
+        HomePageService.Snapshot home = homePageService.getSnapshot();
 
-        // Get trending products
-        var trendingProducts = productDAO.findTrending(8);
-
-        // Get categories
-        var categories = categoryService.getRootCategories();
+        // Get recommended products (personalized or trending)
+        List<ProductCard> recommendedProducts = userId != null
+                ? recommendationService.getHomepageRecommendations(userId, 8).stream().map(ProductCard::of).toList()
+                : home.getTrending();
 
         model.addAttribute("recommendedProducts", recommendedProducts);
-        model.addAttribute("newProducts", newProducts);
-        model.addAttribute("trendingProducts", trendingProducts);
-        model.addAttribute("featuredProducts", trendingProducts);
-        model.addAttribute("categories", categories);
+        model.addAttribute("newProducts", home.getNewArrivals());
+        model.addAttribute("trendingProducts", home.getTrending());
+        model.addAttribute("featuredProducts", home.getFeatured());
+        model.addAttribute("categories", home.getRootCategories());
 
         return "index";
     }
@@ -6,15 +6,43 @@ import com.clothes.dao.WishlistDAO;
 import com.clothes.model.Category;
 import com.clothes.model.Wishlist;
 import com.clothes.model.Product;
+import com.clothes.model.ProductCard;
+import com.clothes.model.ProductCursor;
+import com.clothes.model.ProductFilter;
+import com.clothes.model.ProductSort;
 import com.clothes.model.Review;
+import com.clothes.model.ReviewStats;
 import com.clothes.service.CategoryService;
+import com.clothes.service.ContentSimilarityIndex;
+import com.clothes.service.PageCache;
+import com.clothes.service.ProductCache;
+import com.clothes.service.ProductCounterService;
+import com.clothes.service.ProductFacetIndex;
+import com.clothes.service.ProductSearchIndex;
+import com.clothes.service.ProductSuggestIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import jakarta.servlet.http.HttpSession;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 /**
  * Controller for product browsing and details
@@ -23,71 +51,170 @@ import java.util.Optional;
 @RequestMapping("/products")
 public class ProductController {
 
+    private static final Logger logger = LoggerFactory.getLogger(ProductController.class);
+
+    // Gender values used by the listing filter
+    private static final List<String> GENDER_FILTER_VALUES = List.of("nam", "nu", "tre-em");
+
+    private static final int MAX_PAGE_SIZE = 48;
+    private static final int KEYWORD_MATCH_LIMIT = 100;
+    // Database fallback counts matches only up to this many
+    private static final int COUNT_CAP = 1000;
+    private static final int MAX_SUGGESTIONS = 10;
+    private static final int RELATED_PRODUCTS = 4;
+
     private final ProductDAO productDAO;
     private final CategoryService categoryService;
     private final ReviewDAO reviewDAO;
     private final WishlistDAO wishlistDAO;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ProductCache productCache;
+    private final ProductCounterService productCounterService;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final ContentSimilarityIndex contentSimilarityIndex;
+
+    private final ExecutorService pageLoadExecutor;
+    private final long detailDeadlineMillis;
 
     public ProductController(ProductDAO productDAO, CategoryService categoryService,
-            ReviewDAO reviewDAO, WishlistDAO wishlistDAO) {
+            ReviewDAO reviewDAO, WishlistDAO wishlistDAO, ProductSearchIndex productSearchIndex,
+            ProductFacetIndex productFacetIndex, ProductCache productCache,
+            ProductCounterService productCounterService, ProductSuggestIndex productSuggestIndex,
+            ContentSimilarityIndex contentSimilarityIndex, ExecutorService pageLoadExecutor,
+            @Value("${product.detail.deadline-ms:1500}") long detailDeadlineMillis) {
         this.productDAO = productDAO;
         this.categoryService = categoryService;
         this.reviewDAO = reviewDAO;
         this.wishlistDAO = wishlistDAO;
+        this.productSearchIndex = productSearchIndex;
+        this.productFacetIndex = productFacetIndex;
+        this.productCache = productCache;
+        this.productCounterService = productCounterService;
+        this.productSuggestIndex = productSuggestIndex;
+        this.contentSimilarityIndex = contentSimilarityIndex;
+        this.pageLoadExecutor = pageLoadExecutor;
+        this.detailDeadlineMillis = detailDeadlineMillis;
     }
 
     /**
      * Show products page with filters
      */
     @GetMapping
-    public String showProductsPage(@RequestParam(required = false) Long categoryId,
+    public String showProductsPage(@RequestParam(required = false) List<Long> categoryId,
             @RequestParam(required = false) String gender,
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) String priceMin,
             @RequestParam(required = false) String priceMax,
             @RequestParam(required = false) String sortBy,
-            @RequestParam(required = false) String brand,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) List<String> brand,
+            @RequestParam(required = false) List<String> color,
+            @RequestParam(required = false) List<String> productSize,
+            @RequestParam(required = false) List<String> season,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "12") int size,
             Model model) {
-        List<Product> products;
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
 
-        Product.Gender genderEnum = gender != null ? Product.Gender.fromValue(gender) : null;
+        ProductFilter filter = new ProductFilter();
+        // A parent category also lists the products of its subcategories
+        filter.setCategoryIds(categoryService.withDescendants(categoryId));
+        if (gender != null && !gender.isBlank()) {
+            filter.setGenders(List.of(Product.Gender.fromValue(gender)));
+        }
+        filter.setBrands(brand);
+        filter.setColors(color);
+        filter.setSizes(productSize);
+        if (season != null) {
+            filter.setSeasons(season.stream().map(Product.Season::fromValue).distinct().toList());
+        }
+        filter.setMinPrice(priceMin != null && !priceMin.isEmpty() ? new BigDecimal(priceMin) : null);
+        filter.setMaxPrice(priceMax != null && !priceMax.isEmpty() ? new BigDecimal(priceMax) : null);
+        boolean hasKeyword = keyword != null && !keyword.trim().isEmpty();
+        // Keyword matches keep their relevance order unless a sort is chosen
+        filter.setSort(hasKeyword && (sortBy == null || sortBy.isBlank())
+                ? ProductSort.RELEVANCE
+                : ProductSort.fromValue(sortBy));
+        ProductCursor after = ProductCursor.decode(cursor, filter.getSort());
 
-        if (keyword != null && !keyword.trim().isEmpty()) {
-            // Search by keyword
-            products = productDAO.search(keyword, 100);
-        } else if (categoryId != null || gender != null || priceMin != null || priceMax != null) {
-            // Apply filters
-            java.math.BigDecimal min = priceMin != null && !priceMin.isEmpty() ? new java.math.BigDecimal(priceMin)
-                    : null;
-            java.math.BigDecimal max = priceMax != null && !priceMax.isEmpty() ? new java.math.BigDecimal(priceMax)
-                    : null;
-            products = productDAO.findWithFilters(categoryId, genderEnum, min, max, sortBy);
-        } else if (brand != null && !brand.trim().isEmpty()) {
-            // Filter by brand
-            products = productDAO.findByBrand(brand);
-        } else {
-            // Show all products
-            products = productDAO.findAllActive();
+        List<ProductCard> products;
+        ProductCursor nextCursor;
+        int totalProducts;
+        boolean totalIsEstimate = false;
+        // Keyword listings also need the search index; until both are built the database answers
+        boolean indexReady = productFacetIndex.isReady() && (!hasKeyword || productSearchIndex.isReady());
+        if (indexReady) {
+            List<Long> matchingIds = hasKeyword ? productSearchIndex.search(keyword, KEYWORD_MATCH_LIMIT) : null;
+            ProductFacetIndex.FacetResult result = productFacetIndex.filterWithCounts(filter, matchingIds, after,
+                    pageSize);
+            products = result.getProducts();
+            nextCursor = result.getNextCursor();
+            totalProducts = result.getTotalMatches();
 
-            // Apply sorting if specified
-            if (sortBy != null) {
-                products = productDAO.findWithFilters(null, null, null, null, sortBy);
+            Map<String, Integer> genderCounts = new HashMap<>();
+            for (String value : GENDER_FILTER_VALUES) {
+                genderCounts.put(value, result.getGenderCounts().get(Product.Gender.fromValue(value)));
             }
+            model.addAttribute("categories", productFacetIndex.getCategories());
+            model.addAttribute("brands", new ArrayList<>(result.getBrandCounts().keySet()));
+            model.addAttribute("colors", new ArrayList<>(result.getColorCounts().keySet()));
+            model.addAttribute("sizes", new ArrayList<>(result.getSizeCounts().keySet()));
+            model.addAttribute("categoryCounts", categoryService.getCategoryTree().rollUp(result.getCategoryCounts()));
+            model.addAttribute("genderCounts", genderCounts);
+            model.addAttribute("brandCounts", result.getBrandCounts());
+            model.addAttribute("colorCounts", result.getColorCounts());
+            model.addAttribute("sizeCounts", result.getSizeCounts());
+        } else if (hasKeyword) {
+            List<Product> matches = productSearchIndex.searchProducts(keyword, KEYWORD_MATCH_LIMIT);
+            int start = 0;
+            if (after != null) {
+                // Cursor product no longer matches: end the listing instead of restarting it
+                start = matches.size();
+                for (int i = 0; i < matches.size(); i++) {
+                    if (matches.get(i).getProductId().equals(after.getProductId())) {
+                        start = i + 1;
+                        break;
+                    }
+                }
+            }
+            int end = Math.min(start + pageSize, matches.size());
+            products = matches.subList(start, end).stream().map(ProductCard::of).toList();
+            nextCursor = end < matches.size() ? ProductCursor.after(matches.get(end - 1), ProductSort.RELEVANCE)
+                    : null;
+            totalProducts = matches.size();
+        } else {
+            // Facet index not built yet: seek one page straight from the database
+            List<ProductCard> page = productDAO.findCardPage(filter, filter.getSort(), after, pageSize + 1);
+            nextCursor = page.size() > pageSize ? ProductCursor.after(page.get(pageSize - 1), filter.getSort())
+                    : null;
+            products = page.size() > pageSize ? page.subList(0, pageSize) : page;
+            totalProducts = productDAO.countWithFilters(filter, COUNT_CAP);
+            totalIsEstimate = totalProducts >= COUNT_CAP;
+        }
+        if (!indexReady) {
+            model.addAttribute("categories", categoryService.getAllCategories());
+            model.addAttribute("brands", productDAO.getAllBrands());
+            model.addAttribute("colors", productDAO.getAllColors());
+            model.addAttribute("sizes", productDAO.getAllSizes());
         }
 
         model.addAttribute("products", products);
-        model.addAttribute("totalProducts", products.size());
-        model.addAttribute("totalPages", 1);
-        model.addAttribute("currentPage", page);
-        model.addAttribute("categories", categoryService.getAllCategories());
-        model.addAttribute("brands", productDAO.getAllBrands());
-        model.addAttribute("colors", productDAO.getAllColors());
-        model.addAttribute("sizes", productDAO.getAllSizes());
-        model.addAttribute("selectedCategoryId", categoryId);
+        model.addAttribute("totalProducts", totalProducts);
+        model.addAttribute("totalIsEstimate", totalIsEstimate);
+        model.addAttribute("pageSize", pageSize);
+        if (nextCursor != null) {
+            model.addAttribute("nextPageUrl", ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", nextCursor.encode()).build().toUriString());
+        }
+        if (after != null) {
+            model.addAttribute("firstPageUrl", ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor").build().toUriString());
+        }
+        model.addAttribute("selectedCategoryId", categoryId != null && categoryId.size() == 1 ? categoryId.get(0) : null);
         model.addAttribute("selectedGender", gender);
         model.addAttribute("selectedBrand", brand);
+        model.addAttribute("selectedColor", color);
+        model.addAttribute("selectedSize", productSize);
         model.addAttribute("priceMin", priceMin);
         model.addAttribute("priceMax", priceMax);
         model.addAttribute("sortBy", sortBy);
@@ -101,51 +228,98 @@ public class ProductController {
      */
     @GetMapping("/{id}")
     public String showProductDetail(@PathVariable Long id, HttpSession session, Model model) {
-        Optional<Product> productOpt = productDAO.findById(id);
+        Optional<Product> productOpt = productCache.findById(id);
 
         if (productOpt.isEmpty()) {
             return "redirect:/products";
         }
 
         Product product = productOpt.get();
+        Long userId = (Long) session.getAttribute("userId");
 
-        // Increment view count
-        productDAO.incrementViewCount(id);
+        productCounterService.recordView(id);
 
-        // Get reviews
-        List<Review> reviews = reviewDAO.findByProductId(id);
-        Double avgRating = reviewDAO.getAverageRating(id);
-        int reviewCount = reviewDAO.getReviewCount(id);
+        // Independent page sections load concurrently under one deadline
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(detailDeadlineMillis);
+        CompletableFuture<List<Review>> reviewsFuture = load(() -> reviewDAO.findByProductId(id));
+        CompletableFuture<ReviewStats> ratingStatsFuture = load(() -> reviewDAO.findStats(id));
+        CompletableFuture<Boolean> canReviewFuture = load(
+                () -> userId != null && !reviewDAO.hasUserReviewed(userId, id));
+        CompletableFuture<Boolean> inWishlistFuture = load(
+                () -> userId != null && wishlistDAO.exists(userId, id));
+        CompletableFuture<List<ProductCard>> relatedFuture = load(() -> {
+            List<ProductCard> related = contentSimilarityIndex.getSimilar(id, RELATED_PRODUCTS);
+            if (!related.isEmpty() || product.getCategoryId() == null) {
+                return related;
+            }
+            // Similarity index not built yet: most popular products of the same category
+            ProductFilter sameCategory = new ProductFilter();
+            sameCategory.setCategoryIds(List.of(product.getCategoryId()));
+            List<ProductCard> popular = new ArrayList<>(productDAO.findCardPage(sameCategory, ProductSort.POPULAR,
+                    null, RELATED_PRODUCTS + 1));
+            popular.removeIf(p -> p.getProductId().equals(id));
+            return popular.size() > RELATED_PRODUCTS ? popular.subList(0, RELATED_PRODUCTS) : popular;
+        });
 
-        // Check if user is logged in and can review
-        Long userId = (Long) session.getAttribute("userId");
-        boolean canReview = userId != null && !reviewDAO.hasUserReviewed(userId, id);
-        boolean isInWishlist = userId != null && wishlistDAO.exists(userId, id);
-
-        // Get similar products by category
-        List<Product> similarProducts = productDAO.findByCategoryId(product.getCategoryId());
-        similarProducts.removeIf(p -> p.getProductId().equals(id));
-        if (similarProducts.size() > 4) {
-            similarProducts = similarProducts.subList(0, 4);
-        }
+        List<Review> reviews = await(reviewsFuture, deadline, List.of(), "reviews", id);
+        ReviewStats ratingStats = await(ratingStatsFuture, deadline, ReviewStats.empty(id), "rating histogram", id);
+        boolean canReview = await(canReviewFuture, deadline, false, "review permission", id);
+        boolean isInWishlist = await(inWishlistFuture, deadline, false, "wishlist state", id);
+        List<ProductCard> relatedProducts = await(relatedFuture, deadline, List.of(), "related products", id);
 
         model.addAttribute("product", product);
         model.addAttribute("reviews", reviews);
-        model.addAttribute("avgRating", avgRating != null ? avgRating : 0.0);
-        model.addAttribute("reviewCount", reviewCount);
+        model.addAttribute("avgRating", product.getAverageRating());
+        model.addAttribute("reviewCount", product.getReviewCount());
+        model.addAttribute("ratingStats", ratingStats);
         model.addAttribute("canReview", canReview);
         model.addAttribute("isInWishlist", isInWishlist);
-        model.addAttribute("similarProducts", similarProducts);
+        model.addAttribute("relatedProducts", relatedProducts);
 
         return "product-detail";
     }
 
+    private <T> CompletableFuture<T> load(Supplier<T> loader) {
+        return CompletableFuture.supplyAsync(loader, pageLoadExecutor);
+    }
+
+    /**
+     * Result of a page section, or the fallback if it failed or missed the page deadline
+     * A fallback marks the page degraded, so the page cache does not keep it.
+     */
+    private <T> T await(CompletableFuture<T> future, long deadline, T fallback, String section, Long productId) {
+        try {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            return future.get(remaining, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            logger.warn("Loading {} of product {} missed the page deadline", section, productId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("Error loading {} of product {}", section, productId, e.getCause());
+        }
+        RequestContextHolder.currentRequestAttributes().setAttribute(PageCache.DEGRADED_ATTRIBUTE, Boolean.TRUE,
+                RequestAttributes.SCOPE_REQUEST);
+        return fallback;
+    }
+
+    /**
+     * Typeahead suggestions for the search box (products, brands, categories)
+     */
+    @GetMapping("/suggest")
+    @ResponseBody
+    public Map<String, Object> suggest(@RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "5") int limit) {
+        return productSuggestIndex.suggest(q, Math.max(1, Math.min(limit, MAX_SUGGESTIONS)));
+    }
+
     /**
      * Search products
      */
     @GetMapping("/search")
     public String searchProducts(@RequestParam String q, Model model) {
-        List<Product> products = productDAO.search(q, 100);
+        List<Product> products = productSearchIndex.searchProducts(q, 100);
 
         model.addAttribute("products", products);
         model.addAttribute("keyword", q);
@@ -159,7 +333,7 @@ public class ProductController {
      */
     @GetMapping("/trending")
     public String showTrendingProducts(Model model) {
-        List<Product> products = productDAO.findTrending(12);
+        List<ProductCard> products = productDAO.findTrendingCards(12);
 
         model.addAttribute("products", products);
         model.addAttribute("categories", categoryService.getAllCategories());
@@ -173,14 +347,7 @@ public class ProductController {
      */
     @GetMapping("/new")
     public String showNewArrivals(Model model) {
-        List<Product> products = productDAO.findAllActive();
-
-        // Sort by created date (newest first)
-        products.sort((p1, p2) -> p2.getCreatedAt().compareTo(p1.getCreatedAt()));
-
-        if (products.size() > 12) {
-            products = products.subList(0, 12);
-        }
+        List<ProductCard> products = productDAO.findCardPage(new ProductFilter(), ProductSort.NEWEST, null, 12);
 
         model.addAttribute("products", products);
         model.addAttribute("categories", categoryService.getAllCategories());
@@ -2,8 +2,10 @@ package com.clothes.controller;
 
 import com.clothes.model.Product;
 import com.clothes.model.UserInteraction;
+import com.clothes.service.ContentSimilarityIndex;
 import com.clothes.service.HybridRecommendationService;
 import com.clothes.service.ItemBasedCFService;
+import com.clothes.service.ProductCache;
 import com.clothes.service.UserBasedCFService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,13 +32,19 @@ public class RecommendationController {
     private final HybridRecommendationService hybridRecommendationService;
     private final UserBasedCFService userBasedCFService;
     private final ItemBasedCFService itemBasedCFService;
+    private final ContentSimilarityIndex contentSimilarityIndex;
+    private final ProductCache productCache;
 
     public RecommendationController(HybridRecommendationService hybridRecommendationService,
             UserBasedCFService userBasedCFService,
-            ItemBasedCFService itemBasedCFService) {
+            ItemBasedCFService itemBasedCFService,
+            ContentSimilarityIndex contentSimilarityIndex,
+            ProductCache productCache) {
         this.hybridRecommendationService = hybridRecommendationService;
         this.userBasedCFService = userBasedCFService;
         this.itemBasedCFService = itemBasedCFService;
+        this.contentSimilarityIndex = contentSimilarityIndex;
+        this.productCache = productCache;
     }
 
     /**
@@ -164,12 +172,19 @@ public class RecommendationController {
             logger.info("GET /api/recommendations/product/{}/similar with limit={}", productId, limit);
 
             List<Product> recommendations = itemBasedCFService.getSimilarProducts(productId, limit);
+            String source = "collaborative";
+            if (recommendations.isEmpty()) {
+                // Cold start: no interactions yet, fall back to content similarity
+                recommendations = productCache.findByIdsOrdered(contentSimilarityIndex.getSimilarIds(productId, limit));
+                source = "content";
+            }
 
             Map<String, Object> response = new HashMap<>();
             response.put("productId", productId);
             response.put("count", recommendations.size());
             response.put("recommendations", recommendations);
             response.put("type", "similar_products");
+            response.put("source", source);
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
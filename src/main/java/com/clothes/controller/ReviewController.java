@@ -1,8 +1,9 @@
 package com.clothes.controller;
 
 import com.clothes.dao.ReviewDAO;
-import com.clothes.dao.ProductDAO;
 import com.clothes.model.Review;
+import com.clothes.service.ProductCache;
+import com.clothes.service.ReviewService;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -18,11 +19,13 @@ import jakarta.servlet.http.HttpSession;
 public class ReviewController {
 
     private final ReviewDAO reviewDAO;
-    private final ProductDAO productDAO;
+    private final ReviewService reviewService;
+    private final ProductCache productCache;
 
-    public ReviewController(ReviewDAO reviewDAO, ProductDAO productDAO) {
+    public ReviewController(ReviewDAO reviewDAO, ReviewService reviewService, ProductCache productCache) {
         this.reviewDAO = reviewDAO;
-        this.productDAO = productDAO;
+        this.reviewService = reviewService;
+        this.productCache = productCache;
     }
 
     /**
@@ -54,7 +57,7 @@ public class ReviewController {
             }
 
             // Check if product exists
-            var productOpt = productDAO.findById(productId);
+            var productOpt = productCache.findById(productId);
             if (productOpt.isEmpty()) {
                 redirectAttributes.addFlashAttribute("error", "Sản phẩm không tồn tại");
                 return "redirect:/products";
@@ -66,7 +69,7 @@ public class ReviewController {
             review.setRating(rating);
             review.setComment(comment);
 
-            reviewDAO.save(review);
+            reviewService.addReview(review);
             redirectAttributes.addFlashAttribute("success", "Cảm ơn bạn đã đánh giá!");
 
         } catch (Exception e) {
@@ -103,7 +106,7 @@ public class ReviewController {
                 return "redirect:/user/profile";
             }
 
-            reviewDAO.delete(id);
+            reviewService.deleteReview(review);
             redirectAttributes.addFlashAttribute("success", "Đã xóa đánh giá");
 
             return "redirect:/products/" + review.getProductId();
@@ -1,8 +1,9 @@
 package com.clothes.controller;
 
 import com.clothes.dao.WishlistDAO;
-import com.clothes.dao.ProductDAO;
 import com.clothes.model.Wishlist;
+import com.clothes.service.BadgeCountService;
+import com.clothes.service.ProductCache;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -19,11 +20,14 @@ import java.util.List;
 public class WishlistController {
 
     private final WishlistDAO wishlistDAO;
-    private final ProductDAO productDAO;
+    private final ProductCache productCache;
+    private final BadgeCountService badgeCountService;
 
-    public WishlistController(WishlistDAO wishlistDAO, ProductDAO productDAO) {
+    public WishlistController(WishlistDAO wishlistDAO, ProductCache productCache,
+            BadgeCountService badgeCountService) {
         this.wishlistDAO = wishlistDAO;
-        this.productDAO = productDAO;
+        this.productCache = productCache;
+        this.badgeCountService = badgeCountService;
     }
 
     /**
@@ -40,6 +44,7 @@ public class WishlistController {
         List<Wishlist> wishlists = wishlistDAO.findByUserId(userId);
         model.addAttribute("wishlists", wishlists);
         model.addAttribute("totalItems", wishlists.size());
+        badgeCountService.setWishlistCount(wishlists.size());
 
         return "wishlist";
     }
@@ -49,17 +54,9 @@ public class WishlistController {
      */
     @GetMapping("/count")
     @ResponseBody
-    public java.util.Map<String, Object> getWishlistCount(HttpSession session) {
+    public java.util.Map<String, Object> getWishlistCount() {
         java.util.Map<String, Object> response = new java.util.HashMap<>();
-        Long userId = (Long) session.getAttribute("userId");
-
-        if (userId != null) {
-            int count = wishlistDAO.countByUserId(userId);
-            response.put("count", count);
-        } else {
-            response.put("count", 0);
-        }
-
+        response.put("count", badgeCountService.getWishlistCount());
         return response;
     }
 
@@ -78,7 +75,7 @@ public class WishlistController {
 
         try {
             // Check if product exists
-            var productOpt = productDAO.findById(productId);
+            var productOpt = productCache.findById(productId);
             if (productOpt.isEmpty()) {
                 redirectAttributes.addFlashAttribute("error", "Sản phẩm không tồn tại");
                 return "redirect:/products";
@@ -95,6 +92,7 @@ public class WishlistController {
             wishlist.setProductId(productId);
 
             wishlistDAO.save(wishlist);
+            badgeCountService.adjustWishlistCount(1);
             redirectAttributes.addFlashAttribute("success", "Đã thêm vào danh sách yêu thích");
 
         } catch (Exception e) {
@@ -132,6 +130,7 @@ public class WishlistController {
             }
 
             wishlistDAO.delete(id);
+            badgeCountService.adjustWishlistCount(-1);
             redirectAttributes.addFlashAttribute("success", "Đã xóa khỏi danh sách yêu thích");
 
         } catch (Exception e) {
@@ -156,10 +155,12 @@ public class WishlistController {
         try {
             if (wishlistDAO.exists(userId, productId)) {
                 wishlistDAO.deleteByUserAndProduct(userId, productId);
+                badgeCountService.adjustWishlistCount(-1);
                 return "removed";
             } else {
                 Wishlist wishlist = new Wishlist(userId, productId);
                 wishlistDAO.save(wishlist);
+                badgeCountService.adjustWishlistCount(1);
                 return "added";
             }
         } catch (Exception e) {
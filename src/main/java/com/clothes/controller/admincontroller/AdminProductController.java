@@ -3,15 +3,23 @@ package com.clothes.controller.admincontroller;
 import com.clothes.model.Category;
 import com.clothes.model.Product;
 import com.clothes.service.CategoryService;
+import com.clothes.service.PageCache;
+import com.clothes.service.ProductCache;
+import com.clothes.service.ProductImportService;
 import com.clothes.service.ProductService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.springframework.web.multipart.MultipartFile;
 import java.nio.file.*;
@@ -24,12 +32,21 @@ import java.io.IOException;
 @RequestMapping("/admin/products")
 public class AdminProductController {
 
+    private static final Logger logger = LoggerFactory.getLogger(AdminProductController.class);
+
     private final ProductService productService;
     private final CategoryService categoryService;
+    private final ProductCache productCache;
+    private final PageCache pageCache;
+    private final ProductImportService productImportService;
 
-    public AdminProductController(ProductService productService, CategoryService categoryService) {
+    public AdminProductController(ProductService productService, CategoryService categoryService,
+            ProductCache productCache, PageCache pageCache, ProductImportService productImportService) {
         this.productService = productService;
         this.categoryService = categoryService;
+        this.productCache = productCache;
+        this.pageCache = pageCache;
+        this.productImportService = productImportService;
     }
 
     @GetMapping
@@ -136,6 +153,21 @@ public class AdminProductController {
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/{id}/stock")
+    @ResponseBody
+    public ResponseEntity<Void> updateStock(@PathVariable Long id, @RequestParam int quantity,
+            HttpSession session) {
+        if (session.getAttribute("adminId") == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (quantity < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return productService.updateStock(id, quantity)
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.notFound().build();
+    }
+
     @PostMapping("/{id}/duplicate")
     @ResponseBody
     public ResponseEntity<Product> duplicateProduct(@PathVariable Long id) {
@@ -158,6 +190,49 @@ public class AdminProductController {
         }
     }
 
+    /**
+     * Bulk import from a CSV or JSON request body, streamed straight from the request
+     * Upserts on SKU; the response lists per-row errors.
+     */
+    @PostMapping(value = "/import", consumes = { "text/csv", "application/json", "application/x-ndjson" })
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> importProducts(HttpServletRequest request, HttpSession session) {
+        if (session.getAttribute("adminId") == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("success", false));
+        }
+        try {
+            boolean csv = request.getContentType().startsWith("text/csv");
+            ProductImportService.ImportResult result = csv
+                    ? productImportService.importCsv(request.getInputStream())
+                    : productImportService.importJson(request.getInputStream());
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("success", result.getFailed() == 0);
+            response.put("rows", result.getRows());
+            response.put("created", result.getCreated());
+            response.put("updated", result.getUpdated());
+            response.put("failed", result.getFailed());
+            response.put("elapsedMillis", result.getElapsedMillis());
+            response.put("errors", result.getErrors());
+            return ResponseEntity.ok(response);
+        } catch (IOException e) {
+            logger.warn("Unreadable product import: {}", e.getMessage());
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("success", false);
+            response.put("message", "File không hợp lệ: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @GetMapping("/cache-stats")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getCacheStats(HttpSession session) {
+        if (session.getAttribute("adminId") == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("success", false));
+        }
+        return ResponseEntity.ok(Map.of("products", productCache.getStats(), "pages", pageCache.getStats()));
+    }
+
     @GetMapping("/export")
     public String exportProducts(HttpSession session) {
         if (session.getAttribute("adminId") == null) {
@@ -1,8 +1,12 @@
 package com.clothes.controller.admincontroller;
 
-import com.clothes.service.UserBasedCFService;
-import com.clothes.service.ItemBasedCFService;
+import com.clothes.service.BatchJobService;
 import com.clothes.service.HybridRecommendationService;
+import com.clothes.service.RecommendationReplayService;
+import com.clothes.service.RecommendationScheduledService;
+import com.clothes.service.SeenItemService;
+import com.clothes.service.UserPreferenceService;
+import com.clothes.service.ShardedSimilarityService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
@@ -22,16 +26,28 @@ public class AdminRecommendationController {
 
     private static final Logger logger = LoggerFactory.getLogger(AdminRecommendationController.class);
 
-    private final UserBasedCFService userBasedCFService;
-    private final ItemBasedCFService itemBasedCFService;
     private final HybridRecommendationService hybridRecommendationService;
-
-    public AdminRecommendationController(UserBasedCFService userBasedCFService,
-            ItemBasedCFService itemBasedCFService,
-            HybridRecommendationService hybridRecommendationService) {
-        this.userBasedCFService = userBasedCFService;
-        this.itemBasedCFService = itemBasedCFService;
+    private final RecommendationScheduledService recommendationScheduledService;
+    private final BatchJobService batchJobService;
+    private final ShardedSimilarityService shardedSimilarityService;
+    private final RecommendationReplayService recommendationReplayService;
+    private final SeenItemService seenItemService;
+    private final UserPreferenceService userPreferenceService;
+
+    public AdminRecommendationController(HybridRecommendationService hybridRecommendationService,
+            RecommendationScheduledService recommendationScheduledService,
+            BatchJobService batchJobService,
+            ShardedSimilarityService shardedSimilarityService,
+            RecommendationReplayService recommendationReplayService,
+            SeenItemService seenItemService,
+            UserPreferenceService userPreferenceService) {
         this.hybridRecommendationService = hybridRecommendationService;
+        this.recommendationScheduledService = recommendationScheduledService;
+        this.batchJobService = batchJobService;
+        this.shardedSimilarityService = shardedSimilarityService;
+        this.recommendationReplayService = recommendationReplayService;
+        this.seenItemService = seenItemService;
+        this.userPreferenceService = userPreferenceService;
     }
 
     /**
@@ -45,11 +61,12 @@ public class AdminRecommendationController {
             logger.info("POST /api/admin/recommendations/compute-user-similarities - Starting computation");
 
             long startTime = System.currentTimeMillis();
-            userBasedCFService.computeUserSimilarities();
+            BatchJobService.JobProgress job = recommendationScheduledService.runUserSimilarityJob();
             long duration = System.currentTimeMillis() - startTime;
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
+            response.put("job", job.toMap());
             response.put("message", "User similarities computed successfully");
             response.put("durationMs", duration);
             response.put("durationSeconds", duration / 1000.0);
@@ -57,6 +74,8 @@ public class AdminRecommendationController {
             logger.info("User similarity computation completed in {} ms", duration);
             return ResponseEntity.ok(response);
 
+        } catch (IllegalStateException e) {
+            return jobAlreadyRunning(e);
         } catch (Exception e) {
             logger.error("Error computing user similarities", e);
             return ResponseEntity.status(500).body(Map.of(
@@ -77,11 +96,12 @@ public class AdminRecommendationController {
             logger.info("POST /api/admin/recommendations/compute-product-similarities - Starting computation");
 
             long startTime = System.currentTimeMillis();
-            itemBasedCFService.computeProductSimilarities();
+            BatchJobService.JobProgress job = recommendationScheduledService.runProductSimilarityJob();
             long duration = System.currentTimeMillis() - startTime;
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
+            response.put("job", job.toMap());
             response.put("message", "Product similarities computed successfully");
             response.put("durationMs", duration);
             response.put("durationSeconds", duration / 1000.0);
@@ -89,6 +109,8 @@ public class AdminRecommendationController {
             logger.info("Product similarity computation completed in {} ms", duration);
             return ResponseEntity.ok(response);
 
+        } catch (IllegalStateException e) {
+            return jobAlreadyRunning(e);
         } catch (Exception e) {
             logger.error("Error computing product similarities", e);
             return ResponseEntity.status(500).body(Map.of(
@@ -109,11 +131,12 @@ public class AdminRecommendationController {
             logger.info("POST /api/admin/recommendations/compute-product-similarities-cooccurrence - Starting");
 
             long startTime = System.currentTimeMillis();
-            itemBasedCFService.computeProductSimilaritiesByCoOccurrence();
+            BatchJobService.JobProgress job = recommendationScheduledService.runCoOccurrenceJob();
             long duration = System.currentTimeMillis() - startTime;
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
+            response.put("job", job.toMap());
             response.put("message", "Product similarities (co-occurrence) computed successfully");
             response.put("durationMs", duration);
             response.put("durationSeconds", duration / 1000.0);
@@ -121,6 +144,8 @@ public class AdminRecommendationController {
             logger.info("Product similarity (co-occurrence) computation completed in {} ms", duration);
             return ResponseEntity.ok(response);
 
+        } catch (IllegalStateException e) {
+            return jobAlreadyRunning(e);
         } catch (Exception e) {
             logger.error("Error computing product similarities (co-occurrence)", e);
             return ResponseEntity.status(500).body(Map.of(
@@ -130,6 +155,106 @@ public class AdminRecommendationController {
         }
     }
 
+    /**
+     * POST /api/admin/recommendations/compute-sharded?type=product|user&shards=4
+     * Compute similarities with one worker process per shard
+     * Each finished shard is checkpointed, so a failed run resumes at the first unmerged shard
+     */
+    @PostMapping("/compute-sharded")
+    public ResponseEntity<?> computeSharded(@RequestParam(defaultValue = "product") String type,
+            @RequestParam(required = false) Integer shards) {
+        try {
+            logger.info("POST /api/admin/recommendations/compute-sharded - type={}, shards={}", type, shards);
+
+            if (shards != null && (shards < 1 || shards > 64)) {
+                return ResponseEntity.badRequest().body(Map.of(
+                        "success", false,
+                        "error", "shards must be between 1 and 64"));
+            }
+
+            long startTime = System.currentTimeMillis();
+            BatchJobService.JobProgress job;
+            if ("user".equalsIgnoreCase(type)) {
+                job = recommendationScheduledService.runShardedUserSimilarityJob(
+                        shards != null ? shards : shardedSimilarityService.getDefaultShards());
+            } else if ("product".equalsIgnoreCase(type)) {
+                job = recommendationScheduledService.runShardedProductSimilarityJob(
+                        shards != null ? shards : shardedSimilarityService.getDefaultShards());
+            } else {
+                return ResponseEntity.badRequest().body(Map.of(
+                        "success", false,
+                        "error", "type must be 'product' or 'user'"));
+            }
+            long duration = System.currentTimeMillis() - startTime;
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("job", job.toMap());
+            response.put("message", "Sharded " + type + " similarities computed successfully");
+            response.put("durationMs", duration);
+            response.put("durationSeconds", duration / 1000.0);
+
+            logger.info("Sharded {} similarity computation completed in {} ms", type, duration);
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalStateException e) {
+            return jobAlreadyRunning(e);
+        } catch (Exception e) {
+            logger.error("Error computing sharded similarities", e);
+            return ResponseEntity.status(500).body(Map.of(
+                    "success", false,
+                    "error", "Failed to compute sharded similarities",
+                    "message", e.getMessage()));
+        }
+    }
+
+    /**
+     * POST /api/admin/recommendations/replay?k=10&trainFraction=0.8&maxUsers=500
+     * Offline evaluation: train on the older interactions in memory, replay the newer ones
+     * and report precision@K, recall@K, p50/p99 latency and allocation per request
+     * Does not write to the similarity or recommendation tables
+     */
+    @PostMapping("/replay")
+    public ResponseEntity<?> replay(@RequestParam(defaultValue = "10") int k,
+            @RequestParam(defaultValue = "0.8") double trainFraction,
+            @RequestParam(defaultValue = "500") int maxUsers) {
+        try {
+            logger.info("POST /api/admin/recommendations/replay - k={}, trainFraction={}, maxUsers={}",
+                    k, trainFraction, maxUsers);
+
+            if (k < 1 || k > 100 || trainFraction <= 0 || trainFraction >= 1 || maxUsers < 1) {
+                return ResponseEntity.badRequest().body(Map.of(
+                        "success", false,
+                        "error", "Require 1 <= k <= 100, 0 < trainFraction < 1 and maxUsers >= 1"));
+            }
+
+            long startTime = System.currentTimeMillis();
+            RecommendationReplayService.ReplayReport report = recommendationReplayService.replay(k, trainFraction,
+                    maxUsers);
+            long duration = System.currentTimeMillis() - startTime;
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("report", report.toMap());
+            response.put("durationMs", duration);
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return jobAlreadyRunning(e);
+        } catch (Exception e) {
+            logger.error("Error running recommendation replay", e);
+            return ResponseEntity.status(500).body(Map.of(
+                    "success", false,
+                    "error", "Failed to run replay",
+                    "message", e.getMessage()));
+        }
+    }
+
     /**
      * POST /api/admin/recommendations/cleanup-cache
      * Clean up expired recommendations cache
@@ -174,7 +299,7 @@ public class AdminRecommendationController {
             // Compute user similarities
             try {
                 long startTime = System.currentTimeMillis();
-                userBasedCFService.computeUserSimilarities();
+                recommendationScheduledService.runUserSimilarityJob();
                 long duration = System.currentTimeMillis() - startTime;
                 ((Map<String, Object>) response.get("tasks")).put("userSimilarities", Map.of(
                         "success", true,
@@ -189,7 +314,7 @@ public class AdminRecommendationController {
             // Compute product similarities
             try {
                 long startTime = System.currentTimeMillis();
-                itemBasedCFService.computeProductSimilarities();
+                recommendationScheduledService.runProductSimilarityJob();
                 long duration = System.currentTimeMillis() - startTime;
                 ((Map<String, Object>) response.get("tasks")).put("productSimilarities", Map.of(
                         "success", true,
@@ -227,7 +352,7 @@ public class AdminRecommendationController {
 
     /**
      * GET /api/admin/recommendations/status
-     * Get recommendation system status
+     * Get recommendation system status, including live progress, rate and ETA of batch jobs
      */
     @GetMapping("/status")
     public ResponseEntity<?> getStatus() {
@@ -239,6 +364,10 @@ public class AdminRecommendationController {
                     "itemBasedCF", "enabled",
                     "hybrid", "enabled"));
             status.put("message", "Recommendation system is running");
+            status.put("jobs", batchJobService.getJobStatuses());
+            status.put("singleFlight", hybridRecommendationService.getSingleFlightStats());
+            status.put("seenItems", seenItemService.getStats());
+            status.put("preferenceProfiles", userPreferenceService.getStats());
 
             return ResponseEntity.ok(status);
         } catch (Exception e) {
@@ -248,4 +377,14 @@ public class AdminRecommendationController {
                     "message", e.getMessage()));
         }
     }
+
+    /**
+     * 409 response for a job that is already running in this process
+     */
+    private ResponseEntity<?> jobAlreadyRunning(IllegalStateException e) {
+        return ResponseEntity.status(409).body(Map.of(
+                "success", false,
+                "error", "Job already running",
+                "message", e.getMessage()));
+    }
 }
@@ -202,6 +202,11 @@ public class BlogPostDAO {
         return jdbcTemplate.update(sql, postId);
     }
 
+    public int incrementViewCountBySlug(String slug) {
+        String sql = "UPDATE blog_posts SET view_count = view_count + 1 WHERE slug = ?";
+        return jdbcTemplate.update(sql, slug);
+    }
+
     /**
      * Delete blog post
      */
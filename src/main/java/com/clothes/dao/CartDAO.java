@@ -15,6 +15,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
@@ -84,35 +85,39 @@ public class CartDAO {
     }
 
     /**
-     * Delete existing item and add new item to cart
+     * Add an item to the cart, or add to the quantity of the same product variant
+     * One statement: the unique (cart_id, product_id, variant_key) key turns a repeated add into
+     * a quantity increment, so concurrent adds cannot create duplicate lines.
+     * @return id of the inserted or updated cart item
      */
-    public void addItem(Long cartId, CartItem item) {
-        // Check if item exists with same Product ID AND Size AND Color
-        String checkSql = "SELECT cart_item_id, quantity FROM cart_items " +
-                "WHERE cart_id = ? AND product_id = ? " +
-                "AND (size = ? OR (size IS NULL AND ? IS NULL)) " +
-                "AND (color = ? OR (color IS NULL AND ? IS NULL))";
-        try {
-            CartItem existing = jdbcTemplate.queryForObject(checkSql,
-                    (rs, rowNum) -> {
-                        CartItem i = new CartItem();
-                        i.setCartItemId(rs.getLong("cart_item_id"));
-                        i.setQuantity(rs.getInt("quantity"));
-                        return i;
-                    },
-                    cartId, item.getProductId(),
-                    item.getSize(), item.getSize(),
-                    item.getColor(), item.getColor());
-
-            if (existing != null) {
-                // Update quantity
-                updateItemQuantity(existing.getCartItemId(), existing.getQuantity() + item.getQuantity());
-            }
-        } catch (EmptyResultDataAccessException e) {
-            // Insert new
-            String sql = "INSERT INTO cart_items (cart_id, product_id, quantity, size, color) VALUES (?, ?, ?, ?, ?)";
-            jdbcTemplate.update(sql, cartId, item.getProductId(), item.getQuantity(), item.getSize(), item.getColor());
+    public Long addItem(Long cartId, CartItem item) {
+        // LAST_INSERT_ID(cart_item_id) makes the existing row's id the generated key on update
+        String sql = "INSERT INTO cart_items (cart_id, product_id, quantity, size, color) VALUES (?, ?, ?, ?, ?) " +
+                "ON DUPLICATE KEY UPDATE quantity = quantity + ?, cart_item_id = LAST_INSERT_ID(cart_item_id)";
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            ps.setLong(1, cartId);
+            ps.setLong(2, item.getProductId());
+            ps.setInt(3, item.getQuantity());
+            ps.setString(4, variantValue(item.getSize()));
+            ps.setString(5, variantValue(item.getColor()));
+            ps.setInt(6, item.getQuantity());
+            return ps;
+        }, keyHolder);
+
+        // An update reports two affected rows, so the driver lists a second, made-up key; the first is the row's
+        Map<String, Object> keys = keyHolder.getKeyList().get(0);
+        return ((Number) keys.values().iterator().next()).longValue();
+    }
+
+    // Size and color as stored: trimmed, blank as NULL, matching the variant_key column
+    private static String variantValue(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
         }
+        return value.trim();
     }
 
     /**
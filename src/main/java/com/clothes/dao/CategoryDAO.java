@@ -8,6 +8,7 @@ import org.springframework.stereotype.Repository;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -126,6 +127,19 @@ public class CategoryDAO {
         return count != null ? count : 0;
     }
 
+    /**
+     * Product count of every category that has products, in one pass
+     */
+    public Map<Long, Integer> countProductsByCategory() {
+        String sql = "SELECT category_id, COUNT(*) AS product_count FROM products " +
+                "WHERE category_id IS NOT NULL GROUP BY category_id";
+        Map<Long, Integer> counts = new HashMap<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList(sql)) {
+            counts.put(((Number) row.get("category_id")).longValue(), ((Number) row.get("product_count")).intValue());
+        }
+        return counts;
+    }
+
     /**
      * Update display order
      */
@@ -0,0 +1,409 @@
+package com.clothes.dao;
+
+import com.clothes.model.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory data source for the recommendation services
+ * Holds a fixed set of interactions, ratings and products and exposes DAO subclasses
+ * that answer the queries of the CF read and similarity paths without a database.
+ * Used by the offline replay harness; only the methods those paths call are backed.
+ * Anything else reaches a JdbcTemplate without a database and fails with an
+ * UnsupportedOperationException naming the DAO method.
+ */
+public class InMemoryRecommendationStore {
+
+    private static final JdbcTemplate UNBACKED = new JdbcTemplate(new UnbackedDataSource());
+
+    private final List<UserInteraction> interactions;
+    private final List<UserRating> ratings;
+    private final Map<Long, Product> products = new HashMap<>();
+
+    // Indexes over the interaction list
+    private final Map<Long, List<UserInteraction>> interactionsByUser = new HashMap<>();
+    private final Map<Long, Set<Long>> usersByProduct = new HashMap<>();
+    private final Map<Long, Double> popularity = new HashMap<>();
+
+    private final Interactions userInteractionDAO = new Interactions();
+    private final Ratings userRatingDAO = new Ratings();
+    private final Products productDAO = new Products();
+    private final ProductSimilarities productSimilarityDAO = new ProductSimilarities();
+    private final UserSimilarities userSimilarityDAO = new UserSimilarities();
+    private final Recommendations recommendationDAO = new Recommendations();
+
+    public InMemoryRecommendationStore(List<UserInteraction> interactions, List<UserRating> ratings,
+            List<Product> products) {
+        this.interactions = new ArrayList<>(interactions);
+        this.ratings = new ArrayList<>(ratings);
+        for (Product product : products) {
+            this.products.put(product.getProductId(), product);
+        }
+
+        for (UserInteraction interaction : this.interactions) {
+            interactionsByUser.computeIfAbsent(interaction.getUserId(), k -> new ArrayList<>()).add(interaction);
+            usersByProduct.computeIfAbsent(interaction.getProductId(), k -> new LinkedHashSet<>())
+                    .add(interaction.getUserId());
+
+            // Same weighting as findTrending: purchases count 10x views
+            if (interaction.getInteractionType() == UserInteraction.InteractionType.PURCHASE) {
+                popularity.merge(interaction.getProductId(), 10.0, Double::sum);
+            } else if (interaction.getInteractionType() == UserInteraction.InteractionType.VIEW) {
+                popularity.merge(interaction.getProductId(), 1.0, Double::sum);
+            }
+        }
+
+        // findByUserId returns newest first
+        Comparator<UserInteraction> newestFirst = Comparator.comparing(UserInteraction::getCreatedAt,
+                Comparator.nullsLast(Comparator.reverseOrder()));
+        interactionsByUser.values().forEach(list -> list.sort(newestFirst));
+    }
+
+    public UserInteractionDAO getUserInteractionDAO() {
+        return userInteractionDAO;
+    }
+
+    public UserRatingDAO getUserRatingDAO() {
+        return userRatingDAO;
+    }
+
+    public ProductDAO getProductDAO() {
+        return productDAO;
+    }
+
+    public ProductSimilarityDAO getProductSimilarityDAO() {
+        return productSimilarityDAO;
+    }
+
+    public UserSimilarityDAO getUserSimilarityDAO() {
+        return userSimilarityDAO;
+    }
+
+    public RecommendationDAO getRecommendationDAO() {
+        return recommendationDAO;
+    }
+
+    /**
+     * Data source of the unbacked DAO methods: every connection request fails, naming the caller
+     */
+    private static class UnbackedDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() {
+            throw new UnsupportedOperationException(callingDaoMethod()
+                    + " is not backed by InMemoryRecommendationStore; override it in the store's DAO subclass");
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) {
+            return getConnection();
+        }
+
+        // Innermost frame of a DAO class other than the store itself
+        private static String callingDaoMethod() {
+            String packagePrefix = InMemoryRecommendationStore.class.getPackageName() + ".";
+            String storeName = InMemoryRecommendationStore.class.getName();
+            return StackWalker.getInstance().walk(frames -> frames
+                    .filter(frame -> frame.getClassName().startsWith(packagePrefix)
+                            && !frame.getClassName().startsWith(storeName))
+                    .findFirst()
+                    .map(frame -> frame.getClassName().substring(packagePrefix.length()) + "."
+                            + frame.getMethodName())
+                    .orElse("A DAO method"));
+        }
+    }
+
+    /**
+     * Store symmetric pair scores and answer "top N neighbours of id" lookups
+     */
+    private static class PairScores {
+        private final Map<Long, Map<Long, Double>> scores = new HashMap<>();
+        private final Map<Long, List<Map.Entry<Long, Double>>> sorted = new HashMap<>();
+
+        synchronized void put(Long id1, Long id2, double score) {
+            scores.computeIfAbsent(id1, k -> new HashMap<>()).put(id2, score);
+            scores.computeIfAbsent(id2, k -> new HashMap<>()).put(id1, score);
+            sorted.remove(id1);
+            sorted.remove(id2);
+        }
+
+        synchronized List<Map.Entry<Long, Double>> top(Long id, int limit) {
+            List<Map.Entry<Long, Double>> neighbours = sorted.computeIfAbsent(id, k -> {
+                List<Map.Entry<Long, Double>> list = new ArrayList<>(
+                        scores.getOrDefault(k, Collections.emptyMap()).entrySet());
+                list.sort((e1, e2) -> Double.compare(e2.getValue(), e1.getValue()));
+                return list;
+            });
+            return neighbours.subList(0, Math.min(limit, neighbours.size()));
+        }
+
+        synchronized Double get(Long id1, Long id2) {
+            return scores.getOrDefault(id1, Collections.emptyMap()).get(id2);
+        }
+
+        synchronized int size() {
+            return scores.values().stream().mapToInt(Map::size).sum() / 2;
+        }
+    }
+
+    /**
+     * user_interactions backed by the store
+     */
+    public class Interactions extends UserInteractionDAO {
+        Interactions() {
+            super(UNBACKED);
+        }
+
+        @Override
+        public Long save(UserInteraction interaction) {
+            interactions.add(interaction);
+            interactionsByUser.computeIfAbsent(interaction.getUserId(), k -> new ArrayList<>()).add(0, interaction);
+            usersByProduct.computeIfAbsent(interaction.getProductId(), k -> new LinkedHashSet<>())
+                    .add(interaction.getUserId());
+            return (long) interactions.size();
+        }
+
+        @Override
+        public List<UserInteraction> findAllOrderByCreatedAt() {
+            return new ArrayList<>(interactions);
+        }
+
+        @Override
+        public List<UserInteraction> findByUserId(Long userId) {
+            return new ArrayList<>(interactionsByUser.getOrDefault(userId, Collections.emptyList()));
+        }
+
+        @Override
+        public List<UserInteraction> findByUserIdAndProductId(Long userId, Long productId) {
+            return interactionsByUser.getOrDefault(userId, Collections.emptyList()).stream()
+                    .filter(i -> productId.equals(i.getProductId()))
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public List<Long> findProductIdsByUserId(Long userId) {
+            return interactionsByUser.getOrDefault(userId, Collections.emptyList()).stream()
+                    .map(UserInteraction::getProductId)
+                    .distinct()
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public List<Long> findUserIdsByProductId(Long productId) {
+            return new ArrayList<>(usersByProduct.getOrDefault(productId, Collections.emptySet()));
+        }
+
+        @Override
+        public List<InteractionScore> getInteractionMatrix() {
+            List<InteractionScore> matrix = new ArrayList<>(interactions.size());
+            for (UserInteraction interaction : interactions) {
+                InteractionScore score = new InteractionScore();
+                score.userId = interaction.getUserId();
+                score.productId = interaction.getProductId();
+                score.score = interaction.getInteractionValue() != null
+                        ? interaction.getInteractionValue().doubleValue()
+                        : interaction.getInteractionType().getWeight();
+                matrix.add(score);
+            }
+            return matrix;
+        }
+    }
+
+    /**
+     * user_ratings backed by the store
+     */
+    public class Ratings extends UserRatingDAO {
+        Ratings() {
+            super(UNBACKED);
+        }
+
+        @Override
+        public List<UserRating> findAllOrderByCreatedAt() {
+            return new ArrayList<>(ratings);
+        }
+
+        @Override
+        public List<RatingPair> getAllRatingPairs() {
+            List<RatingPair> pairs = new ArrayList<>(ratings.size());
+            for (UserRating rating : ratings) {
+                RatingPair pair = new RatingPair();
+                pair.userId = rating.getUserId();
+                pair.productId = rating.getProductId();
+                pair.rating = rating.getRating().doubleValue();
+                pairs.add(pair);
+            }
+            return pairs;
+        }
+    }
+
+    /**
+     * products backed by the store; trending is ranked from the stored interactions
+     */
+    public class Products extends ProductDAO {
+        Products() {
+            super(UNBACKED);
+        }
+
+        @Override
+        public Optional<Product> findById(Long productId) {
+            return Optional.ofNullable(products.get(productId));
+        }
+
+        @Override
+        public List<Product> findAllActive() {
+            return new ArrayList<>(products.values());
+        }
+
+        /**
+         * Same as the IN query: unordered, so return in primary key order
+         */
+        @Override
+        public List<Product> findByIds(List<Long> productIds) {
+            if (productIds == null || productIds.isEmpty()) {
+                return List.of();
+            }
+            return productIds.stream()
+                    .distinct()
+                    .sorted()
+                    .map(products::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public List<Product> findTrending(int limit) {
+            Comparator<Product> byCreated = Comparator.comparing(Product::getCreatedAt,
+                    Comparator.nullsLast(Comparator.reverseOrder()));
+            return products.values().stream()
+                    .sorted(Comparator.<Product>comparingDouble(
+                            p -> -popularity.getOrDefault(p.getProductId(), 0.0)).thenComparing(byCreated))
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public int[] addCounts(List<Object[]> deltas) {
+            return new int[deltas.size()];
+        }
+    }
+
+    /**
+     * product_similarity backed by the store
+     */
+    public class ProductSimilarities extends ProductSimilarityDAO {
+        private final PairScores pairs = new PairScores();
+
+        ProductSimilarities() {
+            super(UNBACKED);
+        }
+
+        @Override
+        public void batchSave(List<ProductSimilarity> similarities) {
+            for (ProductSimilarity similarity : similarities) {
+                pairs.put(similarity.getProductId1(), similarity.getProductId2(),
+                        similarity.getSimilarityScore().doubleValue());
+            }
+        }
+
+        @Override
+        public Optional<ProductSimilarity> findByProductIds(Long productId1, Long productId2) {
+            Double score = pairs.get(productId1, productId2);
+            if (score == null) {
+                return Optional.empty();
+            }
+            return Optional.of(new ProductSimilarity(productId1, productId2, BigDecimal.valueOf(score)));
+        }
+
+        @Override
+        public List<SimilarProduct> getSimilarProductsForProduct(Long productId, int limit) {
+            List<SimilarProduct> result = new ArrayList<>();
+            for (Map.Entry<Long, Double> entry : pairs.top(productId, limit)) {
+                SimilarProduct similar = new SimilarProduct();
+                similar.productId = entry.getKey();
+                similar.similarityScore = entry.getValue();
+                result.add(similar);
+            }
+            return result;
+        }
+
+        @Override
+        public int count() {
+            return pairs.size();
+        }
+    }
+
+    /**
+     * user_similarity backed by the store
+     */
+    public class UserSimilarities extends UserSimilarityDAO {
+        private final PairScores pairs = new PairScores();
+
+        UserSimilarities() {
+            super(UNBACKED);
+        }
+
+        @Override
+        public void batchSave(List<UserSimilarity> similarities) {
+            for (UserSimilarity similarity : similarities) {
+                pairs.put(similarity.getUserId1(), similarity.getUserId2(),
+                        similarity.getSimilarityScore().doubleValue());
+            }
+        }
+
+        @Override
+        public List<SimilarUser> getSimilarUsersForUser(Long userId, int limit) {
+            List<SimilarUser> result = new ArrayList<>();
+            for (Map.Entry<Long, Double> entry : pairs.top(userId, limit)) {
+                SimilarUser similar = new SimilarUser();
+                similar.userId = entry.getKey();
+                similar.similarityScore = entry.getValue();
+                result.add(similar);
+            }
+            return result;
+        }
+
+        @Override
+        public int count() {
+            return pairs.size();
+        }
+    }
+
+    /**
+     * recommendations cache that never hits, so every request is computed
+     */
+    public class Recommendations extends RecommendationDAO {
+        Recommendations() {
+            super(UNBACKED);
+        }
+
+        @Override
+        public void batchSave(List<Recommendation> recommendations) {
+        }
+
+        @Override
+        public List<Recommendation> findByUserId(Long userId, int limit) {
+            return List.of();
+        }
+
+        @Override
+        public List<Recommendation> findByUserIdAndType(Long userId, Recommendation.RecommendationType type,
+                int limit) {
+            return List.of();
+        }
+
+        @Override
+        public int deleteByUserId(Long userId) {
+            return 0;
+        }
+
+        @Override
+        public int deleteExpired() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.clothes.dao;
+
+import com.clothes.model.JobCheckpoint;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * DAO for JobCheckpoint entity
+ * Persists partition progress of recommendation batch jobs so they survive restarts
+ */
+@Repository
+public class JobCheckpointDAO {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JobCheckpointDAO(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * RowMapper for JobCheckpoint
+     */
+    private static class JobCheckpointRowMapper implements RowMapper<JobCheckpoint> {
+        @Override
+        public JobCheckpoint mapRow(ResultSet rs, int rowNum) throws SQLException {
+            JobCheckpoint checkpoint = new JobCheckpoint();
+            checkpoint.setJobName(rs.getString("job_name"));
+            checkpoint.setRunId(rs.getString("run_id"));
+            checkpoint.setStatus(JobCheckpoint.Status.fromValue(rs.getString("status")));
+            checkpoint.setTotalPartitions(rs.getInt("total_partitions"));
+            checkpoint.setCompletedPartitions(rs.getInt("completed_partitions"));
+            checkpoint.setTotalItems(rs.getLong("total_items"));
+            checkpoint.setProcessedItems(rs.getLong("processed_items"));
+            checkpoint.setInputHash(rs.getString("input_hash"));
+            checkpoint.setLastError(rs.getString("last_error"));
+
+            Timestamp started = rs.getTimestamp("started_at");
+            if (started != null) {
+                checkpoint.setStartedAt(started.toLocalDateTime());
+            }
+
+            Timestamp updated = rs.getTimestamp("updated_at");
+            if (updated != null) {
+                checkpoint.setUpdatedAt(updated.toLocalDateTime());
+            }
+
+            Timestamp finished = rs.getTimestamp("finished_at");
+            if (finished != null) {
+                checkpoint.setFinishedAt(finished.toLocalDateTime());
+            }
+
+            return checkpoint;
+        }
+    }
+
+    /**
+     * Find checkpoint of a job
+     */
+    public Optional<JobCheckpoint> findByJobName(String jobName) {
+        String sql = "SELECT * FROM recommendation_job_checkpoints WHERE job_name = ?";
+        List<JobCheckpoint> checkpoints = jdbcTemplate.query(sql, new JobCheckpointRowMapper(), jobName);
+        return checkpoints.isEmpty() ? Optional.empty() : Optional.of(checkpoints.get(0));
+    }
+
+    /**
+     * Find all checkpoints
+     */
+    public List<JobCheckpoint> findAll() {
+        String sql = "SELECT * FROM recommendation_job_checkpoints ORDER BY job_name";
+        return jdbcTemplate.query(sql, new JobCheckpointRowMapper());
+    }
+
+    /**
+     * Start a new run, replacing any previous checkpoint of the job
+     */
+    public void start(JobCheckpoint checkpoint) {
+        String sql = "INSERT INTO recommendation_job_checkpoints (job_name, run_id, status, total_partitions, " +
+                "completed_partitions, total_items, processed_items, input_hash, last_error, started_at, updated_at, " +
+                "finished_at) VALUES (?, ?, ?, ?, 0, ?, 0, ?, NULL, NOW(), NOW(), NULL) " +
+                "ON DUPLICATE KEY UPDATE run_id = VALUES(run_id), status = VALUES(status), " +
+                "total_partitions = VALUES(total_partitions), completed_partitions = 0, " +
+                "total_items = VALUES(total_items), processed_items = 0, input_hash = VALUES(input_hash), " +
+                "last_error = NULL, started_at = NOW(), updated_at = NOW(), finished_at = NULL";
+
+        jdbcTemplate.update(sql,
+                checkpoint.getJobName(),
+                checkpoint.getRunId(),
+                JobCheckpoint.Status.RUNNING.getValue(),
+                checkpoint.getTotalPartitions(),
+                checkpoint.getTotalItems(),
+                checkpoint.getInputHash());
+    }
+
+    /**
+     * Mark an interrupted run as running again
+     */
+    public int resume(String jobName, String runId) {
+        String sql = "UPDATE recommendation_job_checkpoints SET status = ?, last_error = NULL, updated_at = NOW() " +
+                "WHERE job_name = ? AND run_id = ?";
+        return jdbcTemplate.update(sql, JobCheckpoint.Status.RUNNING.getValue(), jobName, runId);
+    }
+
+    /**
+     * Record a completed partition
+     */
+    public int saveProgress(String jobName, String runId, int completedPartitions, long processedItems) {
+        String sql = "UPDATE recommendation_job_checkpoints SET completed_partitions = ?, processed_items = ?, " +
+                "updated_at = NOW() WHERE job_name = ? AND run_id = ?";
+        return jdbcTemplate.update(sql, completedPartitions, processedItems, jobName, runId);
+    }
+
+    /**
+     * Mark a run as completed
+     */
+    public int complete(String jobName, String runId) {
+        String sql = "UPDATE recommendation_job_checkpoints SET status = ?, updated_at = NOW(), finished_at = NOW() " +
+                "WHERE job_name = ? AND run_id = ?";
+        return jdbcTemplate.update(sql, JobCheckpoint.Status.COMPLETED.getValue(), jobName, runId);
+    }
+
+    /**
+     * Mark a run as failed, keeping its progress for a later resume
+     */
+    public int fail(String jobName, String runId, String error) {
+        String sql = "UPDATE recommendation_job_checkpoints SET status = ?, last_error = ?, updated_at = NOW() " +
+                "WHERE job_name = ? AND run_id = ?";
+        String message = error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+        return jdbcTemplate.update(sql, JobCheckpoint.Status.FAILED.getValue(), message, jobName, runId);
+    }
+}
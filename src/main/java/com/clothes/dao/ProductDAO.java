@@ -1,16 +1,30 @@
 package com.clothes.dao;
 
 import com.clothes.model.Product;
+import com.clothes.model.ProductCard;
+import com.clothes.model.ProductCursor;
+import com.clothes.model.ProductFilter;
+import com.clothes.model.ProductSort;
+import com.clothes.model.ReviewStats;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * DAO for Product entity
@@ -29,8 +43,15 @@ public class ProductDAO {
      * RowMapper for Product
      */
     private static class ProductRowMapper implements RowMapper<Product> {
+        // Optional columns present in the result set, resolved on the first row
+        private Set<String> optionalColumns;
+
         @Override
         public Product mapRow(ResultSet rs, int rowNum) throws SQLException {
+            if (optionalColumns == null) {
+                optionalColumns = presentColumns(rs, "view_count", "purchase_count", "rating_count", "rating_sum");
+            }
+
             Product product = new Product();
             product.setProductId(rs.getLong("product_id"));
             product.setProductName(rs.getString("product_name"));
@@ -73,19 +94,85 @@ public class ProductDAO {
             product.setIsActive(rs.getBoolean("is_active"));
 
             // Handle optional columns
-            try {
-                product.setViewCount(rs.getInt("view_count"));
-            } catch (Exception e) {
-                product.setViewCount(0);
+            product.setViewCount(optionalColumns.contains("view_count") ? rs.getInt("view_count") : 0);
+            product.setPurchaseCount(optionalColumns.contains("purchase_count") ? rs.getInt("purchase_count") : 0);
+
+            // Materialized review aggregates
+            if (optionalColumns.contains("rating_count") && optionalColumns.contains("rating_sum")) {
+                int ratingCount = rs.getInt("rating_count");
+                product.setReviewCount(ratingCount);
+                product.setAverageRating(ReviewStats.averageOf(rs.getInt("rating_sum"), ratingCount));
+            } else {
+                product.setReviewCount(0);
+                product.setAverageRating(0.0);
             }
 
-            try {
-                product.setPurchaseCount(rs.getInt("purchase_count"));
-            } catch (Exception e) {
-                product.setPurchaseCount(0);
+            return product;
+        }
+
+        private static Set<String> presentColumns(ResultSet rs, String... candidates) throws SQLException {
+            ResultSetMetaData metaData = rs.getMetaData();
+            Set<String> labels = new HashSet<>();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                labels.add(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT));
             }
+            Set<String> present = new HashSet<>();
+            for (String candidate : candidates) {
+                if (labels.contains(candidate)) {
+                    present.add(candidate);
+                }
+            }
+            return present;
+        }
+    }
 
-            return product;
+    // Columns of a ProductCard, in the order ProductCardRowMapper reads them
+    private static final String CARD_COLUMNS = "product_id, product_name, price, discount_price, image_url, " +
+            "rating_count, rating_sum";
+
+    /**
+     * RowMapper for ProductCard, reading CARD_COLUMNS by position
+     * When a sort is given, the sort key is expected as the column after CARD_COLUMNS.
+     */
+    private static class ProductCardRowMapper implements RowMapper<ProductCard> {
+        private final ProductSort sort;
+
+        ProductCardRowMapper(ProductSort sort) {
+            this.sort = sort;
+        }
+
+        @Override
+        public ProductCard mapRow(ResultSet rs, int rowNum) throws SQLException {
+            int ratingCount = rs.getInt(6);
+            return new ProductCard(
+                    rs.getLong(1),
+                    rs.getString(2),
+                    rs.getBigDecimal(3),
+                    rs.getBigDecimal(4),
+                    rs.getString(5),
+                    ReviewStats.averageOf(rs.getInt(7), ratingCount),
+                    ratingCount,
+                    sort != null ? sortKey(rs, 8) : null);
+        }
+
+        // Same string form as ProductSort.cursorKey
+        private String sortKey(ResultSet rs, int index) throws SQLException {
+            switch (sort) {
+                case NEWEST:
+                    Timestamp created = rs.getTimestamp(index);
+                    return created != null ? created.toLocalDateTime().toString() : null;
+                case PRICE_ASC:
+                case PRICE_DESC:
+                    BigDecimal price = rs.getBigDecimal(index);
+                    return price != null ? price.toPlainString() : null;
+                case NAME_ASC:
+                case NAME_DESC:
+                    return rs.getString(index);
+                case POPULAR:
+                    return String.valueOf(rs.getLong(index));
+                default:
+                    return null;
+            }
         }
     }
 
@@ -120,6 +207,23 @@ public class ProductDAO {
         return jdbcTemplate.query(sql, new ProductRowMapper(), productIds.toArray());
     }
 
+    /**
+     * Find products by IDs, returned in the order of the given list (e.g. by rank)
+     */
+    public List<Product> findByIdsOrdered(List<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return List.of();
+        }
+
+        List<Product> products = new ArrayList<>(findByIds(productIds));
+        Map<Long, Integer> position = new HashMap<>();
+        for (int i = 0; i < productIds.size(); i++) {
+            position.putIfAbsent(productIds.get(i), i);
+        }
+        products.sort(Comparator.comparing(p -> position.getOrDefault(p.getProductId(), Integer.MAX_VALUE)));
+        return products;
+    }
+
     /**
      * Find trending products (most views/purchases recently)
      */
@@ -132,19 +236,24 @@ public class ProductDAO {
     }
 
     /**
-     * Update view count
+     * Find trending products as cards
      */
-    public int incrementViewCount(Long productId) {
-        String sql = "UPDATE products SET view_count = view_count + 1 WHERE product_id = ?";
-        return jdbcTemplate.update(sql, productId);
+    public List<ProductCard> findTrendingCards(int limit) {
+        String sql = "SELECT " + CARD_COLUMNS + " FROM products " +
+                "WHERE is_active = TRUE " +
+                "ORDER BY COALESCE(purchase_count, 0) * 10 + COALESCE(view_count, 0) DESC, created_at DESC " +
+                "LIMIT ?";
+        return jdbcTemplate.query(sql, new ProductCardRowMapper(null), limit);
     }
 
     /**
-     * Update purchase count
+     * Add buffered view and purchase counts in one batch
+     * Each row is {viewDelta, purchaseDelta, productId}.
      */
-    public int incrementPurchaseCount(Long productId) {
-        String sql = "UPDATE products SET purchase_count = purchase_count + 1 WHERE product_id = ?";
-        return jdbcTemplate.update(sql, productId);
+    public int[] addCounts(List<Object[]> deltas) {
+        String sql = "UPDATE products SET view_count = view_count + ?, purchase_count = purchase_count + ?, " +
+                "updated_at = updated_at WHERE product_id = ?";
+        return jdbcTemplate.batchUpdate(sql, deltas);
     }
 
     /**
@@ -258,6 +367,125 @@ public class ProductDAO {
         return jdbcTemplate.query(sql.toString(), new ProductRowMapper(), params.toArray());
     }
 
+    /**
+     * One page of the listing as cards, using keyset (seek) pagination
+     * Rows come strictly after the cursor in (sort key, product_id) order, so deep pages
+     * cost the same as the first. Pass a null cursor for the first page.
+     */
+    public List<ProductCard> findCardPage(ProductFilter filter, ProductSort sort, ProductCursor cursor, int limit) {
+        if (sort.getColumn() == null) {
+            throw new IllegalArgumentException("Sort order " + sort + " has no SQL column");
+        }
+        StringBuilder sql = new StringBuilder("SELECT " + CARD_COLUMNS + ", " + sort.getColumn() +
+                " FROM products WHERE is_active = TRUE");
+        List<Object> params = new ArrayList<>();
+        appendFilterConditions(sql, params, filter);
+
+        String column = sort.getColumn();
+        String direction = sort.isDescending() ? " DESC" : " ASC";
+        String after = sort.isDescending() ? " < " : " > ";
+        // Null keys sort last, as in ProductFacetIndex. MySQL already puts them last when
+        // descending; ascending orders need the IS NULL term, which is constant (and dropped)
+        // for the NOT NULL price and name columns, so their indexes still serve the order.
+        String nullsLast = sort.isDescending() ? "" : column + " IS NULL, ";
+        if (cursor != null) {
+            if (cursor.getKey() == null) {
+                // Only the remaining null rows follow
+                sql.append(" AND ").append(column).append(" IS NULL AND product_id").append(after).append("?");
+                params.add(cursor.getProductId());
+            } else {
+                // Later non-null keys, then every null row. The row comparison with key and
+                // tiebreak in one direction is a single index range.
+                sql.append(" AND ((").append(column).append(", product_id)").append(after).append("(?, ?)")
+                        .append(" OR ").append(column).append(" IS NULL)");
+                params.add(sort.sqlValue(cursor.getKey()));
+                params.add(cursor.getProductId());
+            }
+        }
+
+        sql.append(" ORDER BY ").append(nullsLast).append(column).append(direction)
+                .append(", product_id").append(direction).append(" LIMIT ?");
+        params.add(limit);
+        return jdbcTemplate.query(sql.toString(), new ProductCardRowMapper(sort), params.toArray());
+    }
+
+    /**
+     * Number of matching products, counted up to the given cap
+     * A result equal to the cap means "cap or more"; this keeps the count cheap on large
+     * catalogs where the listing only needs an approximate total.
+     */
+    public int countWithFilters(ProductFilter filter, int cap) {
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM (SELECT 1 FROM products WHERE is_active = TRUE");
+        List<Object> params = new ArrayList<>();
+        appendFilterConditions(sql, params, filter);
+        sql.append(" LIMIT ?) matched");
+        params.add(cap);
+        Integer count = jdbcTemplate.queryForObject(sql.toString(), Integer.class, params.toArray());
+        return count != null ? count : 0;
+    }
+
+    private void appendFilterConditions(StringBuilder sql, List<Object> params, ProductFilter filter) {
+        appendIn(sql, params, "category_id", filter.getCategoryIds());
+        appendIn(sql, params, "gender", filter.getGenders().stream().map(Product.Gender::getValue).toList());
+        appendIn(sql, params, "season", filter.getSeasons().stream().map(Product.Season::getValue).toList());
+        appendIn(sql, params, "brand", filter.getBrands());
+        // color and size hold comma-separated values ("Đen, Trắng")
+        appendListMatch(sql, params, "color", filter.getColors());
+        appendListMatch(sql, params, "size", filter.getSizes());
+
+        if (!filter.getPriceBuckets().isEmpty()) {
+            List<String> ranges = new ArrayList<>();
+            long[] limits = ProductFilter.PRICE_BUCKET_LIMITS;
+            for (Integer bucket : filter.getPriceBuckets()) {
+                if (bucket == null || bucket < 0 || bucket > limits.length) {
+                    continue;
+                }
+                if (bucket == 0) {
+                    ranges.add("price < ?");
+                    params.add(limits[0]);
+                } else if (bucket == limits.length) {
+                    ranges.add("price >= ?");
+                    params.add(limits[bucket - 1]);
+                } else {
+                    ranges.add("(price >= ? AND price < ?)");
+                    params.add(limits[bucket - 1]);
+                    params.add(limits[bucket]);
+                }
+            }
+            sql.append(ranges.isEmpty() ? " AND FALSE" : " AND (" + String.join(" OR ", ranges) + ")");
+        }
+
+        if (filter.getMinPrice() != null) {
+            sql.append(" AND price >= ?");
+            params.add(filter.getMinPrice());
+        }
+        if (filter.getMaxPrice() != null) {
+            sql.append(" AND price <= ?");
+            params.add(filter.getMaxPrice());
+        }
+    }
+
+    private static void appendIn(StringBuilder sql, List<Object> params, String column, List<?> values) {
+        if (values.isEmpty()) {
+            return;
+        }
+        sql.append(" AND ").append(column).append(" IN (")
+                .append(String.join(", ", java.util.Collections.nCopies(values.size(), "?"))).append(")");
+        params.addAll(values);
+    }
+
+    private static void appendListMatch(StringBuilder sql, List<Object> params, String column, List<String> values) {
+        if (values.isEmpty()) {
+            return;
+        }
+        List<String> matches = new ArrayList<>();
+        for (String value : values) {
+            matches.add("FIND_IN_SET(?, REPLACE(" + column + ", ', ', ','))");
+            params.add(value.trim());
+        }
+        sql.append(" AND (").append(String.join(" OR ", matches)).append(")");
+    }
+
     /**
      * Find products by brand
      */
@@ -407,6 +635,104 @@ public class ProductDAO {
         return jdbcTemplate.update(sql, productId);
     }
 
+    /**
+     * Hand every active product, in id order, to the consumer
+     * Read in keyset batches (product_id > last id), so memory is bounded by the batch size and
+     * the connection goes back to the pool between batches: a slow consumer, such as a client
+     * downloading a feed, never holds one.
+     */
+    public void streamActive(int batchSize, Consumer<Product> consumer) {
+        String sql = "SELECT product_id, product_name, description, category_id, price, discount_price, " +
+                "stock_quantity, image_url, brand, color, size, material, gender, season, sku, is_active, " +
+                "created_at, updated_at FROM products WHERE is_active = TRUE AND product_id > ? " +
+                "ORDER BY product_id LIMIT ?";
+        ProductRowMapper mapper = new ProductRowMapper();
+        long lastId = 0;
+        List<Product> batch;
+        do {
+            batch = jdbcTemplate.query(sql, mapper, lastId, batchSize);
+            for (Product product : batch) {
+                consumer.accept(product);
+            }
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getProductId();
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    /**
+     * Active product count and the latest change to any product, as a version of the catalog
+     */
+    public Map<String, Object> findCatalogVersion() {
+        String sql = "SELECT SUM(is_active = TRUE) AS active_count, MAX(updated_at) AS last_updated FROM products";
+        return jdbcTemplate.queryForMap(sql);
+    }
+
+    /**
+     * Columns a bulk upsert can write, in INSERT order
+     */
+    public static final List<String> UPSERT_COLUMNS = List.of("product_name", "description", "category_id",
+            "price", "discount_price", "stock_quantity", "image_url", "brand", "color", "size", "material",
+            "gender", "season", "sku", "is_active");
+
+    /**
+     * Insert or update several products in one statement, matched on their unique SKU
+     * New rows get every column; existing rows only get the listed update columns.
+     * @return affected-rows count as reported by MySQL (1 per insert, 2 per changed update)
+     */
+    public int upsertBySku(List<Product> products, Set<String> updateColumns) {
+        if (products.isEmpty()) {
+            return 0;
+        }
+        String row = "(" + String.join(", ", java.util.Collections.nCopies(UPSERT_COLUMNS.size(), "?")) +
+                ", NOW(), NOW())";
+        StringBuilder sql = new StringBuilder("INSERT INTO products (")
+                .append(String.join(", ", UPSERT_COLUMNS)).append(", created_at, updated_at) VALUES ")
+                .append(String.join(", ", java.util.Collections.nCopies(products.size(), row)))
+                .append(" ON DUPLICATE KEY UPDATE ");
+        for (String column : UPSERT_COLUMNS) {
+            if (updateColumns.contains(column) && !column.equals("sku")) {
+                sql.append(column).append(" = VALUES(").append(column).append("), ");
+            }
+        }
+        sql.append("updated_at = NOW()");
+
+        List<Object> params = new ArrayList<>(products.size() * UPSERT_COLUMNS.size());
+        for (Product product : products) {
+            params.add(product.getProductName());
+            params.add(product.getDescription());
+            params.add(product.getCategoryId());
+            params.add(product.getPrice());
+            params.add(product.getDiscountPrice());
+            params.add(product.getStockQuantity());
+            params.add(product.getImageUrl());
+            params.add(product.getBrand());
+            params.add(product.getColor());
+            params.add(product.getSize());
+            params.add(product.getMaterial());
+            params.add(product.getGender() != null ? product.getGender().getValue() : null);
+            params.add(product.getSeason() != null ? product.getSeason().getValue() : null);
+            params.add(product.getSku());
+            params.add(product.getIsActive());
+        }
+        return jdbcTemplate.update(sql.toString(), params.toArray());
+    }
+
+    /**
+     * Product ids of the given SKUs; unknown SKUs are left out
+     */
+    public Map<String, Long> findIdsBySkus(java.util.Collection<String> skus) {
+        Map<String, Long> ids = new HashMap<>();
+        if (skus.isEmpty()) {
+            return ids;
+        }
+        String sql = "SELECT sku, product_id FROM products WHERE sku IN (" +
+                String.join(", ", java.util.Collections.nCopies(skus.size(), "?")) + ")";
+        jdbcTemplate.query(sql, (rs, rowNum) -> ids.put(rs.getString("sku"), rs.getLong("product_id")),
+                skus.toArray());
+        return ids;
+    }
+
     /**
      * Find product by SKU
      */
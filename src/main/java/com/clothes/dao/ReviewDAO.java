@@ -1,6 +1,7 @@
 package com.clothes.dao;
 
 import com.clothes.model.Review;
+import com.clothes.model.ReviewStats;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
@@ -104,6 +105,37 @@ public class ReviewDAO {
         return jdbcTemplate.update(sql, reviewId);
     }
 
+    /**
+     * Apply one added (delta = 1) or removed (delta = -1) rating to the product's aggregates
+     * Must run in the same transaction as the review insert or delete.
+     */
+    public void applyRating(Long productId, int rating, int delta) {
+        String bucket = "rating_" + Math.max(1, Math.min(5, rating));
+        jdbcTemplate.update("INSERT INTO product_review_stats (product_id, rating_count, rating_sum, " + bucket +
+                ", updated_at) VALUES (?, ?, ?, ?, NOW()) " +
+                "ON DUPLICATE KEY UPDATE rating_count = rating_count + VALUES(rating_count), " +
+                "rating_sum = rating_sum + VALUES(rating_sum), " +
+                bucket + " = " + bucket + " + VALUES(" + bucket + "), updated_at = NOW()",
+                productId, delta, delta * rating, delta);
+        jdbcTemplate.update("UPDATE products SET rating_count = rating_count + ?, rating_sum = rating_sum + ?, " +
+                "updated_at = updated_at WHERE product_id = ?", delta, delta * rating, productId);
+    }
+
+    /**
+     * Get the review aggregate of a product
+     */
+    public ReviewStats findStats(Long productId) {
+        String sql = "SELECT * FROM product_review_stats WHERE product_id = ?";
+        List<ReviewStats> stats = jdbcTemplate.query(sql, (rs, rowNum) -> new ReviewStats(
+                rs.getLong("product_id"),
+                rs.getInt("rating_count"),
+                rs.getInt("rating_sum"),
+                new int[] { rs.getInt("rating_1"), rs.getInt("rating_2"), rs.getInt("rating_3"),
+                        rs.getInt("rating_4"), rs.getInt("rating_5") }),
+                productId);
+        return stats.isEmpty() ? ReviewStats.empty(productId) : stats.get(0);
+    }
+
     /**
      * Get average rating for product
      */
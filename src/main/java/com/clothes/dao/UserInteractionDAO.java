@@ -80,6 +80,14 @@ public class UserInteractionDAO {
         return jdbcTemplate.query(sql, new UserInteractionRowMapper(), userId);
     }
 
+    /**
+     * Find all interactions in time order (for offline replay)
+     */
+    public List<UserInteraction> findAllOrderByCreatedAt() {
+        String sql = "SELECT * FROM user_interactions ORDER BY created_at, interaction_id";
+        return jdbcTemplate.query(sql, new UserInteractionRowMapper());
+    }
+
     /**
      * Find all interactions by product ID
      */
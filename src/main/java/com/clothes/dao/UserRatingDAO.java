@@ -101,6 +101,14 @@ public class UserRatingDAO {
         return jdbcTemplate.query(sql, new UserRatingRowMapper(), userId);
     }
 
+    /**
+     * Find all ratings in time order (for offline replay)
+     */
+    public List<UserRating> findAllOrderByCreatedAt() {
+        String sql = "SELECT * FROM user_ratings ORDER BY created_at, rating_id";
+        return jdbcTemplate.query(sql, new UserRatingRowMapper());
+    }
+
     /**
      * Find all ratings for a product
      */
@@ -0,0 +1,25 @@
+package com.clothes.event;
+
+/**
+ * Published when a category is created, updated, toggled or deleted
+ * In-memory category structures listen to drop their copy of the tree.
+ */
+public class CategoryChangedEvent {
+
+    private final Long categoryId;
+
+    public CategoryChangedEvent(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    @Override
+    public String toString() {
+        return "CategoryChangedEvent{" +
+                "categoryId=" + categoryId +
+                '}';
+    }
+}
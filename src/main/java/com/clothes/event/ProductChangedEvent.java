@@ -0,0 +1,53 @@
+package com.clothes.event;
+
+import java.util.List;
+
+/**
+ * Published when products are created, updated or deleted
+ * In-memory product structures (search index, caches) listen to stay in sync with the database.
+ */
+public class ProductChangedEvent {
+
+    public enum ChangeType {
+        SAVED,
+        DELETED,
+        // Many products changed at once (bulk import); no ids, listeners reload everything
+        RELOADED
+    }
+
+    private final List<Long> productIds;
+    private final ChangeType changeType;
+
+    public ProductChangedEvent(List<Long> productIds, ChangeType changeType) {
+        this.productIds = List.copyOf(productIds);
+        this.changeType = changeType;
+    }
+
+    public static ProductChangedEvent saved(Long productId) {
+        return new ProductChangedEvent(List.of(productId), ChangeType.SAVED);
+    }
+
+    public static ProductChangedEvent deleted(List<Long> productIds) {
+        return new ProductChangedEvent(productIds, ChangeType.DELETED);
+    }
+
+    public static ProductChangedEvent reloaded() {
+        return new ProductChangedEvent(List.of(), ChangeType.RELOADED);
+    }
+
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductChangedEvent{" +
+                "productIds=" + productIds +
+                ", changeType=" + changeType +
+                '}';
+    }
+}
@@ -0,0 +1,26 @@
+package com.clothes.event;
+
+/**
+ * Published when a review is added or deleted
+ * Only the product's rating changed, so listeners refresh that product's rating rather than
+ * reacting as to a product change (which rebuilds indexes and clears the page cache).
+ */
+public class ReviewChangedEvent {
+
+    private final Long productId;
+
+    public ReviewChangedEvent(Long productId) {
+        this.productId = productId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    @Override
+    public String toString() {
+        return "ReviewChangedEvent{" +
+                "productId=" + productId +
+                '}';
+    }
+}
@@ -79,15 +79,36 @@ public class Cart {
         recalculateTotal();
     }
 
-    public void removeItem(Long cartItemId, boolean useId) {
-        // Placeholder if we implement unique IDs for cart items later
-        // For now we will rely on removing by object identity or index if needed
-        // But the UI sends an ID. Let's assume for now we might need to match exactly.
+    /**
+     * Item with the given cart item id, or null
+     */
+    public CartItem findItemById(Long cartItemId) {
+        return items.stream()
+                .filter(item -> item.getCartItemId() != null && item.getCartItemId().equals(cartItemId))
+                .findFirst()
+                .orElse(null);
     }
 
-    // New method to remove a specific item variant if needed,
-    // but the controller currently uses productId.
-    // We'll update the controller to handle this better later.
+    /**
+     * Add an item as its own line, without merging into an existing variant
+     */
+    public void appendItem(CartItem item) {
+        this.items.add(item);
+        recalculateTotal();
+    }
+
+    public void removeItemById(Long cartItemId) {
+        this.items.removeIf(item -> item.getCartItemId() != null && item.getCartItemId().equals(cartItemId));
+        recalculateTotal();
+    }
+
+    public void updateItemQuantity(Long cartItemId, int quantity) {
+        CartItem item = findItemById(cartItemId);
+        if (item != null) {
+            item.setQuantity(quantity);
+            recalculateTotal();
+        }
+    }
 
     public void updateQuantity(Long productId, Integer quantity) {
         // This is ambiguous now with multiple variants.
@@ -0,0 +1,230 @@
+package com.clothes.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Immutable category hierarchy with parent links, descendant sets and product counts
+ * Built from one load of the categories table. Categories whose parent is missing or whose
+ * parent chain loops are treated as roots. The Category objects it hands out are shared
+ * between requests and carry their parent and subtree product count; they must not be modified.
+ */
+public final class CategoryTree {
+
+    private final List<Category> categories;
+    private final List<Category> roots;
+    private final Map<Long, Category> byId;
+    private final Map<Long, List<Category>> children;
+    // Category id -> itself and every category below it
+    private final Map<Long, Set<Long>> descendants;
+    private final Map<Long, Integer> directCounts;
+    private final Map<Long, Integer> subtreeCounts;
+
+    /**
+     * @param loaded        all categories, in display order
+     * @param productCounts products directly in each category
+     */
+    public CategoryTree(List<Category> loaded, Map<Long, Integer> productCounts) {
+        Map<Long, Category> copies = new HashMap<>();
+        List<Category> ordered = new ArrayList<>(loaded.size());
+        for (Category source : loaded) {
+            Category copy = copyOf(source);
+            copies.put(copy.getCategoryId(), copy);
+            ordered.add(copy);
+        }
+
+        Map<Long, List<Category>> childLists = new HashMap<>();
+        List<Category> rootList = new ArrayList<>();
+        for (Category category : ordered) {
+            Long parentId = effectiveParent(category, copies);
+            if (parentId == null) {
+                rootList.add(category);
+            } else {
+                category.setParentCategory(copies.get(parentId));
+                childLists.computeIfAbsent(parentId, k -> new ArrayList<>()).add(category);
+            }
+        }
+
+        // Post-order walk from the roots: a node's subtree is complete once its children are
+        Map<Long, Set<Long>> descendantSets = new HashMap<>();
+        Map<Long, Integer> subtree = new HashMap<>();
+        for (Category root : rootList) {
+            Deque<Category> stack = new ArrayDeque<>();
+            Set<Long> expanded = new HashSet<>();
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                Category node = stack.peek();
+                List<Category> nodeChildren = childLists.getOrDefault(node.getCategoryId(), List.of());
+                if (expanded.add(node.getCategoryId())) {
+                    for (Category child : nodeChildren) {
+                        stack.push(child);
+                    }
+                    continue;
+                }
+                stack.pop();
+                Set<Long> ids = new LinkedHashSet<>();
+                ids.add(node.getCategoryId());
+                int count = productCounts.getOrDefault(node.getCategoryId(), 0);
+                for (Category child : nodeChildren) {
+                    ids.addAll(descendantSets.get(child.getCategoryId()));
+                    count += subtree.get(child.getCategoryId());
+                }
+                descendantSets.put(node.getCategoryId(), Collections.unmodifiableSet(ids));
+                subtree.put(node.getCategoryId(), count);
+                node.setProductCount(count);
+            }
+        }
+
+        Map<Long, List<Category>> frozenChildren = new HashMap<>();
+        childLists.forEach((parentId, list) -> frozenChildren.put(parentId, List.copyOf(list)));
+        Map<Long, Integer> direct = new HashMap<>();
+        for (Category category : ordered) {
+            direct.put(category.getCategoryId(), productCounts.getOrDefault(category.getCategoryId(), 0));
+        }
+
+        this.categories = List.copyOf(ordered);
+        this.roots = List.copyOf(rootList);
+        this.byId = Map.copyOf(copies);
+        this.children = Map.copyOf(frozenChildren);
+        this.descendants = Map.copyOf(descendantSets);
+        this.directCounts = Map.copyOf(direct);
+        this.subtreeCounts = Map.copyOf(subtree);
+    }
+
+    public static CategoryTree empty() {
+        return new CategoryTree(List.of(), Map.of());
+    }
+
+    /**
+     * All categories, in load order
+     */
+    public List<Category> getCategories() {
+        return categories;
+    }
+
+    /**
+     * Fresh copies of all categories, in load order, carrying their parent and the count of
+     * products directly in them rather than in their subtree; the caller may modify them
+     */
+    public List<Category> getCategoriesWithDirectCounts() {
+        List<Category> result = new ArrayList<>(categories.size());
+        for (Category category : categories) {
+            Category copy = copyOf(category);
+            copy.setParentCategory(category.getParentCategory());
+            copy.setProductCount(getDirectProductCount(category.getCategoryId()));
+            result.add(copy);
+        }
+        return result;
+    }
+
+    public List<Category> getRoots() {
+        return roots;
+    }
+
+    public List<Category> getChildren(Long categoryId) {
+        return children.getOrDefault(categoryId, List.of());
+    }
+
+    public Optional<Category> find(Long categoryId) {
+        return Optional.ofNullable(categoryId != null ? byId.get(categoryId) : null);
+    }
+
+    public Optional<Category> getParent(Long categoryId) {
+        return find(categoryId).map(Category::getParentCategory);
+    }
+
+    /**
+     * The category and every category below it; empty if unknown
+     */
+    public Set<Long> getDescendantIds(Long categoryId) {
+        return descendants.getOrDefault(categoryId, Set.of());
+    }
+
+    /**
+     * The given categories plus all their descendants, without duplicates
+     * Unknown ids are kept as they are so they still match nothing.
+     */
+    public List<Long> withDescendants(Collection<Long> categoryIds) {
+        if (categoryIds == null || categoryIds.isEmpty()) {
+            return categoryIds != null ? List.copyOf(categoryIds) : null;
+        }
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Long categoryId : categoryIds) {
+            Set<Long> subtree = descendants.get(categoryId);
+            if (subtree != null) {
+                ids.addAll(subtree);
+            } else if (categoryId != null) {
+                ids.add(categoryId);
+            }
+        }
+        return List.copyOf(ids);
+    }
+
+    public int getDirectProductCount(Long categoryId) {
+        return directCounts.getOrDefault(categoryId, 0);
+    }
+
+    public int getSubtreeProductCount(Long categoryId) {
+        return subtreeCounts.getOrDefault(categoryId, 0);
+    }
+
+    /**
+     * Per-category counts summed over each category's subtree
+     * For counts where every item belongs to exactly one category, like listing facets.
+     */
+    public Map<Long, Integer> rollUp(Map<Long, Integer> counts) {
+        Map<Long, Integer> rolled = new HashMap<>();
+        for (Map.Entry<Long, Set<Long>> entry : descendants.entrySet()) {
+            int total = 0;
+            for (Long categoryId : entry.getValue()) {
+                total += counts.getOrDefault(categoryId, 0);
+            }
+            rolled.put(entry.getKey(), total);
+        }
+        return rolled;
+    }
+
+    public int size() {
+        return categories.size();
+    }
+
+    // Parent id if it exists and is not part of a loop
+    private static Long effectiveParent(Category category, Map<Long, Category> copies) {
+        Long parentId = category.getParentId();
+        if (parentId == null || !copies.containsKey(parentId)) {
+            return null;
+        }
+        Set<Long> seen = new HashSet<>();
+        seen.add(category.getCategoryId());
+        Long current = parentId;
+        while (current != null && copies.containsKey(current)) {
+            if (!seen.add(current)) {
+                return null;
+            }
+            current = copies.get(current).getParentId();
+        }
+        return parentId;
+    }
+
+    private static Category copyOf(Category source) {
+        Category copy = new Category(source.getCategoryId(), source.getCategoryName());
+        copy.setDescription(source.getDescription());
+        copy.setParentId(source.getParentId());
+        copy.setSlug(source.getSlug());
+        copy.setDisplayOrder(source.getDisplayOrder());
+        copy.setIsActive(source.getIsActive());
+        copy.setIcon(source.getIcon());
+        copy.setCreatedAt(source.getCreatedAt());
+        return copy;
+    }
+}
@@ -0,0 +1,183 @@
+package com.clothes.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Model class representing the persisted progress of a partitioned batch job
+ * Lets recommendation jobs resume from the last completed partition
+ */
+public class JobCheckpoint {
+    private String jobName;
+    private String runId;
+    private Status status;
+    private Integer totalPartitions;
+    private Integer completedPartitions;
+    private Long totalItems;
+    private Long processedItems;
+    // Fingerprint of the item list the partitions were cut from, if the job has one
+    private String inputHash;
+    private String lastError;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+
+    // Enum for job status
+    public enum Status {
+        RUNNING("running"),
+        COMPLETED("completed"),
+        FAILED("failed");
+
+        private final String value;
+
+        Status(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public static Status fromValue(String value) {
+            for (Status status : Status.values()) {
+                if (status.value.equalsIgnoreCase(value)) {
+                    return status;
+                }
+            }
+            return FAILED;
+        }
+    }
+
+    // Constructors
+    public JobCheckpoint() {
+        this.status = Status.RUNNING;
+        this.totalPartitions = 0;
+        this.completedPartitions = 0;
+        this.totalItems = 0L;
+        this.processedItems = 0L;
+    }
+
+    public JobCheckpoint(String jobName, String runId, int totalPartitions, long totalItems) {
+        this();
+        this.jobName = jobName;
+        this.runId = runId;
+        this.totalPartitions = totalPartitions;
+        this.totalItems = totalItems;
+        this.startedAt = LocalDateTime.now();
+        this.updatedAt = this.startedAt;
+    }
+
+    /**
+     * A job can be resumed if it was interrupted (process died) or failed part way
+     */
+    public boolean isResumable() {
+        return status != Status.COMPLETED && completedPartitions < totalPartitions;
+    }
+
+    // Getters and Setters
+    public String getJobName() {
+        return jobName;
+    }
+
+    public void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public void setRunId(String runId) {
+        this.runId = runId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Integer getTotalPartitions() {
+        return totalPartitions;
+    }
+
+    public void setTotalPartitions(Integer totalPartitions) {
+        this.totalPartitions = totalPartitions;
+    }
+
+    public Integer getCompletedPartitions() {
+        return completedPartitions;
+    }
+
+    public void setCompletedPartitions(Integer completedPartitions) {
+        this.completedPartitions = completedPartitions;
+    }
+
+    public Long getTotalItems() {
+        return totalItems;
+    }
+
+    public void setTotalItems(Long totalItems) {
+        this.totalItems = totalItems;
+    }
+
+    public Long getProcessedItems() {
+        return processedItems;
+    }
+
+    public void setProcessedItems(Long processedItems) {
+        this.processedItems = processedItems;
+    }
+
+    public String getInputHash() {
+        return inputHash;
+    }
+
+    public void setInputHash(String inputHash) {
+        this.inputHash = inputHash;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "JobCheckpoint{" +
+                "jobName='" + jobName + '\'' +
+                ", runId='" + runId + '\'' +
+                ", status=" + status +
+                ", completedPartitions=" + completedPartitions +
+                ", totalPartitions=" + totalPartitions +
+                '}';
+    }
+}
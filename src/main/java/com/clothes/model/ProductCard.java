@@ -0,0 +1,79 @@
+package com.clothes.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Narrow read-only view of a product, with just what listing cards render
+ * Used by listings, the home page and recommendation widgets instead of full products.
+ */
+public class ProductCard {
+    private final Long productId;
+    private final String productName;
+    private final BigDecimal price;
+    private final BigDecimal discountPrice;
+    private final String imageUrl;
+    private final Double averageRating;
+    private final Integer reviewCount;
+
+    // Cursor key in the order the card was loaded in; null outside keyset pages
+    private final String sortKey;
+
+    public ProductCard(Long productId, String productName, BigDecimal price, BigDecimal discountPrice,
+            String imageUrl, Double averageRating, Integer reviewCount, String sortKey) {
+        this.productId = productId;
+        this.productName = productName;
+        this.price = price;
+        this.discountPrice = discountPrice;
+        this.imageUrl = imageUrl;
+        this.averageRating = averageRating;
+        this.reviewCount = reviewCount;
+        this.sortKey = sortKey;
+    }
+
+    public static ProductCard of(Product product) {
+        return new ProductCard(product.getProductId(), product.getProductName(), product.getPrice(),
+                product.getDiscountPrice(), product.getImageUrl(), product.getAverageRating(),
+                product.getReviewCount(), null);
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public BigDecimal getDiscountPrice() {
+        return discountPrice;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public Double getAverageRating() {
+        return averageRating;
+    }
+
+    public Integer getReviewCount() {
+        return reviewCount;
+    }
+
+    public String getSortKey() {
+        return sortKey;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductCard{" +
+                "productId=" + productId +
+                ", productName='" + productName + '\'' +
+                ", price=" + price +
+                '}';
+    }
+}
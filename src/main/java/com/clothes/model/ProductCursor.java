@@ -0,0 +1,86 @@
+package com.clothes.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset pagination cursor of the product listing
+ * Holds the sort key and id of the last product of a page; the next page starts strictly
+ * after it. Encoded as URL-safe base64 for the "cursor" query parameter.
+ */
+public class ProductCursor {
+
+    private static final String SEPARATOR = "\n";
+
+    private final ProductSort sort;
+    private final String key;
+    private final Long productId;
+
+    public ProductCursor(ProductSort sort, String key, Long productId) {
+        this.sort = sort;
+        this.key = key;
+        this.productId = productId;
+    }
+
+    /**
+     * Cursor positioned after the given product
+     */
+    public static ProductCursor after(Product product, ProductSort sort) {
+        return new ProductCursor(sort, sort.cursorKey(product), product.getProductId());
+    }
+
+    /**
+     * Cursor after a card loaded by a keyset page query in the same order
+     */
+    public static ProductCursor after(ProductCard card, ProductSort sort) {
+        return new ProductCursor(sort, card.getSortKey(), card.getProductId());
+    }
+
+    public String encode() {
+        String raw = sort.getValue() + SEPARATOR + productId + SEPARATOR + (key != null ? key : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor for the given sort, or null if it is missing, malformed or
+     * was issued for a different sort order
+     */
+    public static ProductCursor decode(String encoded, ProductSort expectedSort) {
+        if (encoded == null || encoded.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, 3);
+            if (parts.length != 3 || !expectedSort.getValue().equals(parts[0])) {
+                return null;
+            }
+            String key = parts[2].isEmpty() ? null : parts[2];
+            expectedSort.parseKey(key);
+            return new ProductCursor(expectedSort, key, Long.parseLong(parts[1]));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    public ProductSort getSort() {
+        return sort;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductCursor{" +
+                "sort=" + sort +
+                ", key='" + key + '\'' +
+                ", productId=" + productId +
+                '}';
+    }
+}
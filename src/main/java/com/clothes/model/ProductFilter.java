@@ -0,0 +1,151 @@
+package com.clothes.model;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Listing filter criteria
+ * Values within one facet are OR-ed, facets are AND-ed together.
+ */
+public class ProductFilter {
+
+    // Upper bounds (VND) of the price buckets; the last bucket is open-ended
+    public static final long[] PRICE_BUCKET_LIMITS = { 200_000, 500_000, 1_000_000, 2_000_000 };
+
+    private List<Long> categoryIds = new ArrayList<>();
+    private List<Product.Gender> genders = new ArrayList<>();
+    private List<String> brands = new ArrayList<>();
+    private List<String> colors = new ArrayList<>();
+    private List<String> sizes = new ArrayList<>();
+    private List<Product.Season> seasons = new ArrayList<>();
+    private List<Integer> priceBuckets = new ArrayList<>();
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private ProductSort sort = ProductSort.NEWEST;
+
+    public ProductFilter() {
+    }
+
+    /**
+     * Price bucket of a price, or -1 when there is none
+     */
+    public static int priceBucket(BigDecimal price) {
+        if (price == null) {
+            return -1;
+        }
+        long value = price.longValue();
+        for (int bucket = 0; bucket < PRICE_BUCKET_LIMITS.length; bucket++) {
+            if (value < PRICE_BUCKET_LIMITS[bucket]) {
+                return bucket;
+            }
+        }
+        return PRICE_BUCKET_LIMITS.length;
+    }
+
+    /**
+     * Check whether any facet is restricted
+     */
+    public boolean hasCriteria() {
+        return !categoryIds.isEmpty() || !genders.isEmpty() || !brands.isEmpty() || !colors.isEmpty()
+                || !sizes.isEmpty() || !seasons.isEmpty() || !priceBuckets.isEmpty()
+                || minPrice != null || maxPrice != null;
+    }
+
+    // Getters and Setters
+    public List<Long> getCategoryIds() {
+        return categoryIds;
+    }
+
+    public void setCategoryIds(List<Long> categoryIds) {
+        this.categoryIds = categoryIds != null ? categoryIds : new ArrayList<>();
+    }
+
+    public List<Product.Gender> getGenders() {
+        return genders;
+    }
+
+    public void setGenders(List<Product.Gender> genders) {
+        this.genders = genders != null ? genders : new ArrayList<>();
+    }
+
+    public List<String> getBrands() {
+        return brands;
+    }
+
+    public void setBrands(List<String> brands) {
+        this.brands = brands != null ? brands : new ArrayList<>();
+    }
+
+    public List<String> getColors() {
+        return colors;
+    }
+
+    public void setColors(List<String> colors) {
+        this.colors = colors != null ? colors : new ArrayList<>();
+    }
+
+    public List<String> getSizes() {
+        return sizes;
+    }
+
+    public void setSizes(List<String> sizes) {
+        this.sizes = sizes != null ? sizes : new ArrayList<>();
+    }
+
+    public List<Product.Season> getSeasons() {
+        return seasons;
+    }
+
+    public void setSeasons(List<Product.Season> seasons) {
+        this.seasons = seasons != null ? seasons : new ArrayList<>();
+    }
+
+    public List<Integer> getPriceBuckets() {
+        return priceBuckets;
+    }
+
+    public void setPriceBuckets(List<Integer> priceBuckets) {
+        this.priceBuckets = priceBuckets != null ? priceBuckets : new ArrayList<>();
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(BigDecimal minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(BigDecimal maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public ProductSort getSort() {
+        return sort;
+    }
+
+    public void setSort(ProductSort sort) {
+        this.sort = sort != null ? sort : ProductSort.NEWEST;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductFilter{" +
+                "categoryIds=" + categoryIds +
+                ", genders=" + genders +
+                ", brands=" + brands +
+                ", colors=" + colors +
+                ", sizes=" + sizes +
+                ", seasons=" + seasons +
+                ", priceBuckets=" + priceBuckets +
+                ", minPrice=" + minPrice +
+                ", maxPrice=" + maxPrice +
+                ", sort=" + sort +
+                '}';
+    }
+}
@@ -0,0 +1,117 @@
+package com.clothes.model;
+
+import com.clothes.util.TextNormalizer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Sort orders of the product listing
+ * Every order breaks ties by product_id in the same direction, so (sort key, product_id) is
+ * unique, can be used as a keyset pagination cursor and is read straight off the
+ * (is_active, key, product_id) indexes.
+ */
+public enum ProductSort {
+    NEWEST("newest", "created_at", true),
+    PRICE_ASC("price_asc", "price", false),
+    PRICE_DESC("price_desc", "price", true),
+    NAME_ASC("name_asc", "product_name", false),
+    NAME_DESC("name_desc", "product_name", true),
+    // Stored generated column: purchase_count * 10 + view_count, indexed for keyset paging
+    POPULAR("popular", "popularity_score", true),
+    // Search rank order, only meaningful with a keyword
+    RELEVANCE("relevance", null, false);
+
+    private final String value;
+    private final String column;
+    private final boolean descending;
+
+    ProductSort(String value, String column, boolean descending) {
+        this.value = value;
+        this.column = column;
+        this.descending = descending;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * SQL expression of the sort key
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public static ProductSort fromValue(String value) {
+        if (value == null)
+            return NEWEST;
+        for (ProductSort sort : ProductSort.values()) {
+            if (sort.value.equalsIgnoreCase(value)) {
+                return sort;
+            }
+        }
+        return NEWEST;
+    }
+
+    /**
+     * Sort key of a product, as stored in a cursor
+     */
+    public String cursorKey(Product product) {
+        switch (this) {
+            case NEWEST:
+                return product.getCreatedAt() != null ? product.getCreatedAt().toString() : null;
+            case PRICE_ASC:
+            case PRICE_DESC:
+                return product.getPrice() != null ? product.getPrice().toPlainString() : null;
+            case NAME_ASC:
+            case NAME_DESC:
+                return product.getProductName();
+            case POPULAR:
+                long purchases = product.getPurchaseCount() != null ? product.getPurchaseCount() : 0;
+                long views = product.getViewCount() != null ? product.getViewCount() : 0;
+                return String.valueOf(purchases * 10 + views);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Comparable form of a cursor key, null when absent
+     * Names compare folded, matching the accent-insensitive collation of product_name.
+     */
+    public Comparable<?> parseKey(String key) {
+        if (key == null) {
+            return null;
+        }
+        switch (this) {
+            case NEWEST:
+                return LocalDateTime.parse(key);
+            case PRICE_ASC:
+            case PRICE_DESC:
+                return new BigDecimal(key);
+            case NAME_ASC:
+            case NAME_DESC:
+                return TextNormalizer.fold(key);
+            case POPULAR:
+                return Long.parseLong(key);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * SQL value bound for a cursor key
+     */
+    public Object sqlValue(String key) {
+        if (key == null || this == NAME_ASC || this == NAME_DESC) {
+            return key;
+        }
+        Comparable<?> parsed = parseKey(key);
+        return parsed instanceof LocalDateTime ? java.sql.Timestamp.valueOf((LocalDateTime) parsed) : parsed;
+    }
+}
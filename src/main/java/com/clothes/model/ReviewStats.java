@@ -0,0 +1,69 @@
+package com.clothes.model;
+
+/**
+ * Materialized review aggregate of one product: rating count, rating sum and star histogram
+ */
+public class ReviewStats {
+    private final Long productId;
+    private final int ratingCount;
+    private final int ratingSum;
+    // histogram[0] = number of 1-star reviews ... histogram[4] = number of 5-star reviews
+    private final int[] histogram;
+
+    public ReviewStats(Long productId, int ratingCount, int ratingSum, int[] histogram) {
+        this.productId = productId;
+        this.ratingCount = ratingCount;
+        this.ratingSum = ratingSum;
+        this.histogram = histogram.clone();
+    }
+
+    public static ReviewStats empty(Long productId) {
+        return new ReviewStats(productId, 0, 0, new int[5]);
+    }
+
+    /**
+     * Average rating rounded to one decimal, 0 when there are no reviews
+     */
+    public static double averageOf(int ratingSum, int ratingCount) {
+        return ratingCount == 0 ? 0.0 : Math.round(ratingSum * 10.0 / ratingCount) / 10.0;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public int getRatingCount() {
+        return ratingCount;
+    }
+
+    public int getRatingSum() {
+        return ratingSum;
+    }
+
+    public double getAverageRating() {
+        return averageOf(ratingSum, ratingCount);
+    }
+
+    /**
+     * Number of reviews with the given star rating (1-5)
+     */
+    public int getCount(int stars) {
+        return stars >= 1 && stars <= 5 ? histogram[stars - 1] : 0;
+    }
+
+    /**
+     * Share of reviews with the given star rating, in percent
+     */
+    public int getPercentage(int stars) {
+        return ratingCount == 0 ? 0 : Math.round(getCount(stars) * 100f / ratingCount);
+    }
+
+    @Override
+    public String toString() {
+        return "ReviewStats{" +
+                "productId=" + productId +
+                ", ratingCount=" + ratingCount +
+                ", ratingSum=" + ratingSum +
+                '}';
+    }
+}
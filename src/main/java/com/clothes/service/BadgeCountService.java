@@ -0,0 +1,103 @@
+package com.clothes.service;
+
+import com.clothes.dao.WishlistDAO;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Objects;
+
+/**
+ * Header badge counts cached in the session
+ * Kept as the cartItemCount and wishlistCount session attributes the layout renders. Cart and
+ * wishlist writes update them, so refreshing the badges costs no queries. Counts are dropped
+ * when the logged-in user changes, and reloaded whenever the cart or wishlist page loads,
+ * which picks up changes made from another device.
+ */
+@Service
+public class BadgeCountService {
+
+    public static final String CART_COUNT_ATTRIBUTE = "cartItemCount";
+    public static final String WISHLIST_COUNT_ATTRIBUTE = "wishlistCount";
+
+    // Who the cached counts belong to: "user:<id>" or "guest"
+    private static final String OWNER_ATTRIBUTE = BadgeCountService.class.getName() + ".OWNER";
+
+    private final WishlistDAO wishlistDAO;
+
+    public BadgeCountService(WishlistDAO wishlistDAO) {
+        this.wishlistDAO = wishlistDAO;
+    }
+
+    /**
+     * Cached cart item count, or null if not known yet
+     */
+    public Integer getCartCount() {
+        HttpSession session = ownedSession(false);
+        return session != null ? (Integer) session.getAttribute(CART_COUNT_ATTRIBUTE) : null;
+    }
+
+    public void setCartCount(int count) {
+        ownedSession(true).setAttribute(CART_COUNT_ATTRIBUTE, count);
+    }
+
+    /**
+     * Next read recounts the cart
+     */
+    public void forgetCartCount() {
+        HttpSession session = ownedSession(false);
+        if (session != null) {
+            session.removeAttribute(CART_COUNT_ATTRIBUTE);
+        }
+    }
+
+    /**
+     * Wishlist count of the logged-in user, counted once per session; 0 for guests
+     */
+    public int getWishlistCount() {
+        HttpSession session = ownedSession(false);
+        Long userId = session != null ? (Long) session.getAttribute("userId") : null;
+        if (userId == null) {
+            return 0;
+        }
+        Integer cached = (Integer) session.getAttribute(WISHLIST_COUNT_ATTRIBUTE);
+        if (cached == null) {
+            cached = wishlistDAO.countByUserId(userId);
+            session.setAttribute(WISHLIST_COUNT_ATTRIBUTE, cached);
+        }
+        return cached;
+    }
+
+    public void setWishlistCount(int count) {
+        ownedSession(true).setAttribute(WISHLIST_COUNT_ATTRIBUTE, count);
+    }
+
+    /**
+     * Applies an add (+1) or remove (-1); a count not cached yet is left to be loaded on read
+     */
+    public void adjustWishlistCount(int delta) {
+        HttpSession session = ownedSession(false);
+        Integer cached = session != null ? (Integer) session.getAttribute(WISHLIST_COUNT_ATTRIBUTE) : null;
+        if (cached != null) {
+            session.setAttribute(WISHLIST_COUNT_ATTRIBUTE, Math.max(0, cached + delta));
+        }
+    }
+
+    // Current session with counts that belong to its user; counts of a previous login are dropped
+    private HttpSession ownedSession(boolean create) {
+        ServletRequestAttributes attr = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+        HttpSession session = attr.getRequest().getSession(create);
+        if (session == null) {
+            return null;
+        }
+        Long userId = (Long) session.getAttribute("userId");
+        String owner = userId != null ? "user:" + userId : "guest";
+        if (!Objects.equals(owner, session.getAttribute(OWNER_ATTRIBUTE))) {
+            session.removeAttribute(CART_COUNT_ATTRIBUTE);
+            session.removeAttribute(WISHLIST_COUNT_ATTRIBUTE);
+            session.setAttribute(OWNER_ATTRIBUTE, owner);
+        }
+        return session;
+    }
+}
@@ -0,0 +1,272 @@
+package com.clothes.service;
+
+import com.clothes.dao.JobCheckpointDAO;
+import com.clothes.model.JobCheckpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs partitioned batch jobs with a persistent checkpoint after every partition
+ * A job that dies part way (crash, redeploy, error) resumes from its last completed partition
+ */
+@Service
+public class BatchJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchJobService.class);
+
+    // Checkpoints older than this are restarted from scratch instead of resumed
+    private static final Duration RESUME_WINDOW = Duration.ofHours(12);
+
+    private final JobCheckpointDAO jobCheckpointDAO;
+
+    // Live progress of jobs running in this process
+    private final Map<String, JobProgress> activeJobs = new ConcurrentHashMap<>();
+
+    public BatchJobService(JobCheckpointDAO jobCheckpointDAO) {
+        this.jobCheckpointDAO = jobCheckpointDAO;
+    }
+
+    /**
+     * Run a job, resuming its checkpoint if one is unfinished and still compatible
+     */
+    public JobProgress run(PartitionedJob job) {
+        String name = job.getName();
+        JobProgress progress = new JobProgress(name);
+        if (activeJobs.putIfAbsent(name, progress) != null) {
+            throw new IllegalStateException("Job " + name + " is already running");
+        }
+
+        String runId = null;
+        try {
+            int partitions = job.getPartitionCount();
+            long items = job.getItemCount();
+
+            int firstPartition = 0;
+            long processedItems = 0;
+
+            Optional<JobCheckpoint> existing = jobCheckpointDAO.findByJobName(name);
+            if (existing.isPresent() && canResume(existing.get(), job)) {
+                JobCheckpoint checkpoint = existing.get();
+                runId = checkpoint.getRunId();
+                firstPartition = checkpoint.getCompletedPartitions();
+                processedItems = checkpoint.getProcessedItems();
+                jobCheckpointDAO.resume(name, runId);
+                logger.info("Resuming job {} (run {}) at partition {}/{}", name, runId, firstPartition, partitions);
+            } else {
+                runId = UUID.randomUUID().toString();
+                JobCheckpoint checkpoint = new JobCheckpoint(name, runId, partitions, items);
+                checkpoint.setInputHash(job.getInputHash());
+                jobCheckpointDAO.start(checkpoint);
+                logger.info("Starting job {} (run {}) with {} partitions, {} items", name, runId, partitions, items);
+            }
+
+            progress.begin(runId, partitions, items, firstPartition, processedItems);
+            job.beforeRun(firstPartition);
+
+            for (int partition = firstPartition; partition < partitions; partition++) {
+                int processed = job.processPartition(partition);
+                processedItems += processed;
+                jobCheckpointDAO.saveProgress(name, runId, partition + 1, processedItems);
+                progress.partitionCompleted(partition + 1, processed);
+                logger.debug("Job {} completed partition {}/{}", name, partition + 1, partitions);
+            }
+
+            job.afterRun();
+            jobCheckpointDAO.complete(name, runId);
+            progress.complete();
+            logger.info("Job {} (run {}) completed: {} items", name, runId, processedItems);
+            return progress;
+
+        } catch (RuntimeException e) {
+            progress.fail(e.getMessage());
+            if (runId != null) {
+                try {
+                    jobCheckpointDAO.fail(name, runId, e.getMessage());
+                } catch (Exception checkpointError) {
+                    logger.error("Could not record failure of job {}", name, checkpointError);
+                }
+            }
+            throw e;
+        } finally {
+            activeJobs.remove(name);
+        }
+    }
+
+    /**
+     * Check whether a job is currently running in this process
+     */
+    public boolean isRunning(String jobName) {
+        return activeJobs.containsKey(jobName);
+    }
+
+    /**
+     * Get the checkpoint of a job that was left unfinished by a previous process
+     */
+    public Optional<JobCheckpoint> findInterrupted(String jobName) {
+        if (isRunning(jobName)) {
+            return Optional.empty();
+        }
+        return jobCheckpointDAO.findByJobName(jobName)
+                .filter(c -> c.getStatus() == JobCheckpoint.Status.RUNNING && c.isResumable())
+                .filter(this::isWithinResumeWindow);
+    }
+
+    /**
+     * Status of all known jobs: live progress for running ones, last checkpoint otherwise
+     */
+    public List<Map<String, Object>> getJobStatuses() {
+        Map<String, Map<String, Object>> statuses = new TreeMap<>();
+
+        for (JobCheckpoint checkpoint : jobCheckpointDAO.findAll()) {
+            statuses.put(checkpoint.getJobName(), toStatus(checkpoint));
+        }
+        for (JobProgress progress : activeJobs.values()) {
+            statuses.put(progress.getJobName(), progress.toMap());
+        }
+
+        return new ArrayList<>(statuses.values());
+    }
+
+    // Same partitions over the same items; a changed item list would shift partition boundaries
+    private boolean canResume(JobCheckpoint checkpoint, PartitionedJob job) {
+        if (!checkpoint.isResumable() || checkpoint.getTotalPartitions() != job.getPartitionCount()
+                || !isWithinResumeWindow(checkpoint)) {
+            return false;
+        }
+        String inputHash = job.getInputHash();
+        return inputHash == null
+                || (inputHash.equals(checkpoint.getInputHash()) && checkpoint.getTotalItems() == job.getItemCount());
+    }
+
+    private boolean isWithinResumeWindow(JobCheckpoint checkpoint) {
+        return checkpoint.getUpdatedAt() != null
+                && checkpoint.getUpdatedAt().isAfter(LocalDateTime.now().minus(RESUME_WINDOW));
+    }
+
+    private Map<String, Object> toStatus(JobCheckpoint checkpoint) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("job", checkpoint.getJobName());
+        status.put("runId", checkpoint.getRunId());
+        // A RUNNING checkpoint that is not active here was interrupted by a previous process
+        status.put("status", checkpoint.getStatus() == JobCheckpoint.Status.RUNNING
+                ? "interrupted" : checkpoint.getStatus().getValue());
+        status.put("completedPartitions", checkpoint.getCompletedPartitions());
+        status.put("totalPartitions", checkpoint.getTotalPartitions());
+        status.put("processedItems", checkpoint.getProcessedItems());
+        status.put("totalItems", checkpoint.getTotalItems());
+        status.put("percent", percent(checkpoint.getCompletedPartitions(), checkpoint.getTotalPartitions()));
+        status.put("startedAt", checkpoint.getStartedAt());
+        status.put("updatedAt", checkpoint.getUpdatedAt());
+        status.put("finishedAt", checkpoint.getFinishedAt());
+        status.put("lastError", checkpoint.getLastError());
+        return status;
+    }
+
+    private static double percent(long done, long total) {
+        return total > 0 ? Math.round(done * 1000.0 / total) / 10.0 : 100.0;
+    }
+
+    /**
+     * Live progress of a running job: partitions, items, rate and ETA
+     */
+    public static class JobProgress {
+        private final String jobName;
+        private volatile String runId;
+        private volatile String status = "starting";
+        private volatile int totalPartitions;
+        private volatile int completedPartitions;
+        private volatile int resumedFromPartition;
+        private volatile long totalItems;
+        private volatile long processedItems;
+        private volatile long processedThisRun;
+        private volatile long startNanos;
+        private volatile LocalDateTime startedAt;
+        private volatile String lastError;
+
+        JobProgress(String jobName) {
+            this.jobName = jobName;
+        }
+
+        void begin(String runId, int totalPartitions, long totalItems, int firstPartition, long processedItems) {
+            this.runId = runId;
+            this.totalPartitions = totalPartitions;
+            this.totalItems = totalItems;
+            this.completedPartitions = firstPartition;
+            this.resumedFromPartition = firstPartition;
+            this.processedItems = processedItems;
+            this.startNanos = System.nanoTime();
+            this.startedAt = LocalDateTime.now();
+            this.status = "running";
+        }
+
+        void partitionCompleted(int completedPartitions, int items) {
+            this.completedPartitions = completedPartitions;
+            this.processedItems += items;
+            this.processedThisRun += items;
+        }
+
+        void complete() {
+            this.status = "completed";
+        }
+
+        void fail(String error) {
+            this.status = "failed";
+            this.lastError = error;
+        }
+
+        public String getJobName() {
+            return jobName;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public long getProcessedItems() {
+            return processedItems;
+        }
+
+        /**
+         * Items per second since this process started (or resumed) the run
+         */
+        public double getItemsPerSecond() {
+            double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+            return seconds > 0 ? processedThisRun / seconds : 0.0;
+        }
+
+        /**
+         * Estimated seconds remaining, or null while the rate is unknown
+         */
+        public Long getEtaSeconds() {
+            double rate = getItemsPerSecond();
+            if (rate <= 0) {
+                return null;
+            }
+            return Math.round(Math.max(0, totalItems - processedItems) / rate);
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("job", jobName);
+            map.put("runId", runId);
+            map.put("status", status);
+            map.put("completedPartitions", completedPartitions);
+            map.put("totalPartitions", totalPartitions);
+            map.put("resumedFromPartition", resumedFromPartition);
+            map.put("processedItems", processedItems);
+            map.put("totalItems", totalItems);
+            map.put("percent", percent(completedPartitions, totalPartitions));
+            map.put("itemsPerSecond", Math.round(getItemsPerSecond() * 10) / 10.0);
+            map.put("etaSeconds", getEtaSeconds());
+            map.put("startedAt", startedAt);
+            map.put("lastError", lastError);
+            return map;
+        }
+    }
+}
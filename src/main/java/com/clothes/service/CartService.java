@@ -5,7 +5,10 @@ import com.clothes.model.Cart;
 import com.clothes.model.CartItem;
 import com.clothes.model.Product;
 import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
@@ -15,15 +18,24 @@ import java.util.UUID;
 
 /**
  * Service for Shopping Cart management
- * Database-backed persistent cart
+ * Database-backed persistent cart. The cart is loaded at most once per request and kept as a
+ * request attribute; writes go to the database and are applied to that snapshot in place, so
+ * later reads in the same request need no further queries. Each write also refreshes the
+ * cached badge count.
  */
 @Service
 public class CartService {
 
+    private static final Logger logger = LoggerFactory.getLogger(CartService.class);
+
+    private static final String SNAPSHOT_ATTRIBUTE = CartService.class.getName() + ".CART";
+
     private final CartDAO cartDAO;
+    private final BadgeCountService badgeCountService;
 
-    public CartService(CartDAO cartDAO) {
+    public CartService(CartDAO cartDAO, BadgeCountService badgeCountService) {
         this.cartDAO = cartDAO;
+        this.badgeCountService = badgeCountService;
     }
 
     private HttpSession getSession() {
@@ -33,13 +45,51 @@ public class CartService {
 
     /**
      * Get current cart (or create if not exists)
+     * Loaded once per request; the same instance is returned for the rest of the request.
      */
     public Cart getCart() {
+        RequestAttributes attributes = RequestContextHolder.currentRequestAttributes();
+        Cart snapshot = (Cart) attributes.getAttribute(SNAPSHOT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (snapshot == null) {
+            snapshot = loadCart();
+            attributes.setAttribute(SNAPSHOT_ATTRIBUTE, snapshot, RequestAttributes.SCOPE_REQUEST);
+            badgeCountService.setCartCount(snapshot.getTotalItems());
+        }
+        return snapshot;
+    }
+
+    // The request's cart if it was already loaded, without touching the database
+    private Optional<Cart> loadedCart() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable((Cart) attributes.getAttribute(SNAPSHOT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST));
+    }
+
+    private void invalidateCart() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.removeAttribute(SNAPSHOT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    // Badge count from the request's cart, or recounted on next read when it was not loaded
+    private void syncCount() {
+        Optional<Cart> cart = loadedCart();
+        if (cart.isPresent()) {
+            badgeCountService.setCartCount(cart.get().getTotalItems());
+        } else {
+            badgeCountService.forgetCartCount();
+        }
+    }
+
+    private Cart loadCart() {
         HttpSession session = getSession();
         Long userId = (Long) session.getAttribute("userId");
         String sessionToken = (String) session.getAttribute("cartToken");
 
-        System.out.println("DEBUG: getCart called. UserId: " + userId + ", SessionToken: " + sessionToken);
+        logger.debug("Loading cart for user {} / session token {}", userId, sessionToken);
 
         // If no token and not logged in, generate token
         if (userId == null && sessionToken == null) {
@@ -83,7 +133,24 @@ public class CartService {
         item.setSize(size);
         item.setColor(color);
 
-        cartDAO.addItem(cart.getCartId(), item);
+        Long cartItemId = cartDAO.addItem(cart.getCartId(), item);
+
+        CartItem existing = cart.findItemById(cartItemId);
+        if (existing != null) {
+            cart.updateItemQuantity(cartItemId, existing.getQuantity() + quantity);
+        } else if (cartItemId != null) {
+            Product product = new Product();
+            product.setProductId(productId);
+            product.setProductName(productName);
+            product.setPrice(price);
+            product.setImageUrl(imageUrl);
+            item.setCartItemId(cartItemId);
+            item.setProduct(product);
+            cart.appendItem(item);
+        } else {
+            invalidateCart();
+        }
+        syncCount();
     }
 
     /**
@@ -92,6 +159,8 @@ public class CartService {
     public void removeItem(Long productId) {
         Cart cart = getCart();
         cartDAO.removeItemByProduct(cart.getCartId(), productId);
+        cart.removeItem(productId);
+        syncCount();
     }
 
     /**
@@ -99,6 +168,8 @@ public class CartService {
      */
     public void removeCartItem(Long cartItemId) {
         cartDAO.removeItem(cartItemId);
+        loadedCart().ifPresent(cart -> cart.removeItemById(cartItemId));
+        syncCount();
     }
 
     /**
@@ -117,6 +188,8 @@ public class CartService {
 
         if (itemOpt.isPresent()) {
             cartDAO.updateItemQuantity(itemOpt.get().getCartItemId(), quantity);
+            cart.updateItemQuantity(itemOpt.get().getCartItemId(), quantity);
+            syncCount();
         }
     }
 
@@ -129,6 +202,8 @@ public class CartService {
             return;
         }
         cartDAO.updateItemQuantity(cartItemId, quantity);
+        loadedCart().ifPresent(cart -> cart.updateItemQuantity(cartItemId, quantity));
+        syncCount();
     }
 
     /**
@@ -146,6 +221,8 @@ public class CartService {
     public void clearCart() {
         Cart cart = getCart();
         cartDAO.clearCart(cart.getCartId());
+        cart.clear();
+        syncCount();
     }
 
     /**
@@ -155,6 +232,23 @@ public class CartService {
         return getCart().getTotalItems();
     }
 
+    /**
+     * Item count for the header badge, from the session cache when known
+     * A visitor without a cart gets 0 without a cart being created for them.
+     */
+    public int getBadgeCount() {
+        Integer cached = badgeCountService.getCartCount();
+        if (cached != null) {
+            return cached;
+        }
+        ServletRequestAttributes attr = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+        HttpSession session = attr.getRequest().getSession(false);
+        if (session == null || (session.getAttribute("userId") == null && session.getAttribute("cartToken") == null)) {
+            return 0;
+        }
+        return getTotalItems();
+    }
+
     /**
      * Get total amount
      */
@@ -195,5 +289,8 @@ public class CartService {
             }
         }
         session.removeAttribute("cartToken");
+        // The cart now belongs to the user; reload it on next use
+        invalidateCart();
+        badgeCountService.forgetCartCount();
     }
 }
@@ -1,8 +1,10 @@
 package com.clothes.service;
 
-import com.clothes.dao.ProductDAO;
 import com.clothes.dao.CategoryDAO;
+import com.clothes.event.CategoryChangedEvent;
 import com.clothes.model.Category;
+import com.clothes.model.CategoryTree;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -10,14 +12,20 @@ import java.util.Optional;
 
 /**
  * Service for Category management
+ * Reads are served from the cached category tree; every write publishes a CategoryChangedEvent.
  */
 @Service
 public class CategoryService {
 
     private final CategoryDAO categoryDAO;
+    private final CategoryTreeCache categoryTreeCache;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CategoryService(CategoryDAO categoryDAO) {
+    public CategoryService(CategoryDAO categoryDAO, CategoryTreeCache categoryTreeCache,
+            ApplicationEventPublisher eventPublisher) {
         this.categoryDAO = categoryDAO;
+        this.categoryTreeCache = categoryTreeCache;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -29,7 +37,9 @@ public class CategoryService {
         category.setDescription(description);
         category.setParentId(parentId);
 
-        return categoryDAO.save(category);
+        Long categoryId = categoryDAO.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(categoryId));
+        return categoryId;
     }
 
     /**
@@ -46,6 +56,7 @@ public class CategoryService {
         if (displayOrder != null && displayOrder > 0) {
             categoryDAO.updateDisplayOrder(categoryId, displayOrder);
         }
+        eventPublisher.publishEvent(new CategoryChangedEvent(categoryId));
 
         return categoryId;
     }
@@ -64,7 +75,9 @@ public class CategoryService {
         category.setDescription(description);
         category.setParentId(parentId);
 
-        return categoryDAO.update(category) > 0;
+        boolean updated = categoryDAO.update(category) > 0;
+        eventPublisher.publishEvent(new CategoryChangedEvent(categoryId));
+        return updated;
     }
 
     /**
@@ -87,6 +100,7 @@ public class CategoryService {
         if (updated && displayOrder != null && displayOrder > 0) {
             categoryDAO.updateDisplayOrder(categoryId, displayOrder);
         }
+        eventPublisher.publishEvent(new CategoryChangedEvent(categoryId));
 
         return updated;
     }
@@ -98,25 +112,39 @@ public class CategoryService {
         return categoryDAO.findById(categoryId);
     }
 
+    /**
+     * Current category tree (shared, read-only)
+     */
+    public CategoryTree getCategoryTree() {
+        return categoryTreeCache.getTree();
+    }
+
     /**
      * Get all categories
      */
     public List<Category> getAllCategories() {
-        return categoryDAO.findAll();
+        return categoryTreeCache.getTree().getCategories();
     }
 
     /**
      * Get root categories (no parent)
      */
     public List<Category> getRootCategories() {
-        return categoryDAO.findRootCategories();
+        return categoryTreeCache.getTree().getRoots();
     }
 
     /**
      * Get child categories by parent ID
      */
     public List<Category> getChildCategories(Long parentId) {
-        return categoryDAO.findByParentId(parentId);
+        return categoryTreeCache.getTree().getChildren(parentId);
+    }
+
+    /**
+     * Category ids to filter products by, with every selected category's descendants added
+     */
+    public List<Long> withDescendants(List<Long> categoryIds) {
+        return categoryTreeCache.getTree().withDescendants(categoryIds);
     }
 
     /**
@@ -129,7 +157,9 @@ public class CategoryService {
             throw new IllegalArgumentException("Không thể xóa danh mục có danh mục con");
         }
 
-        return categoryDAO.delete(categoryId) > 0;
+        boolean deleted = categoryDAO.delete(categoryId) > 0;
+        eventPublisher.publishEvent(new CategoryChangedEvent(categoryId));
+        return deleted;
     }
 
     /**
@@ -143,18 +173,21 @@ public class CategoryService {
      * Get product count for a category
      */
     public int getProductCountByCategory(Long categoryId) {
-        return categoryDAO.getProductCount(categoryId);
+        return categoryTreeCache.getTree().getDirectProductCount(categoryId);
     }
 
     /**
      * Update display order
      */
     public boolean updateDisplayOrder(Long categoryId, int displayOrder) {
-        return categoryDAO.updateDisplayOrder(categoryId, displayOrder) > 0;
+        boolean updated = categoryDAO.updateDisplayOrder(categoryId, displayOrder) > 0;
+        eventPublisher.publishEvent(new CategoryChangedEvent(categoryId));
+        return updated;
     }
 
     /**
      * Check if category has products
+     * Read from the database, since it guards deletes.
      */
     public boolean hasProducts(Long categoryId) {
         return categoryDAO.getProductCount(categoryId) > 0;
@@ -170,6 +203,7 @@ public class CategoryService {
         } else {
             categoryDAO.update(category);
         }
+        eventPublisher.publishEvent(new CategoryChangedEvent(category.getCategoryId()));
         return category;
     }
 
@@ -181,20 +215,16 @@ public class CategoryService {
         category.ifPresent(c -> {
             c.setIsActive(!Boolean.TRUE.equals(c.getIsActive()));
             categoryDAO.update(c);
+            eventPublisher.publishEvent(new CategoryChangedEvent(categoryId));
         });
     }
 
     /**
-     * Get categories with product counts
+     * Get categories with their parent and the number of products directly in each
+     * Used by the admin category list, where a category with products cannot be deleted;
+     * the storefront shows subtree counts from the tree instead.
      */
     public List<Category> getCategoriesWithProductCount() {
-        List<Category> categories = categoryDAO.findAll();
-        categories.forEach(c -> {
-            c.setProductCount(categoryDAO.getProductCount(c.getCategoryId()));
-            if (c.getParentId() != null) {
-                categoryDAO.findById(c.getParentId()).ifPresent(c::setParentCategory);
-            }
-        });
-        return categories;
+        return categoryTreeCache.getTree().getCategoriesWithDirectCounts();
     }
 }
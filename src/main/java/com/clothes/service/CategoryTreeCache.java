@@ -0,0 +1,106 @@
+package com.clothes.service;
+
+import com.clothes.dao.CategoryDAO;
+import com.clothes.event.CategoryChangedEvent;
+import com.clothes.event.ProductChangedEvent;
+import com.clothes.model.CategoryTree;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shared, immutable category tree with subtree product counts
+ * Loaded with two queries and swapped in whole. Category and product changes only mark it
+ * stale; the next reader rebuilds it, so a burst of changes costs one reload.
+ */
+@Service
+public class CategoryTreeCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryTreeCache.class);
+
+    private final CategoryDAO categoryDAO;
+
+    private volatile CategoryTree tree;
+    private volatile boolean stale = true;
+    private volatile LocalDateTime builtAt;
+
+    public CategoryTreeCache(CategoryDAO categoryDAO) {
+        this.categoryDAO = categoryDAO;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        getTree();
+    }
+
+    /**
+     * Current tree, reloaded first if something changed since it was built
+     */
+    public CategoryTree getTree() {
+        if (stale) {
+            rebuild();
+        }
+        return tree;
+    }
+
+    /**
+     * Changes after this call are picked up by the next read
+     */
+    public void invalidate() {
+        stale = true;
+    }
+
+    // Ahead of other listeners, so those reading the tree see the change
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        invalidate();
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        invalidate();
+    }
+
+    public Map<String, Object> getStats() {
+        CategoryTree current = tree;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", current != null);
+        stats.put("stale", stale);
+        stats.put("categories", current != null ? current.size() : 0);
+        stats.put("builtAt", builtAt);
+        return stats;
+    }
+
+    private synchronized void rebuild() {
+        if (!stale) {
+            return;
+        }
+        // Cleared before loading, so a change committed during the load marks it stale again
+        stale = false;
+        try {
+            long startTime = System.currentTimeMillis();
+            CategoryTree built = new CategoryTree(categoryDAO.findAll(), categoryDAO.countProductsByCategory());
+            tree = built;
+            builtAt = LocalDateTime.now();
+            logger.debug("Category tree built: {} categories in {} ms", built.size(),
+                    System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            stale = true;
+            if (tree == null) {
+                throw e;
+            }
+            logger.error("Error rebuilding category tree, serving the previous one", e);
+        }
+    }
+}
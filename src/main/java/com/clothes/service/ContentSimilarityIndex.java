@@ -0,0 +1,409 @@
+package com.clothes.service;
+
+import com.clothes.dao.ProductDAO;
+import com.clothes.event.ProductChangedEvent;
+import com.clothes.model.Product;
+import com.clothes.model.ProductCard;
+import com.clothes.model.ProductFilter;
+import com.clothes.util.TextNormalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Precomputed content-based "similar products"
+ * Each active product is a vector of weighted attributes (category, brand, colors, material,
+ * gender, season, price band) plus TF-IDF of its name and description, L2-normalized so the
+ * dot product is the cosine. The top neighbors of every product are computed in parallel
+ * through an inverted index and served from memory. Needs no interactions, so it also covers
+ * new products that collaborative filtering knows nothing about.
+ */
+@Service
+public class ContentSimilarityIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentSimilarityIndex.class);
+
+    private static final int TOP_K = 12;
+
+    // Attribute weights, relative to each other; the text part is scaled to TEXT_WEIGHT
+    private static final float WEIGHT_CATEGORY = 3.0f;
+    private static final float WEIGHT_BRAND = 2.0f;
+    private static final float WEIGHT_COLOR = 1.0f;
+    private static final float WEIGHT_MATERIAL = 1.0f;
+    private static final float WEIGHT_GENDER = 1.5f;
+    private static final float WEIGHT_SEASON = 1.0f;
+    private static final float WEIGHT_PRICE_BAND = 1.5f;
+    private static final float TEXT_WEIGHT = 2.5f;
+    // Name terms count this many times in the term frequency
+    private static final int NAME_REPEAT = 2;
+
+    private final ProductDAO productDAO;
+
+    private volatile Model model;
+    // Guards applying changes against swapping in a rebuilt model
+    private final Object changeLock = new Object();
+    // While a rebuild loads the catalog: changes applied meanwhile (null = removed), replayed
+    // onto the new model so the load does not undo them. Guarded by changeLock.
+    private Map<Long, Product> changedDuringRebuild;
+
+    public ContentSimilarityIndex(ProductDAO productDAO) {
+        this.productDAO = productDAO;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long startTime = System.currentTimeMillis();
+        synchronized (changeLock) {
+            changedDuringRebuild = new HashMap<>();
+        }
+        Model built;
+        try {
+            built = new Model(productDAO.findAllActive());
+        } catch (RuntimeException e) {
+            synchronized (changeLock) {
+                changedDuringRebuild = null;
+            }
+            throw e;
+        }
+        synchronized (changeLock) {
+            changedDuringRebuild.forEach((productId, product) -> apply(built, productId, product));
+            changedDuringRebuild = null;
+            model = built;
+        }
+        logger.info("Content similarity index built: {} products, {} features in {} ms",
+                built.ids.length, built.featureIds.size(), System.currentTimeMillis() - startTime);
+    }
+
+    @Scheduled(fixedDelayString = "${product.similar.refresh-ms:3600000}",
+            initialDelayString = "${product.similar.refresh-ms:3600000}")
+    public void refresh() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Error refreshing content similarity index", e);
+        }
+    }
+
+    /**
+     * Recompute the neighbors of changed products (after commit)
+     * Lists of other products pick up the change on the next rebuild; until then removed
+     * products are filtered out when serving.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getChangeType() == ProductChangedEvent.ChangeType.RELOADED) {
+            rebuild();
+            return;
+        }
+        for (Long productId : event.getProductIds()) {
+            Optional<Product> product = event.getChangeType() == ProductChangedEvent.ChangeType.DELETED
+                    ? Optional.empty()
+                    : productDAO.findById(productId);
+            Product active = product.filter(p -> Boolean.TRUE.equals(p.getIsActive())).orElse(null);
+            synchronized (changeLock) {
+                Model current = model;
+                if (current != null) {
+                    apply(current, productId, active);
+                }
+                if (changedDuringRebuild != null) {
+                    changedDuringRebuild.put(productId, active);
+                }
+            }
+        }
+    }
+
+    // Active product: recompute its neighbors; null: drop it
+    private static void apply(Model target, Long productId, Product active) {
+        if (active != null) {
+            target.update(active);
+        } else {
+            target.remove(productId);
+        }
+    }
+
+    public boolean isReady() {
+        return model != null;
+    }
+
+    /**
+     * Most similar active products, best first; empty if unknown or not built yet
+     */
+    public List<ProductCard> getSimilar(Long productId, int limit) {
+        Model current = model;
+        if (current == null || productId == null) {
+            return List.of();
+        }
+        long[] neighbors = current.neighbors.get(productId);
+        if (neighbors == null) {
+            return List.of();
+        }
+        List<ProductCard> similar = new ArrayList<>(Math.min(limit, neighbors.length));
+        for (int i = 0; i < neighbors.length && similar.size() < limit; i++) {
+            ProductCard card = current.cards.get(neighbors[i]);
+            if (card != null) {
+                similar.add(card);
+            }
+        }
+        return similar;
+    }
+
+    /**
+     * Ids of the most similar active products, best first
+     */
+    public List<Long> getSimilarIds(Long productId, int limit) {
+        return getSimilar(productId, limit).stream().map(ProductCard::getProductId).toList();
+    }
+
+    public Map<String, Object> getStats() {
+        Model current = model;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", current != null);
+        if (current != null) {
+            stats.put("products", current.cards.size());
+            stats.put("features", current.featureIds.size());
+            stats.put("builtAt", current.builtAt);
+        }
+        return stats;
+    }
+
+    /**
+     * Feature vectors, inverted index and neighbor lists over one load of the catalog
+     * Vectors and postings are fixed at build time; cards and neighbor lists are updated
+     * in place for changed products.
+     */
+    private static class Model {
+        private final long[] ids;
+        private final Map<String, Integer> featureIds = new HashMap<>();
+        private final Map<String, Float> idf = new HashMap<>();
+        private final float maxIdf;
+        // Per feature: docs having it and their weights
+        private final int[][] postingDocs;
+        private final float[][] postingWeights;
+        private final Map<Long, ProductCard> cards = new ConcurrentHashMap<>();
+        private final Map<Long, long[]> neighbors = new ConcurrentHashMap<>();
+        private final LocalDateTime builtAt = LocalDateTime.now();
+
+        Model(List<Product> products) {
+            int n = products.size();
+            ids = new long[n];
+
+            // Document frequency of text terms
+            List<Map<String, Integer>> termCounts = new ArrayList<>(n);
+            Map<String, Integer> documentFrequency = new HashMap<>();
+            for (Product product : products) {
+                Map<String, Integer> counts = termCounts(product);
+                termCounts.add(counts);
+                for (String term : counts.keySet()) {
+                    documentFrequency.merge(term, 1, Integer::sum);
+                }
+            }
+            documentFrequency.forEach((term, df) -> idf.put(term, idf(n, df)));
+            maxIdf = idf(n, 0);
+
+            // Vectors, with features numbered in first-seen order
+            List<Map<Integer, Float>> vectors = new ArrayList<>(n);
+            for (int doc = 0; doc < n; doc++) {
+                Product product = products.get(doc);
+                ids[doc] = product.getProductId();
+                cards.put(product.getProductId(), ProductCard.of(product));
+                Map<String, Float> vector = vector(product, termCounts.get(doc));
+                Map<Integer, Float> numbered = new HashMap<>(vector.size());
+                vector.forEach((feature, weight) -> numbered.put(
+                        featureIds.computeIfAbsent(feature, f -> featureIds.size()), weight));
+                vectors.add(numbered);
+            }
+
+            int[] lengths = new int[featureIds.size()];
+            for (Map<Integer, Float> vector : vectors) {
+                for (int feature : vector.keySet()) {
+                    lengths[feature]++;
+                }
+            }
+            postingDocs = new int[lengths.length][];
+            postingWeights = new float[lengths.length][];
+            for (int feature = 0; feature < lengths.length; feature++) {
+                postingDocs[feature] = new int[lengths[feature]];
+                postingWeights[feature] = new float[lengths[feature]];
+            }
+            int[] filled = new int[lengths.length];
+            for (int doc = 0; doc < n; doc++) {
+                for (Map.Entry<Integer, Float> entry : vectors.get(doc).entrySet()) {
+                    int feature = entry.getKey();
+                    postingDocs[feature][filled[feature]] = doc;
+                    postingWeights[feature][filled[feature]] = entry.getValue();
+                    filled[feature]++;
+                }
+            }
+
+            ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(() -> new Scratch(n));
+            IntStream.range(0, n).parallel().forEach(doc -> {
+                long[] top = topNeighbors(vectors.get(doc), ids[doc], scratch.get());
+                neighbors.put(ids[doc], top);
+            });
+        }
+
+        void update(Product product) {
+            Map<String, Float> vector = vector(product, termCounts(product));
+            Map<Integer, Float> numbered = new HashMap<>(vector.size());
+            vector.forEach((feature, weight) -> {
+                Integer featureId = featureIds.get(feature);
+                if (featureId != null) {
+                    numbered.put(featureId, weight);
+                }
+            });
+            cards.put(product.getProductId(), ProductCard.of(product));
+            neighbors.put(product.getProductId(),
+                    topNeighbors(numbered, product.getProductId(), new Scratch(ids.length)));
+        }
+
+        void remove(Long productId) {
+            cards.remove(productId);
+            neighbors.remove(productId);
+        }
+
+        // Cosine against every doc sharing a feature, keeping the TOP_K best
+        private long[] topNeighbors(Map<Integer, Float> vector, long selfId, Scratch scratch) {
+            float[] scores = scratch.scores;
+            int[] touched = scratch.touched;
+            int touchedCount = 0;
+            for (Map.Entry<Integer, Float> entry : vector.entrySet()) {
+                int[] docs = postingDocs[entry.getKey()];
+                float[] weights = postingWeights[entry.getKey()];
+                float weight = entry.getValue();
+                for (int i = 0; i < docs.length; i++) {
+                    if (scores[docs[i]] == 0) {
+                        touched[touchedCount++] = docs[i];
+                    }
+                    scores[docs[i]] += weight * weights[i];
+                }
+            }
+
+            // Min-heap on score, ties to the lower product id
+            PriorityQueue<Integer> best = new PriorityQueue<>(TOP_K + 1, (a, b) -> {
+                int byScore = Float.compare(scores[a], scores[b]);
+                return byScore != 0 ? byScore : Long.compare(ids[b], ids[a]);
+            });
+            for (int i = 0; i < touchedCount; i++) {
+                int doc = touched[i];
+                if (ids[doc] != selfId && scores[doc] > 0) {
+                    best.add(doc);
+                    if (best.size() > TOP_K) {
+                        best.poll();
+                    }
+                }
+            }
+            long[] top = new long[best.size()];
+            for (int i = top.length - 1; i >= 0; i--) {
+                top[i] = ids[best.poll()];
+            }
+            for (int i = 0; i < touchedCount; i++) {
+                scores[touched[i]] = 0;
+            }
+            return top;
+        }
+
+        private Map<String, Float> vector(Product product, Map<String, Integer> counts) {
+            Map<String, Float> attributes = new HashMap<>();
+            if (product.getCategoryId() != null) {
+                attributes.put("c:" + product.getCategoryId(), WEIGHT_CATEGORY);
+            }
+            putFolded(attributes, "b:", product.getBrand(), WEIGHT_BRAND);
+            if (product.getColor() != null) {
+                for (String color : product.getColor().split(",")) {
+                    putFolded(attributes, "col:", color, WEIGHT_COLOR);
+                }
+            }
+            putFolded(attributes, "m:", product.getMaterial(), WEIGHT_MATERIAL);
+            if (product.getGender() != null) {
+                attributes.put("g:" + product.getGender().name(), WEIGHT_GENDER);
+            }
+            if (product.getSeason() != null) {
+                attributes.put("s:" + product.getSeason().name(), WEIGHT_SEASON);
+            }
+            int band = ProductFilter.priceBucket(product.getPrice());
+            if (band >= 0) {
+                attributes.put("p:" + band, WEIGHT_PRICE_BAND);
+            }
+
+            // Sublinear TF-IDF, scaled so the text part has norm TEXT_WEIGHT
+            Map<String, Float> text = new HashMap<>();
+            double textNorm = 0;
+            for (Map.Entry<String, Integer> count : counts.entrySet()) {
+                float weight = (float) ((1 + Math.log(count.getValue())) * idf.getOrDefault(count.getKey(), maxIdf));
+                text.put("t:" + count.getKey(), weight);
+                textNorm += weight * weight;
+            }
+            if (textNorm > 0) {
+                float scale = (float) (TEXT_WEIGHT / Math.sqrt(textNorm));
+                text.replaceAll((term, weight) -> weight * scale);
+            }
+
+            Map<String, Float> vector = new HashMap<>(attributes);
+            vector.putAll(text);
+            double norm = 0;
+            for (float weight : vector.values()) {
+                norm += weight * weight;
+            }
+            if (norm > 0) {
+                float scale = (float) (1 / Math.sqrt(norm));
+                vector.replaceAll((feature, weight) -> weight * scale);
+            }
+            return vector;
+        }
+
+        private static Map<String, Integer> termCounts(Product product) {
+            Map<String, Integer> counts = new HashMap<>();
+            for (String token : TextNormalizer.tokenize(product.getProductName())) {
+                if (isTerm(token)) {
+                    counts.merge(token, NAME_REPEAT, Integer::sum);
+                }
+            }
+            for (String token : TextNormalizer.tokenize(product.getDescription())) {
+                if (isTerm(token)) {
+                    counts.merge(token, 1, Integer::sum);
+                }
+            }
+            return counts;
+        }
+
+        private static boolean isTerm(String token) {
+            return token.length() >= 2 && !token.chars().allMatch(Character::isDigit);
+        }
+
+        // Per-thread accumulators, left zeroed after each use
+        private static class Scratch {
+            private final float[] scores;
+            private final int[] touched;
+
+            Scratch(int size) {
+                scores = new float[size];
+                touched = new int[size];
+            }
+        }
+
+        private static float idf(int documents, int documentFrequency) {
+            return (float) (Math.log((documents + 1.0) / (documentFrequency + 1.0)) + 1);
+        }
+
+        private static void putFolded(Map<String, Float> attributes, String prefix, String value, float weight) {
+            if (value != null && !value.isBlank()) {
+                attributes.put(prefix + TextNormalizer.fold(value.trim()), weight);
+            }
+        }
+    }
+}
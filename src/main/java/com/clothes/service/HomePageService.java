@@ -0,0 +1,163 @@
+package com.clothes.service;
+
+import com.clothes.dao.ProductDAO;
+import com.clothes.event.CategoryChangedEvent;
+import com.clothes.event.ProductChangedEvent;
+import com.clothes.event.ReviewChangedEvent;
+import com.clothes.model.Category;
+import com.clothes.model.ProductCard;
+import com.clothes.model.ProductFilter;
+import com.clothes.model.ProductSort;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Precomputed, shared part of the home page
+ * New arrivals, trending products and root categories are loaded once into an immutable
+ * snapshot and served from memory. Catalog changes only mark it stale; it is rebuilt by the
+ * next reader or the scheduled refresh, whichever comes first, so writers never pay for it
+ * and a burst of changes costs one rebuild. Only the personalized block is computed per request.
+ */
+@Service
+public class HomePageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HomePageService.class);
+
+    private static final int SECTION_SIZE = 8;
+
+    private final ProductDAO productDAO;
+    private final CategoryService categoryService;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private volatile boolean stale;
+
+    public HomePageService(ProductDAO productDAO, CategoryService categoryService) {
+        this.productDAO = productDAO;
+        this.categoryService = categoryService;
+    }
+
+    /**
+     * Current snapshot, rebuilt first if missing or stale
+     */
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot.get();
+        if (current == null || stale) {
+            return rebuildIfStale();
+        }
+        return current;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized Snapshot rebuild() {
+        // Cleared before loading, so a change committed during the load marks it stale again
+        stale = false;
+        long startTime = System.currentTimeMillis();
+        Snapshot built = new Snapshot(
+                productDAO.findCardPage(new ProductFilter(), ProductSort.NEWEST, null, SECTION_SIZE),
+                productDAO.findTrendingCards(SECTION_SIZE),
+                categoryService.getRootCategories());
+        snapshot.set(built);
+        logger.debug("Home page snapshot rebuilt in {} ms", System.currentTimeMillis() - startTime);
+        return built;
+    }
+
+    /**
+     * Products were saved or deleted (after commit)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        stale = true;
+    }
+
+    /**
+     * A product's rating changed (after commit); the sections show ratings
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewChanged(ReviewChangedEvent event) {
+        stale = true;
+    }
+
+    /**
+     * Categories changed, for the category strip
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        stale = true;
+    }
+
+    // Concurrent readers of a stale snapshot share one rebuild; on failure the previous one is served
+    private synchronized Snapshot rebuildIfStale() {
+        Snapshot current = snapshot.get();
+        if (current != null && !stale) {
+            return current;
+        }
+        try {
+            return rebuild();
+        } catch (RuntimeException e) {
+            stale = true;
+            if (current == null) {
+                throw e;
+            }
+            logger.error("Error rebuilding home page snapshot, serving the previous one", e);
+            return current;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${homepage.snapshot.refresh-ms:60000}",
+            initialDelayString = "${homepage.snapshot.refresh-ms:60000}")
+    public void refresh() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Error refreshing home page snapshot", e);
+        }
+    }
+
+    /**
+     * Immutable home page sections
+     */
+    public static class Snapshot {
+        private final List<ProductCard> newArrivals;
+        private final List<ProductCard> trending;
+        private final List<Category> rootCategories;
+        private final LocalDateTime builtAt = LocalDateTime.now();
+
+        Snapshot(List<ProductCard> newArrivals, List<ProductCard> trending, List<Category> rootCategories) {
+            this.newArrivals = List.copyOf(newArrivals);
+            this.trending = List.copyOf(trending);
+            this.rootCategories = List.copyOf(rootCategories);
+        }
+
+        public List<ProductCard> getNewArrivals() {
+            return newArrivals;
+        }
+
+        public List<ProductCard> getTrending() {
+            return trending;
+        }
+
+        /**
+         * Featured products; currently the trending selection
+         */
+        public List<ProductCard> getFeatured() {
+            return trending;
+        }
+
+        public List<Category> getRootCategories() {
+            return rootCategories;
+        }
+
+        public LocalDateTime getBuiltAt() {
+            return builtAt;
+        }
+    }
+}
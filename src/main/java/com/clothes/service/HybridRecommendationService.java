@@ -2,6 +2,8 @@ package com.clothes.service;
 
 import com.clothes.dao.*;
 import com.clothes.model.*;
+import com.clothes.util.CompactBitmap;
+import com.clothes.util.SingleFlight;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -26,6 +28,13 @@ public class HybridRecommendationService {
     private final ProductDAO productDAO;
     private final UserInteractionDAO userInteractionDAO;
     private final RecommendationDAO recommendationDAO;
+    private final SeenItemService seenItemService;
+    private final UserPreferenceService userPreferenceService;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductCounterService productCounterService;
+
+    // Concurrent requests for the same user share one computation
+    private final SingleFlight<Long, Product> inFlight = new SingleFlight<>();
 
     // Weights for different recommendation strategies
     private static final double WEIGHT_USER_BASED_CF = 0.3;
@@ -36,18 +45,43 @@ public class HybridRecommendationService {
             ItemBasedCFService itemBasedCFService,
             ProductDAO productDAO,
             UserInteractionDAO userInteractionDAO,
-            RecommendationDAO recommendationDAO) {
+            RecommendationDAO recommendationDAO,
+            SeenItemService seenItemService,
+            UserPreferenceService userPreferenceService,
+            ProductSearchIndex productSearchIndex,
+            ProductCounterService productCounterService) {
         this.userBasedCFService = userBasedCFService;
         this.itemBasedCFService = itemBasedCFService;
         this.productDAO = productDAO;
         this.userInteractionDAO = userInteractionDAO;
         this.recommendationDAO = recommendationDAO;
+        this.seenItemService = seenItemService;
+        this.userPreferenceService = userPreferenceService;
+        this.productSearchIndex = productSearchIndex;
+        this.productCounterService = productCounterService;
     }
 
     /**
      * Get hybrid recommendations combining multiple strategies
      */
     public List<Product> getRecommendations(Long userId, int limit) {
+        if (userId == null) {
+            return computeRecommendations(null, limit);
+        }
+        return inFlight.execute(userId, limit, n -> computeRecommendations(userId, n));
+    }
+
+    /**
+     * Computed vs. shared request counts of the single-flight guard
+     */
+    public Map<String, Long> getSingleFlightStats() {
+        return Map.of("computed", inFlight.getComputedCount(), "shared", inFlight.getSharedCount());
+    }
+
+    /**
+     * Compute recommendations, ranked best first
+     */
+    private List<Product> computeRecommendations(Long userId, int limit) {
         logger.info("Generating Hybrid recommendations for user: {}", userId);
 
         // Check cache first
@@ -59,12 +93,11 @@ public class HybridRecommendationService {
             List<Long> productIds = cachedRecs.stream()
                     .map(Recommendation::getRecommendedProductId)
                     .collect(Collectors.toList());
-            return productDAO.findByIds(productIds);
+            return productDAO.findByIdsOrdered(productIds);
         }
 
         // Get user's already seen products
-        Set<Long> seenProducts = new HashSet<>(
-                userInteractionDAO.findProductIdsByUserId(userId));
+        CompactBitmap seenProducts = seenItemService.getSeenItems(userId);
 
         Map<Long, Double> hybridScores = new HashMap<>();
 
@@ -128,7 +161,7 @@ public class HybridRecommendationService {
         cacheRecommendations(userId, hybridScores, topProductIds);
 
         logger.info("Generated {} Hybrid recommendations for user: {}", topProductIds.size(), userId);
-        return productDAO.findByIds(topProductIds);
+        return productDAO.findByIdsOrdered(topProductIds);
     }
 
     /**
@@ -195,12 +228,14 @@ public class HybridRecommendationService {
         interaction.setSessionId(UUID.randomUUID().toString());
 
         userInteractionDAO.save(interaction);
+        seenItemService.markSeen(userId, productId);
+        userPreferenceService.recordInteraction(userId, productId, interaction);
 
         // Update product statistics
         if (type == UserInteraction.InteractionType.VIEW) {
-            productDAO.incrementViewCount(productId);
+            productCounterService.recordView(productId);
         } else if (type == UserInteraction.InteractionType.PURCHASE) {
-            productDAO.incrementPurchaseCount(productId);
+            productCounterService.recordPurchase(productId);
         }
 
         // Invalidate cache for this user
@@ -245,29 +280,22 @@ public class HybridRecommendationService {
      */
     public List<Product> personalizeSearchResults(Long userId, String keyword, int limit) {
         // Get base search results
-        List<Product> searchResults = productDAO.search(keyword, limit * 2);
+        List<Product> searchResults = productSearchIndex.searchProducts(keyword, limit * 2);
 
         if (userId == null || searchResults.isEmpty()) {
             return searchResults.subList(0, Math.min(limit, searchResults.size()));
         }
 
-        // Get user's interaction history
-        List<UserInteraction> userHistory = userInteractionDAO.findByUserId(userId);
-        Set<Long> userProducts = userHistory.stream()
-                .map(UserInteraction::getProductId)
-                .collect(Collectors.toSet());
-
-        // Re-rank based on similarity to user's history
+        // Re-rank by the user's cached preference profile
+        UserPreferenceService.Profile profile = userPreferenceService.getProfile(userId);
         Map<Long, Double> reRankedScores = new HashMap<>();
 
-        for (Product product : searchResults) {
-            double score = 1.0; // Base relevance score
-
-            // Boost if similar to products user liked
-            if (userProducts.contains(product.getProductId())) {
-                score += 0.5; // User already knows this product
-            }
-
+        // Base score falls with the search rank, so the boost reorders near neighbours but
+        // does not flatten the BM25 order
+        for (int rank = 0; rank < searchResults.size(); rank++) {
+            Product product = searchResults.get(rank);
+            double score = 1.0 - (double) rank / searchResults.size();
+            score += userPreferenceService.getAffinity(profile, product);
             reRankedScores.put(product.getProductId(), score);
         }
 
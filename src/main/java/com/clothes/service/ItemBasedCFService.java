@@ -3,6 +3,7 @@ package com.clothes.service;
 import com.clothes.dao.*;
 import com.clothes.model.*;
 import com.clothes.util.CollaborativeFilteringUtil;
+import com.clothes.util.SingleFlight;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -27,10 +28,18 @@ public class ItemBasedCFService {
     private final ProductDAO productDAO;
     private final RecommendationDAO recommendationDAO;
 
+    // Concurrent requests for the same user share one computation
+    private final SingleFlight<Long, Product> inFlight = new SingleFlight<>();
+
     // Configuration parameters
     private static final int TOP_K_SIMILAR_ITEMS = 20;
     private static final int RECOMMENDATION_COUNT = 10;
     private static final double MIN_SIMILARITY_THRESHOLD = 0.1;
+    private static final int SIMILARITY_PARTITION_SIZE = 50;
+
+    // Batch job names (checkpoint keys)
+    public static final String PRODUCT_SIMILARITY_JOB = "product-similarity";
+    public static final String CO_OCCURRENCE_JOB = "product-cooccurrence";
 
     public ItemBasedCFService(ProductSimilarityDAO productSimilarityDAO,
             UserInteractionDAO userInteractionDAO,
@@ -48,6 +57,16 @@ public class ItemBasedCFService {
      * Get personalized recommendations for a user using Item-Based CF
      */
     public List<Product> getRecommendations(Long userId, int limit) {
+        if (userId == null) {
+            return computeRecommendations(null, limit);
+        }
+        return inFlight.execute(userId, limit, n -> computeRecommendations(userId, n));
+    }
+
+    /**
+     * Compute recommendations, ranked best first
+     */
+    private List<Product> computeRecommendations(Long userId, int limit) {
         logger.info("Generating Item-Based CF recommendations for user: {}", userId);
 
         // 1. Check cache first
@@ -59,7 +78,7 @@ public class ItemBasedCFService {
             List<Long> productIds = cachedRecs.stream()
                     .map(Recommendation::getRecommendedProductId)
                     .collect(Collectors.toList());
-            return productDAO.findByIds(productIds);
+            return productDAO.findByIdsOrdered(productIds);
         }
 
         // 2. Get user's interaction history
@@ -122,7 +141,7 @@ public class ItemBasedCFService {
         // 7. Return products
         logger.info("Generated {} Item-Based CF recommendations for user: {}",
                 topProductIds.size(), userId);
-        return productDAO.findByIds(topProductIds);
+        return productDAO.findByIdsOrdered(topProductIds);
     }
 
     /**
@@ -148,7 +167,16 @@ public class ItemBasedCFService {
      */
     public void computeProductSimilarities() {
         logger.info("Starting Product Similarity computation");
+        long processed = productSimilarityJob().runAll();
+        logger.info("Product Similarity computation completed for {} products", processed);
+    }
 
+    /**
+     * Build the product similarity job
+     * Each partition computes and saves the rows of a slice of the sorted product list,
+     * so the job can be checkpointed and resumed by BatchJobService
+     */
+    public PartitionedJob productSimilarityJob() {
         // Get all user-product interaction pairs
         List<UserInteractionDAO.InteractionScore> allInteractions = userInteractionDAO.getInteractionMatrix();
 
@@ -159,40 +187,36 @@ public class ItemBasedCFService {
                     .put(interaction.userId, interaction.score);
         }
 
+        // Sorted so that partition boundaries are stable across restarts
         List<Long> productIds = new ArrayList<>(productVectors.keySet());
-        List<ProductSimilarity> similarities = new ArrayList<>();
-
-        // Calculate pairwise similarities
-        for (int i = 0; i < productIds.size(); i++) {
-            Long productId1 = productIds.get(i);
-            Map<Long, Double> vector1 = productVectors.get(productId1);
+        Collections.sort(productIds);
 
-            for (int j = i + 1; j < productIds.size(); j++) {
-                Long productId2 = productIds.get(j);
-                Map<Long, Double> vector2 = productVectors.get(productId2);
-
-                // Calculate Cosine similarity
-                double similarity = CollaborativeFilteringUtil.cosineSimilarity(vector1, vector2);
+        return PartitionedJob.ofRange(PRODUCT_SIMILARITY_JOB, productIds, SIMILARITY_PARTITION_SIZE,
+                (from, to) -> computeProductSimilarityRows(productIds, productVectors, from, to));
+    }
 
-                // Only store if similarity is meaningful
-                if (similarity > MIN_SIMILARITY_THRESHOLD) {
-                    ProductSimilarity prodSim = new ProductSimilarity(productId1, productId2,
-                            new BigDecimal(similarity));
-                    prodSim.setSimilarityType(ProductSimilarity.SimilarityType.COSINE);
-                    similarities.add(prodSim);
-                }
-            }
+    /**
+     * Calculate and save similarities of products [from, to) against all later products
+     */
+    private void computeProductSimilarityRows(List<Long> productIds, Map<Long, Map<Long, Double>> productVectors,
+            int from, int to) {
+        List<ProductSimilarity> similarities = new ArrayList<>();
 
-            // Log progress
-            if ((i + 1) % 100 == 0) {
-                logger.info("Processed {} products", i + 1);
+        for (int i = from; i < to; i++) {
+            Long productId1 = productIds.get(i);
+            Map<Long, Double> row = CollaborativeFilteringUtil.similaritiesToLater(productIds, productVectors, i,
+                    CollaborativeFilteringUtil.Metric.COSINE, MIN_SIMILARITY_THRESHOLD);
+            for (Map.Entry<Long, Double> pair : row.entrySet()) {
+                ProductSimilarity prodSim = new ProductSimilarity(productId1, pair.getKey(),
+                        new BigDecimal(pair.getValue()));
+                prodSim.setSimilarityType(ProductSimilarity.SimilarityType.COSINE);
+                similarities.add(prodSim);
             }
         }
 
-        // Batch save
-        logger.info("Saving {} product similarity records", similarities.size());
-        productSimilarityDAO.batchSave(similarities);
-        logger.info("Product Similarity computation completed");
+        if (!similarities.isEmpty()) {
+            productSimilarityDAO.batchSave(similarities);
+        }
     }
 
     /**
@@ -201,14 +225,33 @@ public class ItemBasedCFService {
      */
     public void computeProductSimilaritiesByCoOccurrence() {
         logger.info("Computing Product Similarities using Co-Occurrence");
+        long processed = coOccurrenceSimilarityJob().runAll();
+        logger.info("Co-Occurrence computation completed for {} products", processed);
+    }
 
-        List<Product> allProducts = productDAO.findAllActive();
+    /**
+     * Build the co-occurrence similarity job, partitioned over active products sorted by ID
+     */
+    public PartitionedJob coOccurrenceSimilarityJob() {
+        List<Long> productIds = productDAO.findAllActive().stream()
+                .map(Product::getProductId)
+                .sorted()
+                .collect(Collectors.toList());
+
+        return PartitionedJob.ofRange(CO_OCCURRENCE_JOB, productIds, SIMILARITY_PARTITION_SIZE,
+                (from, to) -> computeCoOccurrenceRows(productIds.subList(from, to)));
+    }
+
+    /**
+     * Calculate and save co-occurrence similarities for a slice of products
+     */
+    private void computeCoOccurrenceRows(List<Long> productIds) {
         List<ProductSimilarity> similarities = new ArrayList<>();
 
-        for (Product product : allProducts) {
+        for (Long productId : productIds) {
             // Find products frequently bought with this product
             List<UserInteractionDAO.CoOccurrence> coOccurrences = userInteractionDAO
-                    .findProductCoOccurrences(product.getProductId(), 50);
+                    .findProductCoOccurrences(productId, 50);
 
             for (UserInteractionDAO.CoOccurrence coOcc : coOccurrences) {
                 // Use co-occurrence count as similarity (normalized)
@@ -216,16 +259,16 @@ public class ItemBasedCFService {
 
                 if (similarity > MIN_SIMILARITY_THRESHOLD) {
                     ProductSimilarity prodSim = new ProductSimilarity(
-                            product.getProductId(), coOcc.productId, new BigDecimal(similarity));
+                            productId, coOcc.productId, new BigDecimal(similarity));
                     prodSim.setSimilarityType(ProductSimilarity.SimilarityType.JACCARD);
                     similarities.add(prodSim);
                 }
             }
         }
 
-        logger.info("Saving {} co-occurrence based similarities", similarities.size());
-        productSimilarityDAO.batchSave(similarities);
-        logger.info("Co-Occurrence computation completed");
+        if (!similarities.isEmpty()) {
+            productSimilarityDAO.batchSave(similarities);
+        }
     }
 
     /**
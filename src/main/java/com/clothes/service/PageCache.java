@@ -0,0 +1,208 @@
+package com.clothes.service;
+
+import com.clothes.event.ProductChangedEvent;
+import com.clothes.event.ReviewChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rendered HTML of anonymous catalog pages, keyed by URL and query string
+ * Bounded by total body size (LRU) and by a time-to-live. Cleared on catalog changes and on
+ * admin content writes (see PageCacheFilter); a review only evicts its product's pages.
+ */
+@Service
+public class PageCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageCache.class);
+
+    /**
+     * Request attribute set by a handler whose page is incomplete (e.g. sections replaced by
+     * fallbacks); such a render is sent but not cached
+     */
+    public static final String DEGRADED_ATTRIBUTE = PageCache.class.getName() + ".DEGRADED";
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final long ttlMillis;
+    private final Map<String, Page> pages = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    // Bumped on every clear; renders that raced with one are not stored
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public PageCache(@Value("${page-cache.max-bytes:33554432}") long maxBytes,
+            @Value("${page-cache.max-entry-bytes:1048576}") long maxEntryBytes,
+            @Value("${page-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    /**
+     * Cached page, or null if absent or expired
+     */
+    public Page get(String key) {
+        synchronized (pages) {
+            Page page = pages.get(key);
+            if (page != null && System.currentTimeMillis() - page.createdAt > ttlMillis) {
+                pages.remove(key);
+                totalBytes -= page.size();
+                page = null;
+            }
+            if (page == null) {
+                misses.incrementAndGet();
+            } else {
+                hits.incrementAndGet();
+            }
+            return page;
+        }
+    }
+
+    public long currentGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Store a rendered page, unless the cache was cleared since renderGeneration
+     */
+    public Page put(String key, String contentType, byte[] body, long renderGeneration) {
+        Page page = new Page(contentType, body, etag(body));
+        if (page.size() > maxEntryBytes) {
+            return page;
+        }
+        synchronized (pages) {
+            if (generation.get() != renderGeneration) {
+                return page;
+            }
+            Page previous = pages.put(key, page);
+            if (previous != null) {
+                totalBytes -= previous.size();
+            }
+            totalBytes += page.size();
+
+            Iterator<Page> eldest = pages.values().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                totalBytes -= eldest.next().size();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+        return page;
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        synchronized (pages) {
+            pages.clear();
+            totalBytes = 0;
+        }
+        logger.debug("Page cache cleared");
+    }
+
+    /**
+     * Drop rendered pages after products were saved or deleted (after commit)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        clear();
+    }
+
+    /**
+     * Drop the detail pages of a product whose rating changed (after commit)
+     * Listings showing the rating catch up within the time-to-live.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewChanged(ReviewChangedEvent event) {
+        String path = "/products/" + event.getProductId();
+        // Also rejects renders of the page that started before the change
+        generation.incrementAndGet();
+        synchronized (pages) {
+            Iterator<Map.Entry<String, Page>> entries = pages.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<String, Page> entry = entries.next();
+                String key = entry.getKey();
+                if (key.equals(path) || key.startsWith(path + "?")) {
+                    totalBytes -= entry.getValue().size();
+                    entries.remove();
+                }
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (pages) {
+            stats.put("pages", pages.size());
+            stats.put("bytes", totalBytes);
+        }
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    /**
+     * Strong ETag over the body bytes
+     */
+    public static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * One rendered response
+     */
+    public static class Page {
+        private final String contentType;
+        private final byte[] body;
+        private final String etag;
+        private final long createdAt = System.currentTimeMillis();
+
+        Page(String contentType, byte[] body, String etag) {
+            this.contentType = contentType;
+            this.body = body;
+            this.etag = etag;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        long size() {
+            return body.length + (contentType != null ? contentType.length() : 0)
+                    + etag.getBytes(StandardCharsets.US_ASCII).length;
+        }
+    }
+}
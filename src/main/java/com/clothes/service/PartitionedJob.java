@@ -0,0 +1,141 @@
+package com.clothes.service;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * A batch job split into numbered partitions
+ * Each partition must persist its own output and be safe to re-run,
+ * so BatchJobService can checkpoint after every partition and resume later
+ */
+public interface PartitionedJob {
+
+    /**
+     * Stable job name, used as the checkpoint key
+     */
+    String getName();
+
+    /**
+     * Number of partitions; a checkpoint is only resumed if this is unchanged
+     */
+    int getPartitionCount();
+
+    /**
+     * Total number of items across all partitions (for progress, rate and ETA)
+     */
+    long getItemCount();
+
+    /**
+     * Fingerprint of the items the partitions are cut from
+     * When not null, a checkpoint is only resumed if this and the item count are unchanged,
+     * since added or removed items shift partition boundaries. Null for jobs that resume
+     * from their own persisted input.
+     */
+    default String getInputHash() {
+        return null;
+    }
+
+    /**
+     * Process one partition and return the number of items it covered
+     */
+    int processPartition(int partition);
+
+    /**
+     * Called once before the first partition of a run (0 for a fresh run)
+     */
+    default void beforeRun(int firstPartition) {
+    }
+
+    /**
+     * Called once after the last partition of a successful run
+     */
+    default void afterRun() {
+    }
+
+    /**
+     * Run every partition in order without checkpointing
+     */
+    default long runAll() {
+        beforeRun(0);
+        long processed = 0;
+        for (int partition = 0; partition < getPartitionCount(); partition++) {
+            processed += processPartition(partition);
+        }
+        afterRun();
+        return processed;
+    }
+
+    /**
+     * Build a job over the index range [0, items.size()) of a sorted id list, cut into
+     * fixed-size slices; the list's fingerprint guards resumes
+     */
+    static PartitionedJob ofRange(String name, List<Long> items, int partitionSize, RangeTask task) {
+        return ofRange(name, items.size(), inputHash(items), partitionSize, task);
+    }
+
+    /**
+     * Build a job over the index range [0, itemCount) cut into fixed-size slices
+     */
+    static PartitionedJob ofRange(String name, int itemCount, String inputHash, int partitionSize,
+            RangeTask task) {
+        int partitions = (itemCount + partitionSize - 1) / partitionSize;
+        return new PartitionedJob() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public int getPartitionCount() {
+                return partitions;
+            }
+
+            @Override
+            public long getItemCount() {
+                return itemCount;
+            }
+
+            @Override
+            public String getInputHash() {
+                return inputHash;
+            }
+
+            @Override
+            public int processPartition(int partition) {
+                int from = partition * partitionSize;
+                int to = Math.min(itemCount, from + partitionSize);
+                task.process(from, to);
+                return to - from;
+            }
+        };
+    }
+
+    /**
+     * SHA-256 of an id list, in order
+     */
+    static String inputHash(List<Long> ids) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+            for (Long id : ids) {
+                buffer.clear();
+                buffer.putLong(id != null ? id : Long.MIN_VALUE);
+                digest.update(buffer.array());
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Work for one slice [from, to) of a range job
+     */
+    @FunctionalInterface
+    interface RangeTask {
+        void process(int from, int to);
+    }
+}
@@ -0,0 +1,191 @@
+package com.clothes.service;
+
+import com.clothes.dao.ProductDAO;
+import com.clothes.event.ProductChangedEvent;
+import com.clothes.event.ReviewChangedEvent;
+import com.clothes.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded read-through cache of products by id
+ * Serves the hot single-product lookups (product page, cart, wishlist, reviews) and ordered
+ * multi-gets from memory, evicting least recently used entries. Entries are dropped when
+ * ProductService publishes a ProductChangedEvent (save, duplicate, toggle, delete, stock).
+ * View and purchase counters are not invalidated and may lag until the entry is reloaded.
+ * Cached products are shared and must be treated as read-only.
+ */
+@Service
+public class ProductCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCache.class);
+
+    private final ProductDAO productDAO;
+    private final int maxSize;
+    private final Map<Long, Product> products;
+
+    // Bumped on every invalidation; loads that raced with one are not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ProductCache(ProductDAO productDAO, @Value("${product.cache.max-size:5000}") int maxSize) {
+        this.productDAO = productDAO;
+        this.maxSize = maxSize;
+        this.products = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Product> eldest) {
+                if (size() > ProductCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Get a product, loading it from the database on a miss
+     */
+    public Optional<Product> findById(Long productId) {
+        if (productId == null) {
+            return Optional.empty();
+        }
+        synchronized (products) {
+            Product cached = products.get(productId);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return Optional.of(cached);
+            }
+        }
+
+        misses.incrementAndGet();
+        long loadGeneration = generation.get();
+        Optional<Product> loaded = productDAO.findById(productId);
+        loaded.ifPresent(product -> put(product, loadGeneration));
+        return loaded;
+    }
+
+    /**
+     * Get several products in the order of the given ids, loading all misses in one query
+     * Ids that do not exist are skipped.
+     */
+    public List<Product> findByIdsOrdered(List<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Product> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        synchronized (products) {
+            for (Long productId : productIds) {
+                if (productId == null || found.containsKey(productId) || missing.contains(productId)) {
+                    continue;
+                }
+                Product cached = products.get(productId);
+                if (cached != null) {
+                    found.put(productId, cached);
+                } else {
+                    missing.add(productId);
+                }
+            }
+        }
+        hits.addAndGet(found.size());
+
+        if (!missing.isEmpty()) {
+            misses.addAndGet(missing.size());
+            long loadGeneration = generation.get();
+            for (Product product : productDAO.findByIds(missing)) {
+                found.put(product.getProductId(), product);
+                put(product, loadGeneration);
+            }
+        }
+
+        List<Product> ordered = new ArrayList<>(found.size());
+        Set<Long> added = new HashSet<>();
+        for (Long productId : productIds) {
+            Product product = found.get(productId);
+            if (product != null && added.add(productId)) {
+                ordered.add(product);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Drop changed products (after commit)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getChangeType() == ProductChangedEvent.ChangeType.RELOADED) {
+            clear();
+        } else {
+            invalidate(event.getProductIds());
+        }
+    }
+
+    /**
+     * Drop a product whose rating changed (after commit)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewChanged(ReviewChangedEvent event) {
+        invalidate(List.of(event.getProductId()));
+    }
+
+    public void invalidate(Collection<Long> productIds) {
+        generation.incrementAndGet();
+        synchronized (products) {
+            for (Long productId : productIds) {
+                if (products.remove(productId) != null) {
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+        logger.debug("Invalidated cached products {}", productIds);
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        synchronized (products) {
+            invalidations.addAndGet(products.size());
+            products.clear();
+        }
+    }
+
+    /**
+     * Size, hit rate, evictions and invalidations
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (products) {
+            stats.put("size", products.size());
+        }
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    private void put(Product product, long loadGeneration) {
+        synchronized (products) {
+            // Skip if an invalidation happened while loading, the row may be stale
+            if (generation.get() == loadGeneration) {
+                products.put(product.getProductId(), product);
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.clothes.service;
+
+import com.clothes.dao.ProductDAO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buffered product view and purchase counters
+ * Increments go to striped in-memory adders and are written periodically as one batch of
+ * additive UPDATEs, so page views of a hot product no longer queue on its row lock.
+ * Pending counts are flushed on shutdown; on a failed flush they are kept for the next one.
+ */
+@Service
+public class ProductCounterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCounterService.class);
+
+    private final ProductDAO productDAO;
+    // Entries are never removed, so an increment can't race with a removal; bounded by the catalog size
+    private final Map<Long, Counts> pending = new ConcurrentHashMap<>();
+
+    public ProductCounterService(ProductDAO productDAO) {
+        this.productDAO = productDAO;
+    }
+
+    public void recordView(Long productId) {
+        if (productId != null) {
+            pending.computeIfAbsent(productId, id -> new Counts()).views.increment();
+        }
+    }
+
+    public void recordPurchase(Long productId) {
+        if (productId != null) {
+            pending.computeIfAbsent(productId, id -> new Counts()).purchases.increment();
+        }
+    }
+
+    /**
+     * Write pending counts to the database
+     * @return number of products updated
+     */
+    @Scheduled(fixedDelayString = "${product.counters.flush-ms:5000}",
+            initialDelayString = "${product.counters.flush-ms:5000}")
+    public synchronized int flush() {
+        // Sorted by id so concurrent writers lock product rows in the same order
+        Map<Long, long[]> deltas = new TreeMap<>();
+        for (Map.Entry<Long, Counts> entry : pending.entrySet()) {
+            Counts counts = entry.getValue();
+            long views = counts.views.sumThenReset();
+            long purchases = counts.purchases.sumThenReset();
+            if (views != 0 || purchases != 0) {
+                deltas.put(entry.getKey(), new long[] { views, purchases });
+            }
+        }
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        List<Object[]> batch = new ArrayList<>(deltas.size());
+        for (Map.Entry<Long, long[]> delta : deltas.entrySet()) {
+            batch.add(new Object[] { delta.getValue()[0], delta.getValue()[1], delta.getKey() });
+        }
+        try {
+            productDAO.addCounts(batch);
+            logger.debug("Flushed counters of {} products", deltas.size());
+            return deltas.size();
+        } catch (Exception e) {
+            // Put the counts back so the next flush retries them
+            deltas.forEach((productId, delta) -> {
+                Counts counts = pending.computeIfAbsent(productId, id -> new Counts());
+                counts.views.add(delta[0]);
+                counts.purchases.add(delta[1]);
+            });
+            logger.error("Error flushing counters of {} products", deltas.size(), e);
+            return 0;
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        int flushed = flush();
+        logger.info("Flushed counters of {} products on shutdown", flushed);
+    }
+
+    private static class Counts {
+        private final LongAdder views = new LongAdder();
+        private final LongAdder purchases = new LongAdder();
+    }
+}
@@ -0,0 +1,605 @@
+package com.clothes.service;
+
+import com.clothes.dao.CategoryDAO;
+import com.clothes.dao.ProductDAO;
+import com.clothes.event.CategoryChangedEvent;
+import com.clothes.event.ProductChangedEvent;
+import com.clothes.model.Category;
+import com.clothes.model.Product;
+import com.clothes.model.ProductCard;
+import com.clothes.model.ProductCursor;
+import com.clothes.model.ProductFilter;
+import com.clothes.model.ProductSort;
+import com.clothes.util.TextNormalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * In-memory faceted filtering over active products
+ * Keeps one bitmap per category, gender, brand, color, size, season and price bucket, plus
+ * precomputed sort orders. A filter is answered by OR-ing bitmaps within a facet, AND-ing
+ * across facets and walking the requested sort order from a keyset cursor, without
+ * touching the database.
+ * Facet value counts are computed in the same pass: each facet is counted against the
+ * other facets' selections, so already-selected values still show their alternatives.
+ * Product and category changes only mark the snapshot stale; a background task rebuilds it shortly
+ * after, so a burst of changes costs one reload and writers never wait for it. A periodic
+ * rebuild keeps view/purchase counts used by the "popular" order reasonably fresh.
+ */
+@Service
+public class ProductFacetIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductFacetIndex.class);
+
+    // Selection slots of the counted facets
+    private static final int FACET_CATEGORY = 0;
+    private static final int FACET_GENDER = 1;
+    private static final int FACET_SEASON = 2;
+    private static final int FACET_BRAND = 3;
+    private static final int FACET_COLOR = 4;
+    private static final int FACET_SIZE = 5;
+    private static final int FACET_PRICE_BUCKET = 6;
+    private static final int FACET_COUNT = 7;
+
+    private final ProductDAO productDAO;
+    private final CategoryDAO categoryDAO;
+
+    private volatile Snapshot snapshot;
+    private volatile boolean stale;
+
+    public ProductFacetIndex(ProductDAO productDAO, CategoryDAO categoryDAO) {
+        this.productDAO = productDAO;
+        this.categoryDAO = categoryDAO;
+    }
+
+    /**
+     * Rebuild the snapshot from all active products
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        // Cleared before loading, so a change committed during the load marks it stale again
+        stale = false;
+        long startTime = System.currentTimeMillis();
+        Snapshot built = new Snapshot(productDAO.findAllActive(), categoryDAO.findAll());
+        snapshot = built;
+        logger.info("Product facet index built: {} products, {} brands, {} colors, {} sizes in {} ms",
+                built.cards.length, built.brands.size(), built.colors.size(), built.sizes.size(),
+                System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Products were saved or deleted (after commit); picked up by the next rebuildIfStale
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        stale = true;
+    }
+
+    /**
+     * Category names or hierarchy changed (after commit); the sidebar reads them from the snapshot
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        stale = true;
+    }
+
+    @Scheduled(fixedDelayString = "${product.facets.change-delay-ms:2000}")
+    public void rebuildIfStale() {
+        if (!stale) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            stale = true;
+            logger.error("Error rebuilding product facet index after changes", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${product.facets.refresh-ms:300000}",
+            initialDelayString = "${product.facets.refresh-ms:300000}")
+    public void refresh() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Error refreshing product facet index", e);
+        }
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * One page of matching products together with per-value counts of every facet
+     * When restrictTo is given, only those products are considered; with the RELEVANCE sort
+     * they keep the order of that list (e.g. search rank). Products are shared with the
+     * snapshot and must be treated as read-only.
+     */
+    public FacetResult filterWithCounts(ProductFilter filter, List<Long> restrictTo, ProductCursor cursor,
+            int limit) {
+        Snapshot current = requireSnapshot();
+        Selection selection = current.select(filter, restrictTo);
+        BitSet matches = selection.matches();
+
+        FacetResult result = new FacetResult();
+        result.totalMatches = matches.cardinality();
+
+        BitSet scope = selection.excluding(FACET_CATEGORY, matches);
+        for (Category category : current.categoryList) {
+            BitSet bitmap = current.categories.get(category.getCategoryId());
+            result.categoryCounts.put(category.getCategoryId(), intersectionCount(scope, bitmap));
+        }
+        scope = selection.excluding(FACET_GENDER, matches);
+        for (Product.Gender gender : Product.Gender.values()) {
+            result.genderCounts.put(gender, intersectionCount(scope, current.genders.get(gender)));
+        }
+        scope = selection.excluding(FACET_SEASON, matches);
+        for (Product.Season season : Product.Season.values()) {
+            result.seasonCounts.put(season, intersectionCount(scope, current.seasons.get(season)));
+        }
+        countValues(selection.excluding(FACET_BRAND, matches), current.brands, current.brandLabels,
+                result.brandCounts);
+        countValues(selection.excluding(FACET_COLOR, matches), current.colors, current.colorLabels,
+                result.colorCounts);
+        countValues(selection.excluding(FACET_SIZE, matches), current.sizes, current.sizeLabels,
+                result.sizeCounts);
+        scope = selection.excluding(FACET_PRICE_BUCKET, matches);
+        for (int bucket = 0; bucket < current.priceBuckets.length; bucket++) {
+            result.priceBucketCounts.put(bucket, intersectionCount(scope, current.priceBuckets[bucket]));
+        }
+
+        collectPage(current, matches, filter.getSort(), restrictTo, cursor, limit, result);
+        return result;
+    }
+
+    /**
+     * All categories, as loaded with the current snapshot
+     */
+    public List<Category> getCategories() {
+        Snapshot current = snapshot;
+        return current != null ? current.categoryList : List.of();
+    }
+
+    private Snapshot requireSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            throw new IllegalStateException("Product facet index is not built yet");
+        }
+        return current;
+    }
+
+    private static void collectPage(Snapshot current, BitSet matches, ProductSort sort, List<Long> restrictTo,
+            ProductCursor cursor, int limit, FacetResult result) {
+        List<Integer> page = new ArrayList<>(limit);
+        if (sort == ProductSort.RELEVANCE && restrictTo != null) {
+            int start = 0;
+            if (cursor != null) {
+                // A cursor whose product dropped out of the results cannot be placed; end the
+                // listing rather than silently starting over from the first page
+                int position = restrictTo.indexOf(cursor.getProductId());
+                start = position >= 0 ? position + 1 : restrictTo.size();
+            }
+            Set<Integer> seen = new HashSet<>();
+            for (int i = start; i < restrictTo.size() && page.size() <= limit; i++) {
+                Integer doc = current.docs.get(restrictTo.get(i));
+                if (doc != null && matches.get(doc) && seen.add(doc)) {
+                    page.add(doc);
+                }
+            }
+        } else {
+            if (sort == ProductSort.RELEVANCE) {
+                sort = ProductSort.NEWEST;
+            }
+            int[] order = current.orders.get(sort);
+            int start = cursor != null ? current.seek(sort, cursor) : 0;
+            for (int i = start; i < order.length && page.size() <= limit; i++) {
+                if (matches.get(order[i])) {
+                    page.add(order[i]);
+                }
+            }
+        }
+
+        // One extra product tells whether another page follows
+        if (page.size() > limit) {
+            page = page.subList(0, limit);
+            int last = page.get(limit - 1);
+            String key = sort == ProductSort.RELEVANCE ? null : current.cursorKeys.get(sort)[last];
+            result.nextCursor = new ProductCursor(sort, key, current.cards[last].getProductId());
+        }
+        List<ProductCard> cards = new ArrayList<>(page.size());
+        for (int doc : page) {
+            cards.add(current.cards[doc]);
+        }
+        result.products = cards;
+    }
+
+    /**
+     * Distinct brands of active products, in display form
+     */
+    public List<String> getBrands() {
+        Snapshot current = snapshot;
+        return current != null ? new ArrayList<>(current.brandLabels.values()) : List.of();
+    }
+
+    public List<String> getColors() {
+        Snapshot current = snapshot;
+        return current != null ? new ArrayList<>(current.colorLabels.values()) : List.of();
+    }
+
+    public List<String> getSizes() {
+        Snapshot current = snapshot;
+        return current != null ? new ArrayList<>(current.sizeLabels.values()) : List.of();
+    }
+
+    public Map<String, Object> getStats() {
+        Snapshot current = snapshot;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", current != null);
+        if (current != null) {
+            stats.put("products", current.cards.length);
+            stats.put("categories", current.categories.size());
+            stats.put("brands", current.brands.size());
+            stats.put("colors", current.colors.size());
+            stats.put("sizes", current.sizes.size());
+            stats.put("builtAt", current.builtAt.toString());
+        }
+        return stats;
+    }
+
+    private static void countValues(BitSet scope, Map<String, BitSet> bitmaps, SortedMap<String, String> labels,
+            Map<String, Integer> counts) {
+        for (Map.Entry<String, String> label : labels.entrySet()) {
+            counts.put(label.getValue(), intersectionCount(scope, bitmaps.get(label.getKey())));
+        }
+    }
+
+    private static int intersectionCount(BitSet scope, BitSet bitmap) {
+        if (bitmap == null) {
+            return 0;
+        }
+        BitSet intersection = (BitSet) bitmap.clone();
+        intersection.and(scope);
+        return intersection.cardinality();
+    }
+
+    /**
+     * Normalized key of a brand/color/size value
+     */
+    static String facetKey(String value) {
+        return TextNormalizer.fold(value.trim());
+    }
+
+    /**
+     * Immutable bitmaps and sort orders over one load of the catalog
+     * Only card projections of the products are retained.
+     */
+    private static class Snapshot {
+        private final ProductCard[] cards;
+        private final List<Category> categoryList;
+        private final Map<Long, Integer> docs = new HashMap<>();
+        private final Map<Long, BitSet> categories = new HashMap<>();
+        private final Map<Product.Gender, BitSet> genders = new EnumMap<>(Product.Gender.class);
+        private final Map<Product.Season, BitSet> seasons = new EnumMap<>(Product.Season.class);
+        private final Map<String, BitSet> brands = new HashMap<>();
+        private final Map<String, BitSet> colors = new HashMap<>();
+        private final Map<String, BitSet> sizes = new HashMap<>();
+        private final BitSet[] priceBuckets = new BitSet[ProductFilter.PRICE_BUCKET_LIMITS.length + 1];
+        // Sorted by key, so labels come out in a stable alphabetical order
+        private final SortedMap<String, String> brandLabels = new TreeMap<>();
+        private final SortedMap<String, String> colorLabels = new TreeMap<>();
+        private final SortedMap<String, String> sizeLabels = new TreeMap<>();
+        // Docs with a price, ascending, for arbitrary min/max ranges
+        private final int[] byPrice;
+        private final long[] sortedPrices;
+        private final Map<ProductSort, int[]> orders = new EnumMap<>(ProductSort.class);
+        private final Map<ProductSort, Comparable<?>[]> sortKeys = new EnumMap<>(ProductSort.class);
+        private final Map<ProductSort, String[]> cursorKeys = new EnumMap<>(ProductSort.class);
+        private final LocalDateTime builtAt = LocalDateTime.now();
+
+        Snapshot(List<Product> activeProducts, List<Category> allCategories) {
+            Product[] products = activeProducts.toArray(new Product[0]);
+            cards = new ProductCard[products.length];
+            categoryList = List.copyOf(allCategories);
+            for (int i = 0; i < priceBuckets.length; i++) {
+                priceBuckets[i] = new BitSet(products.length);
+            }
+
+            for (int doc = 0; doc < products.length; doc++) {
+                Product product = products[doc];
+                cards[doc] = ProductCard.of(product);
+                docs.put(product.getProductId(), doc);
+                if (product.getCategoryId() != null) {
+                    categories.computeIfAbsent(product.getCategoryId(), k -> new BitSet()).set(doc);
+                }
+                if (product.getGender() != null) {
+                    genders.computeIfAbsent(product.getGender(), k -> new BitSet()).set(doc);
+                }
+                if (product.getSeason() != null) {
+                    seasons.computeIfAbsent(product.getSeason(), k -> new BitSet()).set(doc);
+                }
+                addValues(brands, brandLabels, product.getBrand(), doc, false);
+                addValues(colors, colorLabels, product.getColor(), doc, true);
+                addValues(sizes, sizeLabels, product.getSize(), doc, true);
+                int bucket = ProductFilter.priceBucket(product.getPrice());
+                if (bucket >= 0) {
+                    priceBuckets[bucket].set(doc);
+                }
+            }
+
+            for (ProductSort sort : ProductSort.values()) {
+                if (sort == ProductSort.RELEVANCE) {
+                    continue;
+                }
+                Comparable<?>[] keys = new Comparable<?>[products.length];
+                String[] rawKeys = new String[products.length];
+                for (int doc = 0; doc < products.length; doc++) {
+                    rawKeys[doc] = sort.cursorKey(products[doc]);
+                    keys[doc] = sort.parseKey(rawKeys[doc]);
+                }
+                sortKeys.put(sort, keys);
+                cursorKeys.put(sort, rawKeys);
+
+                Integer[] sorted = new Integer[products.length];
+                for (int doc = 0; doc < sorted.length; doc++) {
+                    sorted[doc] = doc;
+                }
+                Arrays.sort(sorted, (a, b) -> compare(sort, keys[a], products[a].getProductId(),
+                        keys[b], products[b].getProductId()));
+                int[] order = new int[sorted.length];
+                for (int i = 0; i < sorted.length; i++) {
+                    order[i] = sorted[i];
+                }
+                orders.put(sort, order);
+            }
+
+            byPrice = orders.get(ProductSort.PRICE_ASC);
+            int priced = 0;
+            while (priced < byPrice.length && products[byPrice[priced]].getPrice() != null) {
+                priced++;
+            }
+            sortedPrices = new long[priced];
+            for (int i = 0; i < priced; i++) {
+                sortedPrices[i] = products[byPrice[i]].getPrice().longValue();
+            }
+        }
+
+        // Position of the first doc that sorts strictly after the cursor
+        int seek(ProductSort sort, ProductCursor cursor) {
+            int[] order = orders.get(sort);
+            Comparable<?>[] keys = sortKeys.get(sort);
+            Comparable<?> cursorKey = sort.parseKey(cursor.getKey());
+            int low = 0;
+            int high = order.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int doc = order[mid];
+                if (compare(sort, keys[doc], cards[doc].getProductId(), cursorKey, cursor.getProductId()) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // Sort key in the order's direction with nulls last, then product id in the same direction
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private static int compare(ProductSort sort, Comparable keyA, long idA, Comparable keyB, long idB) {
+            int result;
+            if (keyA == null || keyB == null) {
+                result = keyA == keyB ? 0 : (keyA == null ? 1 : -1);
+            } else {
+                result = sort.isDescending() ? keyB.compareTo(keyA) : keyA.compareTo(keyB);
+            }
+            if (result != 0) {
+                return result;
+            }
+            return sort.isDescending() ? Long.compare(idB, idA) : Long.compare(idA, idB);
+        }
+
+        Selection select(ProductFilter filter, List<Long> restrictTo) {
+            BitSet base = new BitSet(cards.length);
+            if (restrictTo != null) {
+                for (Long productId : restrictTo) {
+                    Integer doc = docs.get(productId);
+                    if (doc != null) {
+                        base.set(doc);
+                    }
+                }
+            } else {
+                base.set(0, cards.length);
+            }
+            if (filter.getMinPrice() != null || filter.getMaxPrice() != null) {
+                base.and(priceRange(filter.getMinPrice(), filter.getMaxPrice()));
+            }
+
+            BitSet[] facets = new BitSet[FACET_COUNT];
+            facets[FACET_CATEGORY] = union(categories, filter.getCategoryIds());
+            facets[FACET_GENDER] = union(genders, filter.getGenders());
+            facets[FACET_SEASON] = union(seasons, filter.getSeasons());
+            facets[FACET_BRAND] = union(brands, facetKeys(filter.getBrands()));
+            facets[FACET_COLOR] = union(colors, facetKeys(filter.getColors()));
+            facets[FACET_SIZE] = union(sizes, facetKeys(filter.getSizes()));
+
+            if (!filter.getPriceBuckets().isEmpty()) {
+                BitSet buckets = new BitSet(cards.length);
+                for (Integer bucket : filter.getPriceBuckets()) {
+                    if (bucket != null && bucket >= 0 && bucket < priceBuckets.length) {
+                        buckets.or(priceBuckets[bucket]);
+                    }
+                }
+                facets[FACET_PRICE_BUCKET] = buckets;
+            }
+            return new Selection(base, facets);
+        }
+
+        // Docs with min <= price <= max
+        private BitSet priceRange(BigDecimal min, BigDecimal max) {
+            int from = min != null ? lowerBound(min.setScale(0, RoundingMode.CEILING).longValue()) : 0;
+            int to = max != null ? lowerBound(max.setScale(0, RoundingMode.FLOOR).longValue() + 1)
+                    : sortedPrices.length;
+            BitSet range = new BitSet(cards.length);
+            for (int i = from; i < to; i++) {
+                range.set(byPrice[i]);
+            }
+            return range;
+        }
+
+        // First index whose price is >= value
+        private int lowerBound(long value) {
+            int low = 0;
+            int high = sortedPrices.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sortedPrices[mid] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private static void addValues(Map<String, BitSet> bitmaps, Map<String, String> labels, String value,
+                int doc, boolean multiValued) {
+            if (value == null || value.isBlank()) {
+                return;
+            }
+            String[] values = multiValued ? value.split(",") : new String[] { value };
+            for (String single : values) {
+                if (single.isBlank()) {
+                    continue;
+                }
+                String key = facetKey(single);
+                bitmaps.computeIfAbsent(key, k -> new BitSet()).set(doc);
+                labels.putIfAbsent(key, single.trim());
+            }
+        }
+
+        // OR of the bitmaps of the given values, or null when the facet is unrestricted
+        private static <K> BitSet union(Map<K, BitSet> bitmaps, List<K> values) {
+            if (values.isEmpty()) {
+                return null;
+            }
+            BitSet union = new BitSet();
+            for (K value : values) {
+                BitSet bitmap = value != null ? bitmaps.get(value) : null;
+                if (bitmap != null) {
+                    union.or(bitmap);
+                }
+            }
+            return union;
+        }
+
+        private static List<String> facetKeys(List<String> values) {
+            List<String> keys = new ArrayList<>(values.size());
+            for (String value : values) {
+                if (value != null && !value.isBlank()) {
+                    keys.add(facetKey(value));
+                }
+            }
+            return keys;
+        }
+    }
+
+    /**
+     * Per-facet bitmaps of one filter; null slots are unrestricted
+     */
+    private static class Selection {
+        private final BitSet base;
+        private final BitSet[] facets;
+
+        Selection(BitSet base, BitSet[] facets) {
+            this.base = base;
+            this.facets = facets;
+        }
+
+        BitSet matches() {
+            return excluding(-1, null);
+        }
+
+        // Docs matching every facet except the given one
+        BitSet excluding(int facet, BitSet matches) {
+            if (matches != null && (facet < 0 || facets[facet] == null)) {
+                return matches;
+            }
+            BitSet result = (BitSet) base.clone();
+            for (int i = 0; i < facets.length; i++) {
+                if (i != facet && facets[i] != null) {
+                    result.and(facets[i]);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Filtered products and facet value counts
+     */
+    public static class FacetResult {
+        private List<ProductCard> products = List.of();
+        private int totalMatches;
+        private ProductCursor nextCursor;
+        private final Map<Long, Integer> categoryCounts = new HashMap<>();
+        private final Map<Product.Gender, Integer> genderCounts = new EnumMap<>(Product.Gender.class);
+        private final Map<Product.Season, Integer> seasonCounts = new EnumMap<>(Product.Season.class);
+        private final Map<String, Integer> brandCounts = new LinkedHashMap<>();
+        private final Map<String, Integer> colorCounts = new LinkedHashMap<>();
+        private final Map<String, Integer> sizeCounts = new LinkedHashMap<>();
+        private final Map<Integer, Integer> priceBucketCounts = new LinkedHashMap<>();
+
+        public List<ProductCard> getProducts() {
+            return products;
+        }
+
+        public int getTotalMatches() {
+            return totalMatches;
+        }
+
+        /**
+         * Cursor of the next page, null on the last page
+         */
+        public ProductCursor getNextCursor() {
+            return nextCursor;
+        }
+
+        public Map<Long, Integer> getCategoryCounts() {
+            return categoryCounts;
+        }
+
+        public Map<Product.Gender, Integer> getGenderCounts() {
+            return genderCounts;
+        }
+
+        public Map<Product.Season, Integer> getSeasonCounts() {
+            return seasonCounts;
+        }
+
+        public Map<String, Integer> getBrandCounts() {
+            return brandCounts;
+        }
+
+        public Map<String, Integer> getColorCounts() {
+            return colorCounts;
+        }
+
+        public Map<String, Integer> getSizeCounts() {
+            return sizeCounts;
+        }
+
+        public Map<Integer, Integer> getPriceBucketCounts() {
+            return priceBucketCounts;
+        }
+    }
+}
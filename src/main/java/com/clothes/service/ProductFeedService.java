@@ -0,0 +1,213 @@
+package com.clothes.service;
+
+import com.clothes.dao.ProductDAO;
+import com.clothes.model.Category;
+import com.clothes.model.CategoryTree;
+import com.clothes.model.Product;
+import com.clothes.util.CsvWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Full catalog feed for marketplaces and price comparison sites, as CSV or XML
+ * Products are read in keyset batches and written straight to the output, so memory use does
+ * not depend on the catalog size and no database connection is held while the client reads.
+ */
+@Service
+public class ProductFeedService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductFeedService.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String[] CSV_HEADER = { "id", "sku", "title", "description", "link", "image_link",
+            "price", "sale_price", "availability", "brand", "product_type", "color", "size", "material", "gender" };
+
+    private final ProductDAO productDAO;
+    private final CategoryService categoryService;
+
+    public ProductFeedService(ProductDAO productDAO, CategoryService categoryService) {
+        this.productDAO = productDAO;
+        this.categoryService = categoryService;
+    }
+
+    /**
+     * Version of the feed content: changes whenever a product or category changes
+     */
+    public FeedVersion getVersion() {
+        Map<String, Object> catalog = productDAO.findCatalogVersion();
+        Number activeCount = (Number) catalog.get("active_count");
+        Object lastUpdated = catalog.get("last_updated");
+        long lastModified = lastUpdated instanceof Timestamp timestamp ? timestamp.getTime()
+                : lastUpdated instanceof LocalDateTime dateTime
+                        ? Timestamp.valueOf(dateTime).getTime()
+                        : 0L;
+
+        // Category names end up in product_type, so renames change the feed too
+        int categoryHash = 1;
+        for (Category category : categoryService.getAllCategories()) {
+            categoryHash = 31 * categoryHash + (category.getCategoryId() + ":" + category.getCategoryName()).hashCode();
+        }
+        String etag = "\"feed-" + Long.toHexString(lastModified) + "-"
+                + (activeCount != null ? activeCount.longValue() : 0) + "-"
+                + Integer.toHexString(categoryHash) + "\"";
+        return new FeedVersion(etag, lastModified);
+    }
+
+    public void writeCsv(OutputStream output, String baseUrl) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        CsvWriter csv = new CsvWriter(writer);
+        CategoryTree tree = categoryService.getCategoryTree();
+        csv.writeRecord((Object[]) CSV_HEADER);
+        int[] count = { 0 };
+        try {
+            productDAO.streamActive(BATCH_SIZE, product -> {
+                try {
+                    csv.writeRecord(fields(product, tree, baseUrl).toArray());
+                    count[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        csv.flush();
+        logger.debug("Wrote CSV feed of {} products", count[0]);
+    }
+
+    public void writeXml(OutputStream output, String baseUrl) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        CategoryTree tree = categoryService.getCategoryTree();
+        int[] count = { 0 };
+        try {
+            XMLStreamWriter xml = XMLOutputFactory.newInstance().createXMLStreamWriter(writer);
+            xml.writeStartDocument("UTF-8", "1.0");
+            xml.writeStartElement("products");
+            productDAO.streamActive(BATCH_SIZE, product -> {
+                try {
+                    List<Object> values = fields(product, tree, baseUrl);
+                    xml.writeStartElement("product");
+                    for (int i = 0; i < CSV_HEADER.length; i++) {
+                        if (values.get(i) != null) {
+                            xml.writeStartElement(CSV_HEADER[i]);
+                            xml.writeCharacters(xmlSafe(values.get(i).toString()));
+                            xml.writeEndElement();
+                        }
+                    }
+                    xml.writeEndElement();
+                    count[0]++;
+                } catch (XMLStreamException e) {
+                    throw new UncheckedIOException(new IOException(e));
+                }
+            });
+            xml.writeEndElement();
+            xml.writeEndDocument();
+            xml.flush();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        logger.debug("Wrote XML feed of {} products", count[0]);
+    }
+
+    // One product's values, in CSV_HEADER order
+    private static List<Object> fields(Product product, CategoryTree tree, String baseUrl) {
+        String imageUrl = product.getImageUrl();
+        if (imageUrl != null && imageUrl.startsWith("/")) {
+            imageUrl = baseUrl + imageUrl;
+        }
+        BigDecimal salePrice = product.getDiscountPrice() != null
+                && product.getDiscountPrice().compareTo(product.getPrice()) < 0 ? product.getDiscountPrice() : null;
+        int stock = product.getStockQuantity() != null ? product.getStockQuantity() : 0;
+
+        List<Object> values = new ArrayList<>(CSV_HEADER.length);
+        values.add(product.getProductId());
+        values.add(product.getSku());
+        values.add(product.getProductName());
+        values.add(product.getDescription());
+        values.add(baseUrl + "/products/" + product.getProductId());
+        values.add(imageUrl);
+        values.add(product.getPrice() != null ? product.getPrice().toPlainString() + " VND" : null);
+        values.add(salePrice != null ? salePrice.toPlainString() + " VND" : null);
+        values.add(stock > 0 ? "in_stock" : "out_of_stock");
+        values.add(product.getBrand());
+        values.add(productType(product.getCategoryId(), tree));
+        values.add(product.getColor());
+        values.add(product.getSize());
+        values.add(product.getMaterial());
+        values.add(product.getGender() != null ? product.getGender().getValue() : null);
+        return values;
+    }
+
+    // Drops control characters XML 1.0 cannot carry, even escaped
+    private static String xmlSafe(String value) {
+        StringBuilder safe = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            boolean allowed = c >= 0x20 || c == '\t' || c == '\n' || c == '\r';
+            if (!allowed && safe == null) {
+                safe = new StringBuilder(value.length()).append(value, 0, i);
+            } else if (allowed && safe != null) {
+                safe.append(c);
+            }
+        }
+        return safe != null ? safe.toString() : value;
+    }
+
+    // Category path from the root, e.g. "Nam > Áo > Áo khoác"
+    private static String productType(Long categoryId, CategoryTree tree) {
+        Optional<Category> category = tree.find(categoryId);
+        if (category.isEmpty()) {
+            return null;
+        }
+        StringBuilder path = new StringBuilder(category.get().getCategoryName());
+        for (Category parent = category.get().getParentCategory(); parent != null;
+                parent = parent.getParentCategory()) {
+            path.insert(0, parent.getCategoryName() + " > ");
+        }
+        return path.toString();
+    }
+
+    /**
+     * Validator for conditional GET
+     */
+    public static class FeedVersion {
+        private final String etag;
+        private final long lastModified;
+
+        FeedVersion(String etag, long lastModified) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+}
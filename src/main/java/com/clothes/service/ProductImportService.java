@@ -0,0 +1,526 @@
+package com.clothes.service;
+
+import com.clothes.dao.ProductDAO;
+import com.clothes.event.ProductChangedEvent;
+import com.clothes.model.Category;
+import com.clothes.model.CategoryTree;
+import com.clothes.model.Product;
+import com.clothes.util.CsvReader;
+import com.clothes.util.TextNormalizer;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Streaming bulk import of products from CSV or JSON
+ * Rows are read one at a time, validated, and upserted on their SKU in multi-row statements,
+ * one transaction per chunk. A chunk that fails in the database is retried row by row so a
+ * bad row only fails itself. Memory stays flat: only the current chunk and a capped list of
+ * row errors are held. Caches and indexes are told once, when the import ends, and reload
+ * in one pass instead of once per chunk.
+ *
+ * Fields are the products table's column names (product_name, price, ...); "category" takes a
+ * category id, slug or name. Columns left out of the file keep their current values on update.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+
+    private static final int MAX_REPORTED_ERRORS = 500;
+    private static final String CATEGORY_FIELD = "category";
+    // Marks a CSV row with more values than the header has columns
+    private static final String EXTRA_FIELD = "#extra";
+    private static final Map<String, Integer> MAX_LENGTHS = Map.of(
+            "sku", 100, "product_name", 255, "image_url", 500, "brand", 100,
+            "color", 50, "size", 50, "material", 100);
+
+    private final ProductDAO productDAO;
+    private final CategoryService categoryService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+
+    public ProductImportService(ProductDAO productDAO, CategoryService categoryService,
+            TransactionTemplate transactionTemplate, ApplicationEventPublisher eventPublisher,
+            @Value("${product.import.chunk-size:500}") int chunkSize) {
+        this.productDAO = productDAO;
+        this.categoryService = categoryService;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Import a CSV file with a header row
+     */
+    public ImportResult importCsv(InputStream input) throws IOException {
+        try (CsvReader reader = new CsvReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            List<String> header = reader.next();
+            if (header == null) {
+                return new ImportResult();
+            }
+            List<String> fields = header.stream().map(ProductImportService::fieldName).toList();
+            return run(new RowSource() {
+                @Override
+                public Map<String, String> next() throws IOException {
+                    List<String> values = reader.next();
+                    if (values == null) {
+                        return null;
+                    }
+                    Map<String, String> row = new HashMap<>();
+                    for (int i = 0; i < fields.size() && i < values.size(); i++) {
+                        row.put(fields.get(i), values.get(i));
+                    }
+                    if (values.size() > fields.size()) {
+                        row.put(EXTRA_FIELD, "");
+                    }
+                    return row;
+                }
+
+                @Override
+                public int line() {
+                    return reader.getLineNumber();
+                }
+            }, new LinkedHashSet<>(fields));
+        }
+    }
+
+    /**
+     * Import a JSON array of objects, or a stream of concatenated objects
+     * The fields of the first object decide which columns are written.
+     */
+    public ImportResult importJson(InputStream input) throws IOException {
+        try (JsonParser parser = new JsonFactory().createParser(input)) {
+            JsonToken first = parser.nextToken();
+            if (first == null) {
+                return new ImportResult();
+            }
+            boolean array = first == JsonToken.START_ARRAY;
+            if (!array && first != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON array or object");
+            }
+            Map<String, String> firstRow = readObject(parser, array ? parser.nextToken() : first);
+            if (firstRow == null) {
+                return new ImportResult();
+            }
+            int[] rowNumber = { 1 };
+            return run(new RowSource() {
+                private Map<String, String> pending = firstRow;
+
+                @Override
+                public Map<String, String> next() throws IOException {
+                    if (pending != null) {
+                        Map<String, String> row = pending;
+                        pending = null;
+                        return row;
+                    }
+                    JsonToken token = parser.nextToken();
+                    if (token == null || (array && token == JsonToken.END_ARRAY)) {
+                        return null;
+                    }
+                    rowNumber[0]++;
+                    return readObject(parser, token);
+                }
+
+                @Override
+                public int line() {
+                    return rowNumber[0];
+                }
+            }, new LinkedHashSet<>(firstRow.keySet()));
+        }
+    }
+
+    private ImportResult run(RowSource source, Set<String> fields) throws IOException {
+        long startTime = System.currentTimeMillis();
+        ImportResult result = new ImportResult();
+        if (!fields.contains("sku")) {
+            result.addError(0, null, "Thiếu cột sku");
+            return result;
+        }
+        Set<String> updateColumns = new LinkedHashSet<>();
+        for (String field : fields) {
+            if (field.equals(CATEGORY_FIELD)) {
+                updateColumns.add("category_id");
+            } else if (ProductDAO.UPSERT_COLUMNS.contains(field)) {
+                updateColumns.add(field);
+            }
+        }
+        Map<String, Long> categoryIds = categoryLookup(categoryService.getCategoryTree());
+
+        try {
+            readRows(source, fields, updateColumns, categoryIds, result);
+        } finally {
+            // Chunks commit on their own, so whatever landed is announced even if reading failed
+            if (result.created + result.updated > 0) {
+                eventPublisher.publishEvent(ProductChangedEvent.reloaded());
+            }
+        }
+
+        result.elapsedMillis = System.currentTimeMillis() - startTime;
+        logger.info("Product import: {} rows, {} created, {} updated, {} failed in {} ms",
+                result.rows, result.created, result.updated, result.failed, result.elapsedMillis);
+        return result;
+    }
+
+    private void readRows(RowSource source, Set<String> fields, Set<String> updateColumns,
+            Map<String, Long> categoryIds, ImportResult result) throws IOException {
+        // SKUs compare like the column's case-insensitive collation
+        Map<String, Row> chunk = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        Map<String, String> values;
+        while ((values = source.next()) != null) {
+            int line = source.line();
+            result.rows++;
+            Product product;
+            try {
+                product = toProduct(values, fields, categoryIds);
+            } catch (IllegalArgumentException e) {
+                result.addError(line, values.get("sku"), e.getMessage());
+                continue;
+            }
+            if (chunk.containsKey(product.getSku())) {
+                // The same SKU twice in one statement would hide the first row; let it land first
+                writeChunk(new ArrayList<>(chunk.values()), updateColumns, result);
+                chunk.clear();
+            }
+            chunk.put(product.getSku(), new Row(line, product));
+            if (chunk.size() >= chunkSize) {
+                writeChunk(new ArrayList<>(chunk.values()), updateColumns, result);
+                chunk.clear();
+            }
+        }
+        writeChunk(new ArrayList<>(chunk.values()), updateColumns, result);
+    }
+
+    private void writeChunk(List<Row> rows, Set<String> updateColumns, ImportResult result) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            int[] counts = transactionTemplate.execute(status -> upsert(rows, updateColumns));
+            result.created += counts[0];
+            result.updated += counts[1];
+        } catch (Exception e) {
+            if (rows.size() == 1) {
+                Row row = rows.get(0);
+                result.addError(row.line, row.product.getSku(), rootMessage(e));
+                return;
+            }
+            logger.warn("Import chunk of {} rows failed, retrying row by row: {}", rows.size(), rootMessage(e));
+            for (Row row : rows) {
+                writeChunk(List.of(row), updateColumns, result);
+            }
+        }
+    }
+
+    // Runs inside the chunk transaction; returns {created, updated}
+    private int[] upsert(List<Row> rows, Set<String> updateColumns) {
+        List<String> skus = rows.stream().map(row -> row.product.getSku()).toList();
+        Set<String> existing = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        existing.addAll(productDAO.findIdsBySkus(skus).keySet());
+
+        productDAO.upsertBySku(rows.stream().map(row -> row.product).toList(), updateColumns);
+
+        int updated = (int) skus.stream().filter(existing::contains).count();
+        return new int[] { rows.size() - updated, updated };
+    }
+
+    private Product toProduct(Map<String, String> values, Set<String> fields, Map<String, Long> categoryIds) {
+        if (values.containsKey(EXTRA_FIELD)) {
+            throw new IllegalArgumentException("Dòng có nhiều cột hơn tiêu đề");
+        }
+        for (String field : values.keySet()) {
+            if (!fields.contains(field)) {
+                throw new IllegalArgumentException("Trường không có ở dòng đầu: " + field);
+            }
+        }
+        for (Map.Entry<String, Integer> limit : MAX_LENGTHS.entrySet()) {
+            String value = text(values, limit.getKey());
+            if (value != null && value.length() > limit.getValue()) {
+                throw new IllegalArgumentException(limit.getKey() + " dài quá " + limit.getValue() + " ký tự");
+            }
+        }
+
+        Product product = new Product();
+        product.setSku(text(values, "sku"));
+        if (product.getSku() == null) {
+            throw new IllegalArgumentException("Thiếu sku");
+        }
+        product.setProductName(text(values, "product_name"));
+        if (product.getProductName() == null) {
+            throw new IllegalArgumentException("Thiếu product_name");
+        }
+        product.setPrice(decimal(values, "price"));
+        if (product.getPrice() == null) {
+            throw new IllegalArgumentException("Thiếu price");
+        }
+        product.setDiscountPrice(decimal(values, "discount_price"));
+        if (product.getDiscountPrice() != null && product.getDiscountPrice().compareTo(product.getPrice()) > 0) {
+            throw new IllegalArgumentException("discount_price lớn hơn price");
+        }
+        Integer stock = integer(values, "stock_quantity");
+        product.setStockQuantity(stock != null ? stock : 0);
+
+        String category = text(values, CATEGORY_FIELD);
+        if (category == null) {
+            category = text(values, "category_id");
+        }
+        if (category != null) {
+            Long categoryId = categoryIds.get(TextNormalizer.fold(category));
+            if (categoryId == null) {
+                throw new IllegalArgumentException("Không tìm thấy danh mục: " + category);
+            }
+            product.setCategoryId(categoryId);
+        }
+
+        product.setDescription(text(values, "description"));
+        product.setImageUrl(text(values, "image_url"));
+        product.setBrand(text(values, "brand"));
+        product.setColor(text(values, "color"));
+        product.setSize(text(values, "size"));
+        product.setMaterial(text(values, "material"));
+        String gender = text(values, "gender");
+        product.setGender(gender != null ? parseGender(gender) : Product.Gender.UNISEX);
+        String season = text(values, "season");
+        product.setSeason(season != null ? parseSeason(season) : Product.Season.ALL_SEASON);
+        String active = text(values, "is_active");
+        product.setIsActive(active == null || parseBoolean(active));
+        return product;
+    }
+
+    // Folded id, slug and name of every category -> id
+    private static Map<String, Long> categoryLookup(CategoryTree tree) {
+        Map<String, Long> lookup = new HashMap<>();
+        for (Category category : tree.getCategories()) {
+            lookup.putIfAbsent(TextNormalizer.fold(category.getCategoryName()), category.getCategoryId());
+            if (category.getSlug() != null) {
+                lookup.putIfAbsent(TextNormalizer.fold(category.getSlug()), category.getCategoryId());
+            }
+        }
+        // Ids win over names that happen to be numeric
+        for (Category category : tree.getCategories()) {
+            lookup.put(String.valueOf(category.getCategoryId()), category.getCategoryId());
+        }
+        return lookup;
+    }
+
+    // Header or JSON key -> column name: "Product Name", "productName" and "product_name" all match
+    private static String fieldName(String header) {
+        String compact = header.trim().replaceAll("([a-z])([A-Z])", "$1_$2")
+                .toLowerCase(Locale.ROOT).replaceAll("[\\s_-]+", "_");
+        return compact.equals("name") ? "product_name" : compact;
+    }
+
+    private static String text(Map<String, String> values, String field) {
+        String value = values.get(field);
+        if (value == null) {
+            return null;
+        }
+        value = value.trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static BigDecimal decimal(Map<String, String> values, String field) {
+        String value = text(values, field);
+        if (value == null) {
+            return null;
+        }
+        try {
+            BigDecimal number = new BigDecimal(value);
+            if (number.signum() < 0 || number.precision() - number.scale() > 13 || number.scale() > 2) {
+                throw new IllegalArgumentException(field + " không hợp lệ: " + value);
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " không phải là số: " + value);
+        }
+    }
+
+    private static Integer integer(Map<String, String> values, String field) {
+        String value = text(values, field);
+        if (value == null) {
+            return null;
+        }
+        try {
+            int number = Integer.parseInt(value);
+            if (number < 0) {
+                throw new IllegalArgumentException(field + " không được âm: " + value);
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " không phải là số nguyên: " + value);
+        }
+    }
+
+    private static boolean parseBoolean(String value) {
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "true", "1", "yes", "y", "co", "có":
+                return true;
+            case "false", "0", "no", "n", "khong", "không":
+                return false;
+            default:
+                throw new IllegalArgumentException("is_active không hợp lệ: " + value);
+        }
+    }
+
+    // Strict counterparts of Gender.fromValue / Season.fromValue, which map unknown text to the default
+    private static Product.Gender parseGender(String value) {
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "male", "nam":
+                return Product.Gender.MALE;
+            case "female", "nu":
+                return Product.Gender.FEMALE;
+            case "unisex":
+                return Product.Gender.UNISEX;
+            case "kids", "tre-em", "tre_em":
+                return Product.Gender.KIDS;
+            default:
+                throw new IllegalArgumentException("gender không hợp lệ: " + value);
+        }
+    }
+
+    private static Product.Season parseSeason(String value) {
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "spring":
+                return Product.Season.SPRING;
+            case "summer":
+                return Product.Season.SUMMER;
+            case "fall", "autumn":
+                return Product.Season.FALL;
+            case "winter":
+                return Product.Season.WINTER;
+            case "all_season", "all":
+                return Product.Season.ALL_SEASON;
+            default:
+                throw new IllegalArgumentException("season không hợp lệ: " + value);
+        }
+    }
+
+    // One JSON object as field -> text; arrays of scalars are joined with commas
+    private static Map<String, String> readObject(JsonParser parser, JsonToken token) throws IOException {
+        if (token == null || token == JsonToken.END_ARRAY) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a JSON object at " + parser.currentLocation());
+        }
+        Map<String, String> row = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = fieldName(parser.currentName());
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.START_ARRAY) {
+                List<String> items = new ArrayList<>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (parser.currentToken().isStructStart()) {
+                        throw new IOException("Nested value in field " + field + " at " + parser.currentLocation());
+                    }
+                    items.add(parser.getValueAsString());
+                }
+                row.put(field, String.join(",", items));
+            } else if (value == JsonToken.START_OBJECT) {
+                throw new IOException("Nested object in field " + field + " at " + parser.currentLocation());
+            } else {
+                row.put(field, value == JsonToken.VALUE_NULL ? null : parser.getValueAsString());
+            }
+        }
+        return row;
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+    }
+
+    private interface RowSource {
+        /** Next row as field -> raw text, or null at the end */
+        Map<String, String> next() throws IOException;
+
+        /** Line (CSV) or object number (JSON) of the last row */
+        int line();
+    }
+
+    private static class Row {
+        private final int line;
+        private final Product product;
+
+        Row(int line, Product product) {
+            this.line = line;
+            this.product = product;
+        }
+    }
+
+    /**
+     * Outcome of one import
+     */
+    public static class ImportResult {
+        private int rows;
+        private int created;
+        private int updated;
+        private int failed;
+        private long elapsedMillis;
+        private final List<Map<String, Object>> errors = new ArrayList<>();
+
+        void addError(int line, String sku, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                Map<String, Object> error = new LinkedHashMap<>();
+                error.put("line", line);
+                error.put("sku", sku);
+                error.put("message", message);
+                errors.add(error);
+            }
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public int getCreated() {
+            return created;
+        }
+
+        public int getUpdated() {
+            return updated;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * The first row errors; getFailed() has the full count
+         */
+        public List<Map<String, Object>> getErrors() {
+            return errors;
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.clothes.service;
+
+import com.clothes.dao.ProductDAO;
+import com.clothes.event.ProductChangedEvent;
+import com.clothes.model.Product;
+import com.clothes.util.TextNormalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over active products for keyword search
+ * Indexes name, brand, material and description after diacritic folding, scores with BM25
+ * (field-weighted term frequencies) and is kept up to date from ProductChangedEvent.
+ * Until the first build finishes, searches fall back to ProductDAO.search.
+ */
+@Service
+public class ProductSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    // BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Term frequency weight per field
+    private static final float WEIGHT_NAME = 3.0f;
+    private static final float WEIGHT_BRAND = 2.0f;
+    private static final float WEIGHT_MATERIAL = 1.5f;
+    private static final float WEIGHT_DESCRIPTION = 1.0f;
+
+    // The last query token also matches longer terms ("ao kho" -> "khoac"), at a discount
+    private static final int PREFIX_EXPANSIONS = 20;
+    private static final double PREFIX_MATCH_FACTOR = 0.8;
+
+    private final ProductDAO productDAO;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private TreeMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private Map<Long, Map<String, Float>> documents = new HashMap<>();
+    private Map<Long, Float> documentLengths = new HashMap<>();
+    private double totalLength;
+    private volatile boolean ready;
+    // While a rebuild loads the catalog: changes applied meanwhile (null = removed), replayed
+    // onto the new index so the load does not undo them. Guarded by the write lock.
+    private Map<Long, Product> changedDuringRebuild;
+
+    public ProductSearchIndex(ProductDAO productDAO) {
+        this.productDAO = productDAO;
+    }
+
+    /**
+     * Build the index from all active products
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long startTime = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<Product> products;
+        try {
+            products = productDAO.findAllActive();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            postings = new TreeMap<>();
+            documents = new HashMap<>();
+            documentLengths = new HashMap<>();
+            totalLength = 0;
+            for (Product product : products) {
+                add(product);
+            }
+            for (Map.Entry<Long, Product> change : changedDuringRebuild.entrySet()) {
+                delete(change.getKey());
+                if (change.getValue() != null) {
+                    add(change.getValue());
+                }
+            }
+            changedDuringRebuild = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        logger.info("Product search index built: {} products, {} terms in {} ms",
+                products.size(), postings.size(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Re-index products after they were saved or deleted (after commit)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getChangeType() == ProductChangedEvent.ChangeType.RELOADED) {
+            rebuild();
+            return;
+        }
+        for (Long productId : event.getProductIds()) {
+            if (event.getChangeType() == ProductChangedEvent.ChangeType.DELETED) {
+                remove(productId);
+            } else {
+                Optional<Product> product = productDAO.findById(productId);
+                if (product.isPresent() && Boolean.TRUE.equals(product.get().getIsActive())) {
+                    index(product.get());
+                } else {
+                    remove(productId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add or replace a product in the index
+     */
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            delete(product.getProductId());
+            add(product);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.put(product.getProductId(), product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            delete(productId);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.put(productId, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Search and load products, best match first
+     */
+    public List<Product> searchProducts(String query, int limit) {
+        if (!ready) {
+            return productDAO.search(query, limit);
+        }
+        List<Long> ids = search(query, limit);
+        return productDAO.findByIdsOrdered(ids);
+    }
+
+    /**
+     * Ids of matching products, best match first
+     * Products containing every query term rank above partial matches; if any product
+     * matches every term, partial matches are dropped.
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(TextNormalizer.tokenize(query)));
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        if (tokens.size() > 31) {
+            tokens = tokens.subList(0, 31);
+        }
+
+        Map<Long, double[]> scores = new HashMap<>(); // [score, matched-token bitmask]
+
+        lock.readLock().lock();
+        try {
+            int docCount = documents.size();
+            if (docCount == 0) {
+                return List.of();
+            }
+            double avgLength = totalLength / docCount;
+
+            for (int i = 0; i < tokens.size(); i++) {
+                String token = tokens.get(i);
+                int bit = 1 << i;
+
+                Map<Long, Float> exact = postings.get(token);
+                if (exact != null) {
+                    scoreTerm(exact, 1.0, bit, docCount, avgLength, scores);
+                }
+
+                if (i == tokens.size() - 1 && token.length() >= 2) {
+                    int expansions = 0;
+                    for (Map.Entry<String, Map<Long, Float>> entry
+                            : postings.subMap(token, false, token + Character.MAX_VALUE, false).entrySet()) {
+                        scoreTerm(entry.getValue(), PREFIX_MATCH_FACTOR, bit, docCount, avgLength, scores);
+                        if (++expansions >= PREFIX_EXPANSIONS) {
+                            break;
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        int allTokens = (1 << tokens.size()) - 1;
+        boolean anyFullMatch = scores.values().stream().anyMatch(s -> (int) s[1] == allTokens);
+
+        List<Map.Entry<Long, double[]>> ranked = new ArrayList<>();
+        for (Map.Entry<Long, double[]> entry : scores.entrySet()) {
+            if (!anyFullMatch || (int) entry.getValue()[1] == allTokens) {
+                ranked.add(entry);
+            }
+        }
+        ranked.sort((e1, e2) -> {
+            int matched = Integer.compare(Integer.bitCount((int) e2.getValue()[1]),
+                    Integer.bitCount((int) e1.getValue()[1]));
+            return matched != 0 ? matched : Double.compare(e2.getValue()[0], e1.getValue()[0]);
+        });
+
+        List<Long> ids = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < Math.min(limit, ranked.size()); i++) {
+            ids.add(ranked.get(i).getKey());
+        }
+        return ids;
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("ready", ready);
+            stats.put("products", documents.size());
+            stats.put("terms", postings.size());
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void scoreTerm(Map<Long, Float> termPostings, double factor, int bit, int docCount,
+            double avgLength, Map<Long, double[]> scores) {
+        int df = termPostings.size();
+        double idf = Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+
+        for (Map.Entry<Long, Float> posting : termPostings.entrySet()) {
+            double tf = posting.getValue();
+            double length = documentLengths.getOrDefault(posting.getKey(), 0f);
+            double score = idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / avgLength));
+
+            double[] docScore = scores.computeIfAbsent(posting.getKey(), k -> new double[2]);
+            docScore[0] += factor * score;
+            docScore[1] = (int) docScore[1] | bit;
+        }
+    }
+
+    // Callers hold the write lock
+    private void add(Product product) {
+        Map<String, Float> terms = new HashMap<>();
+        float length = 0;
+        length += addField(terms, product.getProductName(), WEIGHT_NAME);
+        length += addField(terms, product.getBrand(), WEIGHT_BRAND);
+        length += addField(terms, product.getMaterial(), WEIGHT_MATERIAL);
+        length += addField(terms, product.getDescription(), WEIGHT_DESCRIPTION);
+
+        Long productId = product.getProductId();
+        for (Map.Entry<String, Float> term : terms.entrySet()) {
+            postings.computeIfAbsent(term.getKey(), k -> new HashMap<>()).put(productId, term.getValue());
+        }
+        documents.put(productId, terms);
+        documentLengths.put(productId, length);
+        totalLength += length;
+    }
+
+    // Callers hold the write lock
+    private void delete(Long productId) {
+        Map<String, Float> terms = documents.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms.keySet()) {
+            Map<Long, Float> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(productId);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        Float length = documentLengths.remove(productId);
+        if (length != null) {
+            totalLength -= length;
+        }
+    }
+
+    private static float addField(Map<String, Float> terms, String text, float weight) {
+        List<String> tokens = TextNormalizer.tokenize(text);
+        for (String token : tokens) {
+            terms.merge(token, weight, Float::sum);
+        }
+        return tokens.size() * weight;
+    }
+}
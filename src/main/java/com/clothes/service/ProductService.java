@@ -1,7 +1,9 @@
 package com.clothes.service;
 
 import com.clothes.dao.ProductDAO;
+import com.clothes.event.ProductChangedEvent;
 import com.clothes.model.Product;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,9 +19,11 @@ import java.util.Optional;
 public class ProductService {
 
     private final ProductDAO productDAO;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ProductService(ProductDAO productDAO) {
+    public ProductService(ProductDAO productDAO, ApplicationEventPublisher eventPublisher) {
         this.productDAO = productDAO;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<Product> getAllProducts() {
@@ -42,11 +46,13 @@ public class ProductService {
         } else {
             productDAO.update(product);
         }
+        eventPublisher.publishEvent(ProductChangedEvent.saved(product.getProductId()));
         return product;
     }
 
     public void deleteProduct(Long id) {
         productDAO.delete(id);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(List.of(id)));
     }
 
     public void toggleProductStatus(Long id) {
@@ -54,6 +60,7 @@ public class ProductService {
         product.ifPresent(p -> {
             p.setIsActive(!Boolean.TRUE.equals(p.getIsActive()));
             productDAO.update(p);
+            eventPublisher.publishEvent(ProductChangedEvent.saved(id));
         });
     }
 
@@ -66,13 +73,23 @@ public class ProductService {
             duplicate.setSku(duplicate.getSku() + "-COPY");
             Long newId = productDAO.save(duplicate);
             duplicate.setProductId(newId);
+            eventPublisher.publishEvent(ProductChangedEvent.saved(newId));
             return duplicate;
         }
         throw new RuntimeException("Product not found");
     }
 
+    public boolean updateStock(Long id, int stockQuantity) {
+        boolean updated = productDAO.updateStock(id, stockQuantity) > 0;
+        if (updated) {
+            eventPublisher.publishEvent(ProductChangedEvent.saved(id));
+        }
+        return updated;
+    }
+
     public void deleteMultiple(List<Long> ids) {
         ids.forEach(productDAO::delete);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(ids));
     }
 
     public int countProducts() {
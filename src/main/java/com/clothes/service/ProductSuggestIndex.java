@@ -0,0 +1,314 @@
+package com.clothes.service;
+
+import com.clothes.dao.CategoryDAO;
+import com.clothes.dao.ProductDAO;
+import com.clothes.event.CategoryChangedEvent;
+import com.clothes.event.ProductChangedEvent;
+import com.clothes.model.Category;
+import com.clothes.model.Product;
+import com.clothes.model.ProductCard;
+import com.clothes.util.PrefixTrie;
+import com.clothes.util.TextNormalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typeahead over product names, brands and categories
+ * Each kind has its own prefix trie ranked by popularity: products by their views and
+ * purchases, brands and categories by the summed popularity of their active products.
+ * Product changes are applied incrementally; category edits mark the tries stale for a
+ * rebuild shortly after, and a periodic rebuild picks up popularity drift.
+ */
+@Service
+public class ProductSuggestIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSuggestIndex.class);
+
+    private static final int TOP_SIZE = 10;
+
+    private final ProductDAO productDAO;
+    private final CategoryDAO categoryDAO;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Tries tries = new Tries();
+    private volatile boolean ready;
+    private volatile boolean stale;
+    // While a rebuild loads the catalog: changes applied meanwhile (null = removed), replayed
+    // onto the new tries so the load does not undo them. Guarded by the write lock.
+    private Map<Long, Product> changedDuringRebuild;
+
+    public ProductSuggestIndex(ProductDAO productDAO, CategoryDAO categoryDAO) {
+        this.productDAO = productDAO;
+        this.categoryDAO = categoryDAO;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        // Cleared before loading, so a category edit committed during the load marks it stale again
+        stale = false;
+        long startTime = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<Product> products;
+        List<Category> categories;
+        try {
+            products = productDAO.findAllActive();
+            categories = categoryDAO.findAll();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        Tries built = new Tries();
+        for (Category category : categories) {
+            if (!Boolean.FALSE.equals(category.getIsActive())) {
+                built.categoryNames.put(category.getCategoryId(), category.getCategoryName());
+                built.categories.put(category.getCategoryId(), category.getCategoryName(), 0, null);
+            }
+        }
+        for (Product product : products) {
+            built.add(product);
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<Long, Product> change : changedDuringRebuild.entrySet()) {
+                built.remove(change.getKey());
+                if (change.getValue() != null) {
+                    built.add(change.getValue());
+                }
+            }
+            changedDuringRebuild = null;
+            tries = built;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Product suggest index built: {} products, {} brands, {} categories in {} ms",
+                built.products.size(), built.brands.size(), built.categories.size(),
+                System.currentTimeMillis() - startTime);
+    }
+
+    @Scheduled(fixedDelayString = "${product.suggest.refresh-ms:600000}",
+            initialDelayString = "${product.suggest.refresh-ms:600000}")
+    public void refresh() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Error refreshing product suggest index", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${product.suggest.change-delay-ms:2000}")
+    public void rebuildIfStale() {
+        if (!stale) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            stale = true;
+            logger.error("Error rebuilding product suggest index after category changes", e);
+        }
+    }
+
+    /**
+     * Category names or hierarchy changed (after commit); picked up by the next rebuildIfStale
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        stale = true;
+    }
+
+    /**
+     * Re-index changed products (after commit)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getChangeType() == ProductChangedEvent.ChangeType.RELOADED) {
+            rebuild();
+            return;
+        }
+        for (Long productId : event.getProductIds()) {
+            Optional<Product> product = event.getChangeType() == ProductChangedEvent.ChangeType.DELETED
+                    ? Optional.empty()
+                    : productDAO.findById(productId);
+            Product active = product.filter(p -> Boolean.TRUE.equals(p.getIsActive())).orElse(null);
+            lock.writeLock().lock();
+            try {
+                tries.remove(productId);
+                if (active != null) {
+                    tries.add(active);
+                }
+                if (changedDuringRebuild != null) {
+                    changedDuringRebuild.put(productId, active);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Suggestions for a typed prefix, grouped by kind, most popular first
+     */
+    public Map<String, Object> suggest(String query, int limit) {
+        List<Map<String, Object>> productItems = new ArrayList<>();
+        List<Map<String, Object>> brandItems = new ArrayList<>();
+        List<Map<String, Object>> categoryItems = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            for (PrefixTrie.Entry<Long, ProductCard> entry : tries.products.complete(query, limit)) {
+                ProductCard card = entry.getValue();
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("productId", card.getProductId());
+                item.put("label", entry.getLabel());
+                item.put("imageUrl", card.getImageUrl());
+                item.put("price", card.getDiscountPrice() != null ? card.getDiscountPrice() : card.getPrice());
+                productItems.add(item);
+            }
+            for (PrefixTrie.Entry<String, Void> entry : tries.brands.complete(query, limit)) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("label", entry.getLabel());
+                brandItems.add(item);
+            }
+            for (PrefixTrie.Entry<Long, Void> entry : tries.categories.complete(query, limit)) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("categoryId", entry.getId());
+                item.put("label", entry.getLabel());
+                categoryItems.add(item);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("products", productItems);
+        result.put("brands", brandItems);
+        result.put("categories", categoryItems);
+        return result;
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("ready", ready);
+            stats.put("products", tries.products.size());
+            stats.put("brands", tries.brands.size());
+            stats.put("categories", tries.categories.size());
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long popularity(Product product) {
+        long purchases = product.getPurchaseCount() != null ? product.getPurchaseCount() : 0;
+        long views = product.getViewCount() != null ? product.getViewCount() : 0;
+        return 1 + purchases * 10 + views;
+    }
+
+    /**
+     * The three tries plus what each product contributes to its brand and category
+     * Guarded by the service's lock.
+     */
+    private static class Tries {
+        private final PrefixTrie<Long, ProductCard> products = new PrefixTrie<>(TOP_SIZE);
+        private final PrefixTrie<String, Void> brands = new PrefixTrie<>(TOP_SIZE);
+        private final PrefixTrie<Long, Void> categories = new PrefixTrie<>(TOP_SIZE);
+        private final Map<Long, String> categoryNames = new HashMap<>();
+        private final Map<Long, Contribution> contributions = new HashMap<>();
+        // Brand key -> [summed popularity, product count]
+        private final Map<String, long[]> brandTotals = new HashMap<>();
+        private final Map<String, String> brandLabels = new HashMap<>();
+        private final Map<Long, Long> categoryTotals = new HashMap<>();
+
+        void add(Product product) {
+            long weight = popularity(product);
+            products.put(product.getProductId(), product.getProductName(), weight, ProductCard.of(product));
+
+            String brandKey = null;
+            if (product.getBrand() != null && !product.getBrand().isBlank()) {
+                brandKey = TextNormalizer.fold(product.getBrand().trim());
+                brandLabels.putIfAbsent(brandKey, product.getBrand().trim());
+                long[] totals = brandTotals.computeIfAbsent(brandKey, k -> new long[2]);
+                totals[0] += weight;
+                totals[1]++;
+                brands.put(brandKey, brandLabels.get(brandKey), totals[0], null);
+            }
+            Long categoryId = product.getCategoryId();
+            if (categoryId != null && categoryNames.containsKey(categoryId)) {
+                long total = categoryTotals.merge(categoryId, weight, Long::sum);
+                categories.put(categoryId, categoryNames.get(categoryId), total, null);
+            }
+            contributions.put(product.getProductId(), new Contribution(brandKey, categoryId, weight));
+        }
+
+        void remove(Long productId) {
+            products.remove(productId);
+            Contribution contribution = contributions.remove(productId);
+            if (contribution == null) {
+                return;
+            }
+            if (contribution.brandKey != null) {
+                long[] totals = brandTotals.get(contribution.brandKey);
+                totals[0] -= contribution.weight;
+                totals[1]--;
+                if (totals[1] == 0) {
+                    brandTotals.remove(contribution.brandKey);
+                    brandLabels.remove(contribution.brandKey);
+                    brands.remove(contribution.brandKey);
+                } else {
+                    brands.put(contribution.brandKey, brandLabels.get(contribution.brandKey), totals[0], null);
+                }
+            }
+            Long categoryId = contribution.categoryId;
+            if (categoryId != null && categoryNames.containsKey(categoryId)) {
+                long total = categoryTotals.merge(categoryId, -contribution.weight, Long::sum);
+                categories.put(categoryId, categoryNames.get(categoryId), total, null);
+            }
+        }
+    }
+
+    private static class Contribution {
+        private final String brandKey;
+        private final Long categoryId;
+        private final long weight;
+
+        Contribution(String brandKey, Long categoryId, long weight) {
+            this.brandKey = brandKey;
+            this.categoryId = categoryId;
+            this.weight = weight;
+        }
+    }
+}
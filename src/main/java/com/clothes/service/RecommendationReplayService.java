@@ -0,0 +1,322 @@
+package com.clothes.service;
+
+import com.clothes.dao.*;
+import com.clothes.model.Product;
+import com.clothes.model.UserInteraction;
+import com.clothes.model.UserRating;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+
+/**
+ * Offline replay harness for the recommendation services
+ * Splits user_interactions by time, trains fresh CF service instances on the older part
+ * against an in-memory store, then asks them for recommendations for every user of the
+ * newer part. Reports precision@K / recall@K next to latency and allocation per request,
+ * so a performance change can be checked for quality regressions in the same run.
+ */
+@Service
+public class RecommendationReplayService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecommendationReplayService.class);
+
+    // Requests run unmeasured first so JIT warm-up does not skew the percentiles
+    private static final int WARMUP_REQUESTS = 20;
+
+    private final UserInteractionDAO userInteractionDAO;
+    private final UserRatingDAO userRatingDAO;
+    private final ProductDAO productDAO;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public RecommendationReplayService(UserInteractionDAO userInteractionDAO,
+            UserRatingDAO userRatingDAO,
+            ProductDAO productDAO) {
+        this.userInteractionDAO = userInteractionDAO;
+        this.userRatingDAO = userRatingDAO;
+        this.productDAO = productDAO;
+    }
+
+    /**
+     * Replay the newest (1 - trainFraction) of interactions through all three strategies
+     *
+     * @param k             recommendation list size
+     * @param trainFraction share of interactions (oldest first) used for training
+     * @param maxUsers      cap on the number of evaluated users
+     */
+    public ReplayReport replay(int k, double trainFraction, int maxUsers) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A replay is already running");
+        }
+        try {
+            return replay(userInteractionDAO.findAllOrderByCreatedAt(),
+                    userRatingDAO.findAllOrderByCreatedAt(),
+                    productDAO.findAllActive(),
+                    k, trainFraction, maxUsers);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Replay a given data set (interactions must be in time order)
+     */
+    public ReplayReport replay(List<UserInteraction> interactions, List<UserRating> ratings,
+            List<Product> products, int k, double trainFraction, int maxUsers) {
+        int split = (int) Math.floor(interactions.size() * trainFraction);
+        if (split <= 0 || split >= interactions.size()) {
+            throw new IllegalArgumentException("Not enough interactions to split (" + interactions.size()
+                    + " interactions, trainFraction " + trainFraction + ")");
+        }
+
+        List<UserInteraction> train = interactions.subList(0, split);
+        List<UserInteraction> test = interactions.subList(split, interactions.size());
+        LocalDateTime cutoff = test.get(0).getCreatedAt();
+
+        // Ratings made after the cut-off would leak the future into user similarities
+        List<UserRating> trainRatings = new ArrayList<>();
+        for (UserRating rating : ratings) {
+            if (cutoff == null || rating.getCreatedAt() == null || rating.getCreatedAt().isBefore(cutoff)) {
+                trainRatings.add(rating);
+            }
+        }
+
+        ReplayReport report = new ReplayReport(k, trainFraction, cutoff, train.size(), test.size());
+        logger.info("Replay: {} train / {} test interactions, cut-off {}", train.size(), test.size(), cutoff);
+
+        // Held-out products per user, excluding ones already seen in training
+        Map<Long, Set<Long>> seenInTrain = new HashMap<>();
+        for (UserInteraction interaction : train) {
+            seenInTrain.computeIfAbsent(interaction.getUserId(), u -> new HashSet<>()).add(interaction.getProductId());
+        }
+        Map<Long, Set<Long>> relevant = new TreeMap<>();
+        for (UserInteraction interaction : test) {
+            Set<Long> seen = seenInTrain.getOrDefault(interaction.getUserId(), Collections.emptySet());
+            if (!seen.contains(interaction.getProductId())) {
+                relevant.computeIfAbsent(interaction.getUserId(), u -> new HashSet<>()).add(interaction.getProductId());
+            }
+        }
+        List<Long> users = new ArrayList<>(relevant.keySet());
+        if (users.size() > maxUsers) {
+            users = users.subList(0, maxUsers);
+        }
+        report.evaluatedUsers = users.size();
+        report.coldStartUsers = (int) users.stream().filter(u -> !seenInTrain.containsKey(u)).count();
+
+        // Fresh services wired to the in-memory store, trained on the older part only
+        InMemoryRecommendationStore store = new InMemoryRecommendationStore(train, trainRatings, products);
+        SeenItemService seenItems = new SeenItemService(store.getUserInteractionDAO(), users.size() + 1);
+        UserBasedCFService userBased = new UserBasedCFService(store.getUserRatingDAO(),
+                store.getUserSimilarityDAO(), store.getUserInteractionDAO(), store.getProductDAO(),
+                store.getRecommendationDAO(), seenItems);
+        ItemBasedCFService itemBased = new ItemBasedCFService(store.getProductSimilarityDAO(),
+                store.getUserInteractionDAO(), store.getUserRatingDAO(), store.getProductDAO(),
+                store.getRecommendationDAO());
+        UserPreferenceService preferences = new UserPreferenceService(store.getUserInteractionDAO(),
+                store.getProductDAO(), new ProductCache(store.getProductDAO(), products.size() + 1), users.size() + 1);
+        HybridRecommendationService hybrid = new HybridRecommendationService(userBased, itemBased,
+                store.getProductDAO(), store.getUserInteractionDAO(), store.getRecommendationDAO(), seenItems,
+                preferences, new ProductSearchIndex(store.getProductDAO()),
+                new ProductCounterService(store.getProductDAO()));
+
+        long startTime = System.currentTimeMillis();
+        userBased.computeUserSimilarities();
+        report.userSimilarityMs = System.currentTimeMillis() - startTime;
+
+        startTime = System.currentTimeMillis();
+        itemBased.computeProductSimilarities();
+        report.productSimilarityMs = System.currentTimeMillis() - startTime;
+
+        Map<String, BiFunction<Long, Integer, List<Product>>> strategies = new LinkedHashMap<>();
+        strategies.put("userBasedCF", userBased::getRecommendations);
+        strategies.put("itemBasedCF", itemBased::getRecommendations);
+        strategies.put("hybrid", hybrid::getRecommendations);
+
+        for (Map.Entry<String, BiFunction<Long, Integer, List<Product>>> strategy : strategies.entrySet()) {
+            StrategyResult result = evaluate(strategy.getKey(), strategy.getValue(), users, relevant, k);
+            report.strategies.add(result);
+            logger.info("Replay {}: precision@{}={}, recall@{}={}, p50={}ms, p99={}ms",
+                    result.name, k, result.getPrecision(), k, result.getRecall(),
+                    result.getLatencyPercentileMs(50), result.getLatencyPercentileMs(99));
+        }
+
+        return report;
+    }
+
+    private StrategyResult evaluate(String name, BiFunction<Long, Integer, List<Product>> recommender,
+            List<Long> users, Map<Long, Set<Long>> relevant, int k) {
+        for (int i = 0; i < Math.min(WARMUP_REQUESTS, users.size()); i++) {
+            recommender.apply(users.get(i), k);
+        }
+
+        StrategyResult result = new StrategyResult(name, users.size());
+        for (Long userId : users) {
+            long allocatedBefore = currentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            List<Product> recommendations = recommender.apply(userId, k);
+            long elapsed = System.nanoTime() - start;
+            long allocated = currentThreadAllocatedBytes() - allocatedBefore;
+
+            Set<Long> expected = relevant.get(userId);
+            int hits = 0;
+            for (int i = 0; i < Math.min(k, recommendations.size()); i++) {
+                if (expected.contains(recommendations.get(i).getProductId())) {
+                    hits++;
+                }
+            }
+            result.record(elapsed, allocated, (double) hits / k, (double) hits / expected.size());
+        }
+        return result;
+    }
+
+    /**
+     * Bytes allocated by this thread so far, or -1 when the JVM cannot tell
+     */
+    private static long currentThreadAllocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean sunBean && sunBean.isThreadAllocatedMemoryEnabled()) {
+            return sunBean.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /**
+     * Quality and cost figures of one strategy
+     */
+    public static class StrategyResult {
+        private final String name;
+        private final long[] latenciesNanos;
+        private final long[] allocatedBytes;
+        private int count;
+        private double precisionSum;
+        private double recallSum;
+
+        StrategyResult(String name, int requests) {
+            this.name = name;
+            this.latenciesNanos = new long[requests];
+            this.allocatedBytes = new long[requests];
+        }
+
+        void record(long latencyNanos, long allocated, double precision, double recall) {
+            latenciesNanos[count] = latencyNanos;
+            allocatedBytes[count] = allocated;
+            precisionSum += precision;
+            recallSum += recall;
+            count++;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getPrecision() {
+            return count > 0 ? round(precisionSum / count, 4) : 0.0;
+        }
+
+        public double getRecall() {
+            return count > 0 ? round(recallSum / count, 4) : 0.0;
+        }
+
+        public double getLatencyPercentileMs(int percentile) {
+            return round(percentile(latenciesNanos, percentile) / 1_000_000.0, 3);
+        }
+
+        public long getAllocatedBytesPercentile(int percentile) {
+            return percentile(allocatedBytes, percentile);
+        }
+
+        public long getMeanAllocatedBytes() {
+            if (count == 0 || allocatedBytes[0] < 0) {
+                return -1;
+            }
+            long total = 0;
+            for (int i = 0; i < count; i++) {
+                total += allocatedBytes[i];
+            }
+            return total / count;
+        }
+
+        private long percentile(long[] values, int percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(values, count);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100.0 * count) - 1;
+            return sorted[Math.max(0, Math.min(rank, count - 1))];
+        }
+
+        public Map<String, Object> toMap(int k) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("strategy", name);
+            map.put("requests", count);
+            map.put("precisionAt" + k, getPrecision());
+            map.put("recallAt" + k, getRecall());
+            map.put("latencyP50Ms", getLatencyPercentileMs(50));
+            map.put("latencyP99Ms", getLatencyPercentileMs(99));
+            map.put("allocatedBytesMean", getMeanAllocatedBytes());
+            map.put("allocatedBytesP50", getAllocatedBytesPercentile(50));
+            map.put("allocatedBytesP99", getAllocatedBytesPercentile(99));
+            return map;
+        }
+    }
+
+    /**
+     * Result of one replay run
+     */
+    public static class ReplayReport {
+        private final int k;
+        private final double trainFraction;
+        private final LocalDateTime cutoff;
+        private final int trainInteractions;
+        private final int testInteractions;
+        private int evaluatedUsers;
+        private int coldStartUsers;
+        private long userSimilarityMs;
+        private long productSimilarityMs;
+        private final List<StrategyResult> strategies = new ArrayList<>();
+
+        ReplayReport(int k, double trainFraction, LocalDateTime cutoff, int trainInteractions,
+                int testInteractions) {
+            this.k = k;
+            this.trainFraction = trainFraction;
+            this.cutoff = cutoff;
+            this.trainInteractions = trainInteractions;
+            this.testInteractions = testInteractions;
+        }
+
+        public List<StrategyResult> getStrategies() {
+            return strategies;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("k", k);
+            map.put("trainFraction", trainFraction);
+            map.put("cutoff", cutoff);
+            map.put("trainInteractions", trainInteractions);
+            map.put("testInteractions", testInteractions);
+            map.put("evaluatedUsers", evaluatedUsers);
+            map.put("coldStartUsers", coldStartUsers);
+            map.put("userSimilarityMs", userSimilarityMs);
+            map.put("productSimilarityMs", productSimilarityMs);
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (StrategyResult strategy : strategies) {
+                results.add(strategy.toMap(k));
+            }
+            map.put("strategies", results);
+            return map;
+        }
+    }
+
+    private static double round(double value, int decimals) {
+        double factor = Math.pow(10, decimals);
+        return Math.round(value * factor) / factor;
+    }
+}
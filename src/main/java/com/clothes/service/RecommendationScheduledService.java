@@ -2,28 +2,150 @@ package com.clothes.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.List;
+
 /**
  * Scheduled service for periodic recommendation system maintenance
  * Runs similarity computations and cache cleanup automatically
+ * Similarity jobs are checkpointed per partition and resumed after a crash or redeploy
  */
 @Service
 public class RecommendationScheduledService {
 
     private static final Logger logger = LoggerFactory.getLogger(RecommendationScheduledService.class);
 
+    private static final List<String> SIMILARITY_JOBS = List.of(
+            ItemBasedCFService.PRODUCT_SIMILARITY_JOB,
+            ItemBasedCFService.CO_OCCURRENCE_JOB,
+            UserBasedCFService.USER_SIMILARITY_JOB,
+            ShardedSimilarityService.PRODUCT_SIMILARITY_JOB,
+            ShardedSimilarityService.USER_SIMILARITY_JOB);
+
     private final UserBasedCFService userBasedCFService;
     private final ItemBasedCFService itemBasedCFService;
     private final HybridRecommendationService hybridRecommendationService;
+    private final BatchJobService batchJobService;
+    private final TaskScheduler taskScheduler;
+    private final ShardedSimilarityService shardedSimilarityService;
+
+    // Run the daily similarity jobs across worker processes instead of in this JVM
+    @Value("${recommendation.sharding.enabled:false}")
+    private boolean shardingEnabled;
 
     public RecommendationScheduledService(UserBasedCFService userBasedCFService,
             ItemBasedCFService itemBasedCFService,
-            HybridRecommendationService hybridRecommendationService) {
+            HybridRecommendationService hybridRecommendationService,
+            BatchJobService batchJobService,
+            TaskScheduler taskScheduler,
+            ShardedSimilarityService shardedSimilarityService) {
         this.userBasedCFService = userBasedCFService;
         this.itemBasedCFService = itemBasedCFService;
         this.hybridRecommendationService = hybridRecommendationService;
+        this.batchJobService = batchJobService;
+        this.taskScheduler = taskScheduler;
+        this.shardedSimilarityService = shardedSimilarityService;
+    }
+
+    /**
+     * Run (or resume) the product similarity job
+     */
+    public BatchJobService.JobProgress runProductSimilarityJob() {
+        if (shardingEnabled) {
+            return runShardedProductSimilarityJob(shardedSimilarityService.getDefaultShards());
+        }
+        return batchJobService.run(itemBasedCFService.productSimilarityJob());
+    }
+
+    /**
+     * Run (or resume) the user similarity job
+     */
+    public BatchJobService.JobProgress runUserSimilarityJob() {
+        if (shardingEnabled) {
+            return runShardedUserSimilarityJob(shardedSimilarityService.getDefaultShards());
+        }
+        return batchJobService.run(userBasedCFService.userSimilarityJob());
+    }
+
+    /**
+     * Run (or resume) the co-occurrence similarity job
+     */
+    public BatchJobService.JobProgress runCoOccurrenceJob() {
+        return batchJobService.run(itemBasedCFService.coOccurrenceSimilarityJob());
+    }
+
+    /**
+     * Run (or resume) the product similarity job split across worker processes
+     */
+    public BatchJobService.JobProgress runShardedProductSimilarityJob(int shards) {
+        return batchJobService.run(shardedSimilarityService.productSimilarityJob(shards));
+    }
+
+    /**
+     * Run (or resume) the user similarity job split across worker processes
+     */
+    public BatchJobService.JobProgress runShardedUserSimilarityJob(int shards) {
+        return batchJobService.run(shardedSimilarityService.userSimilarityJob(shards));
+    }
+
+    /**
+     * Run a similarity job by its checkpoint name
+     */
+    public BatchJobService.JobProgress runJob(String jobName) {
+        switch (jobName) {
+            case ItemBasedCFService.PRODUCT_SIMILARITY_JOB:
+                return runProductSimilarityJob();
+            case ItemBasedCFService.CO_OCCURRENCE_JOB:
+                return runCoOccurrenceJob();
+            case UserBasedCFService.USER_SIMILARITY_JOB:
+                return runUserSimilarityJob();
+            case ShardedSimilarityService.PRODUCT_SIMILARITY_JOB:
+                return runShardedProductSimilarityJob(resumeShards(jobName));
+            case ShardedSimilarityService.USER_SIMILARITY_JOB:
+                return runShardedUserSimilarityJob(resumeShards(jobName));
+            default:
+                throw new IllegalArgumentException("Unknown job: " + jobName);
+        }
+    }
+
+    /**
+     * Shard count of an unfinished sharded run, so a resume keeps its completed shards
+     */
+    private int resumeShards(String jobName) {
+        return batchJobService.findInterrupted(jobName)
+                .map(checkpoint -> checkpoint.getTotalPartitions())
+                .orElse(shardedSimilarityService.getDefaultShards());
+    }
+
+    /**
+     * Resume jobs that a previous process left unfinished (crash or redeploy)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        for (String jobName : SIMILARITY_JOBS) {
+            try {
+                batchJobService.findInterrupted(jobName).ifPresent(checkpoint -> {
+                    logger.info("Scheduling resume of interrupted job {} at partition {}/{}",
+                            jobName, checkpoint.getCompletedPartitions(), checkpoint.getTotalPartitions());
+                    taskScheduler.schedule(() -> {
+                        try {
+                            runJob(jobName);
+                        } catch (Exception e) {
+                            logger.error("Error resuming job {}", jobName, e);
+                        }
+                    }, Instant.now());
+                });
+            } catch (Exception e) {
+                logger.error("Error checking checkpoint of job {}", jobName, e);
+            }
+        }
     }
 
     /**
@@ -35,7 +157,7 @@ public class RecommendationScheduledService {
         logger.info("Starting scheduled product similarity computation");
         try {
             long startTime = System.currentTimeMillis();
-            itemBasedCFService.computeProductSimilarities();
+            runProductSimilarityJob();
             long duration = System.currentTimeMillis() - startTime;
             logger.info("Product similarity computation completed in {} ms", duration);
         } catch (Exception e) {
@@ -51,7 +173,7 @@ public class RecommendationScheduledService {
         logger.info("Starting scheduled user similarity computation");
         try {
             long startTime = System.currentTimeMillis();
-            userBasedCFService.computeUserSimilarities();
+            runUserSimilarityJob();
             long duration = System.currentTimeMillis() - startTime;
             logger.info("User similarity computation completed in {} ms", duration);
         } catch (Exception e) {
@@ -82,7 +204,7 @@ public class RecommendationScheduledService {
         logger.info("Starting scheduled co-occurrence similarity computation");
         try {
             long startTime = System.currentTimeMillis();
-            itemBasedCFService.computeProductSimilaritiesByCoOccurrence();
+            runCoOccurrenceJob();
             long duration = System.currentTimeMillis() - startTime;
             logger.info("Co-occurrence similarity computation completed in {} ms", duration);
         } catch (Exception e) {
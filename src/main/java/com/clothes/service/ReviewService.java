@@ -0,0 +1,43 @@
+package com.clothes.service;
+
+import com.clothes.dao.ReviewDAO;
+import com.clothes.event.ReviewChangedEvent;
+import com.clothes.model.Review;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service layer for review writes
+ * A review and its product's rating aggregates are written in one transaction; the review
+ * change event then refreshes that product in the caches so the new rating shows.
+ */
+@Service
+@Transactional
+public class ReviewService {
+
+    private final ReviewDAO reviewDAO;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ReviewService(ReviewDAO reviewDAO, ApplicationEventPublisher eventPublisher) {
+        this.reviewDAO = reviewDAO;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public Long addReview(Review review) {
+        Long reviewId = reviewDAO.save(review);
+        reviewDAO.applyRating(review.getProductId(), review.getRating(), 1);
+        eventPublisher.publishEvent(new ReviewChangedEvent(review.getProductId()));
+        return reviewId;
+    }
+
+    public boolean deleteReview(Review review) {
+        // Only the delete that actually removed the row adjusts the aggregates
+        if (reviewDAO.delete(review.getReviewId()) == 0) {
+            return false;
+        }
+        reviewDAO.applyRating(review.getProductId(), review.getRating(), -1);
+        eventPublisher.publishEvent(new ReviewChangedEvent(review.getProductId()));
+        return true;
+    }
+}
@@ -0,0 +1,142 @@
+package com.clothes.service;
+
+import com.clothes.dao.UserInteractionDAO;
+import com.clothes.util.CompactBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-user sets of products the user has already interacted with
+ * Kept in memory as compact bitmaps for recently active users (LRU) and updated on
+ * every recorded interaction, so recommendation paths can drop seen candidates
+ * without querying user_interactions or building boxed sets.
+ */
+@Service
+public class SeenItemService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeenItemService.class);
+
+    private final UserInteractionDAO userInteractionDAO;
+    private final int maxUsers;
+
+    // Access-ordered, so the least recently used user is evicted first
+    private final Map<Long, CompactBitmap> seenByUser;
+
+    // Products marked seen while the user's bitmap is being loaded, guarded by seenByUser
+    private final Map<Long, Set<Long>> pendingByUser = new HashMap<>();
+
+    public SeenItemService(UserInteractionDAO userInteractionDAO,
+            @Value("${recommendation.seen-items.max-users:10000}") int maxUsers) {
+        this.userInteractionDAO = userInteractionDAO;
+        this.maxUsers = maxUsers;
+        this.seenByUser = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CompactBitmap> eldest) {
+                return size() > SeenItemService.this.maxUsers;
+            }
+        };
+    }
+
+    /**
+     * Get the seen-product bitmap of a user, loading it on first use
+     */
+    public CompactBitmap getSeenItems(Long userId) {
+        if (userId == null) {
+            return new CompactBitmap();
+        }
+
+        Set<Long> pending;
+        synchronized (seenByUser) {
+            CompactBitmap cached = seenByUser.get(userId);
+            if (cached != null) {
+                return cached;
+            }
+            pending = pendingByUser.computeIfAbsent(userId, id -> new HashSet<>());
+        }
+
+        // Load outside the lock; products marked seen meanwhile collect in the pending set
+        CompactBitmap loaded;
+        try {
+            loaded = CompactBitmap.of(userInteractionDAO.findProductIdsByUserId(userId));
+        } catch (RuntimeException e) {
+            synchronized (seenByUser) {
+                pendingByUser.remove(userId, pending);
+            }
+            throw e;
+        }
+        logger.debug("Loaded {} seen products for user {}", loaded.getCardinality(), userId);
+
+        synchronized (seenByUser) {
+            CompactBitmap existing = seenByUser.get(userId);
+            if (existing != null) {
+                return existing;
+            }
+            pending.forEach(loaded::add);
+            // Evicted while loading: the load may predate the eviction, so it is not cached
+            if (pendingByUser.remove(userId, pending)) {
+                seenByUser.put(userId, loaded);
+            }
+            return loaded;
+        }
+    }
+
+    /**
+     * Record that a user interacted with a product
+     * Users not in memory are skipped; their next load reads the interaction from the database.
+     * A load already in flight may have missed it, so it is queued and added when that load lands.
+     */
+    public void markSeen(Long userId, Long productId) {
+        if (userId == null || productId == null) {
+            return;
+        }
+        CompactBitmap seen;
+        synchronized (seenByUser) {
+            seen = seenByUser.get(userId);
+            Set<Long> pending = pendingByUser.get(userId);
+            if (seen == null && pending != null) {
+                pending.add(productId);
+            }
+        }
+        if (seen != null) {
+            seen.add(productId);
+        }
+    }
+
+    /**
+     * Drop a user's bitmap (e.g. after their interactions were deleted)
+     */
+    public void evict(Long userId) {
+        synchronized (seenByUser) {
+            seenByUser.remove(userId);
+            pendingByUser.remove(userId);
+        }
+    }
+
+    /**
+     * Cached users and their approximate memory use
+     */
+    public Map<String, Object> getStats() {
+        synchronized (seenByUser) {
+            long bytes = 0;
+            long products = 0;
+            for (CompactBitmap bitmap : seenByUser.values()) {
+                bytes += bitmap.getSizeInBytes();
+                products += bitmap.getCardinality();
+            }
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("users", seenByUser.size());
+            stats.put("maxUsers", maxUsers);
+            stats.put("seenProducts", products);
+            stats.put("approxBytes", bytes);
+            return stats;
+        }
+    }
+}
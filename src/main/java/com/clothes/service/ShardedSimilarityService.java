@@ -0,0 +1,351 @@
+package com.clothes.service;
+
+import com.clothes.dao.ProductSimilarityDAO;
+import com.clothes.dao.UserInteractionDAO;
+import com.clothes.dao.UserRatingDAO;
+import com.clothes.dao.UserSimilarityDAO;
+import com.clothes.model.ProductSimilarity;
+import com.clothes.model.UserSimilarity;
+import com.clothes.util.SimilarityShardWorker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Coordinator for sharded similarity computation
+ * Writes a shared vector snapshot, launches one SimilarityShardWorker JVM per shard
+ * and merges each shard's rows into the similarity tables.
+ * Each shard is one partition of a PartitionedJob, so merges are checkpointed by BatchJobService.
+ */
+@Service
+public class ShardedSimilarityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedSimilarityService.class);
+
+    // Batch job names (checkpoint keys)
+    public static final String PRODUCT_SIMILARITY_JOB = "product-similarity-sharded";
+    public static final String USER_SIMILARITY_JOB = "user-similarity-sharded";
+
+    private static final double MIN_SIMILARITY_THRESHOLD = 0.1;
+    private static final int MERGE_BATCH_SIZE = 1000;
+    private static final String WORKER_CLASS = SimilarityShardWorker.class.getName();
+    private static final String BOOT_LAUNCHER_CLASS = "org.springframework.boot.loader.launch.PropertiesLauncher";
+
+    private final UserInteractionDAO userInteractionDAO;
+    private final UserRatingDAO userRatingDAO;
+    private final ProductSimilarityDAO productSimilarityDAO;
+    private final UserSimilarityDAO userSimilarityDAO;
+
+    @Value("${recommendation.sharding.shards:4}")
+    private int defaultShards;
+
+    @Value("${recommendation.sharding.work-dir:data/similarity-shards}")
+    private String workDir;
+
+    @Value("${recommendation.sharding.worker-max-heap:512m}")
+    private String workerMaxHeap;
+
+    public ShardedSimilarityService(UserInteractionDAO userInteractionDAO,
+            UserRatingDAO userRatingDAO,
+            ProductSimilarityDAO productSimilarityDAO,
+            UserSimilarityDAO userSimilarityDAO) {
+        this.userInteractionDAO = userInteractionDAO;
+        this.userRatingDAO = userRatingDAO;
+        this.productSimilarityDAO = productSimilarityDAO;
+        this.userSimilarityDAO = userSimilarityDAO;
+    }
+
+    public int getDefaultShards() {
+        return defaultShards;
+    }
+
+    /**
+     * Build the sharded product similarity job (cosine over product -> user vectors)
+     */
+    public PartitionedJob productSimilarityJob(int shards) {
+        Map<Long, Map<Long, Double>> productVectors = new HashMap<>();
+        for (UserInteractionDAO.InteractionScore interaction : userInteractionDAO.getInteractionMatrix()) {
+            productVectors.computeIfAbsent(interaction.productId, k -> new HashMap<>())
+                    .put(interaction.userId, interaction.score);
+        }
+
+        return new ShardedJob(PRODUCT_SIMILARITY_JOB, productVectors, shards, "cosine", rows -> {
+            List<ProductSimilarity> similarities = new ArrayList<>(rows.size());
+            for (SimilarityRow row : rows) {
+                ProductSimilarity similarity = new ProductSimilarity(row.id1, row.id2, new BigDecimal(row.score));
+                similarity.setSimilarityType(ProductSimilarity.SimilarityType.COSINE);
+                similarities.add(similarity);
+            }
+            productSimilarityDAO.batchSave(similarities);
+        });
+    }
+
+    /**
+     * Build the sharded user similarity job (Pearson over user -> rating vectors)
+     */
+    public PartitionedJob userSimilarityJob(int shards) {
+        Map<Long, Map<Long, Double>> userVectors = new HashMap<>();
+        for (UserRatingDAO.RatingPair pair : userRatingDAO.getAllRatingPairs()) {
+            userVectors.computeIfAbsent(pair.userId, k -> new HashMap<>())
+                    .put(pair.productId, pair.rating);
+        }
+
+        return new ShardedJob(USER_SIMILARITY_JOB, userVectors, shards, "pearson", rows -> {
+            List<UserSimilarity> similarities = new ArrayList<>(rows.size());
+            for (SimilarityRow row : rows) {
+                UserSimilarity similarity = new UserSimilarity(row.id1, row.id2, new BigDecimal(row.score));
+                similarity.setSimilarityType(UserSimilarity.SimilarityType.PEARSON);
+                similarities.add(similarity);
+            }
+            userSimilarityDAO.batchSave(similarities);
+        });
+    }
+
+    /**
+     * Build the command line for a local worker JVM
+     * Uses the same Java binary and classpath as this process; inside a Spring Boot
+     * fat jar the worker is started through the Boot PropertiesLauncher
+     */
+    private List<String> workerCommand(Path snapshot, int shard, int shards, String metric, Path out) {
+        String javaBin = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String classpath = System.getProperty("java.class.path");
+
+        List<String> command = new ArrayList<>();
+        command.add(javaBin);
+        command.add("-Xmx" + workerMaxHeap);
+        command.add("-cp");
+        command.add(classpath);
+
+        boolean fatJar = !classpath.contains(File.pathSeparator) && classpath.endsWith(".jar");
+        if (fatJar) {
+            command.add("-Dloader.main=" + WORKER_CLASS);
+            command.add(BOOT_LAUNCHER_CLASS);
+        } else {
+            command.add(WORKER_CLASS);
+        }
+
+        command.add("--snapshot=" + snapshot.toAbsolutePath());
+        command.add("--shard=" + shard);
+        command.add("--shards=" + shards);
+        command.add("--metric=" + metric);
+        command.add("--threshold=" + MIN_SIMILARITY_THRESHOLD);
+        command.add("--out=" + out.toAbsolutePath());
+        return command;
+    }
+
+    /**
+     * One similarity pair produced by a worker
+     */
+    private static class SimilarityRow {
+        final long id1;
+        final long id2;
+        final double score;
+
+        SimilarityRow(long id1, long id2, double score) {
+            this.id1 = id1;
+            this.id2 = id2;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Saves a batch of merged rows
+     */
+    @FunctionalInterface
+    private interface RowSink {
+        void save(List<SimilarityRow> rows);
+    }
+
+    /**
+     * Partitioned job where partition N waits for worker N and merges its output
+     */
+    private class ShardedJob implements PartitionedJob {
+        private final String name;
+        private final Map<Long, Map<Long, Double>> vectors;
+        private final int shards;
+        private final String metric;
+        private final RowSink sink;
+        private final Path jobDir;
+        private final Map<Integer, Process> workers = new HashMap<>();
+
+        ShardedJob(String name, Map<Long, Map<Long, Double>> vectors, int shards, String metric, RowSink sink) {
+            this.name = name;
+            this.vectors = vectors;
+            this.shards = Math.max(1, shards);
+            this.metric = metric;
+            this.sink = sink;
+            this.jobDir = Paths.get(workDir, name);
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getPartitionCount() {
+            return shards;
+        }
+
+        @Override
+        public long getItemCount() {
+            return vectors.size();
+        }
+
+        private Path snapshotFile() {
+            return jobDir.resolve("snapshot.tsv");
+        }
+
+        private Path shardFile(int shard) {
+            return jobDir.resolve("shard-" + shard + ".tsv");
+        }
+
+        @Override
+        public void beforeRun(int firstPartition) {
+            try {
+                if (firstPartition == 0) {
+                    deleteJobDir();
+                }
+                // A resumed run reuses the snapshot its finished shards were computed from
+                if (!Files.exists(snapshotFile())) {
+                    SimilarityShardWorker.writeSnapshot(snapshotFile(), vectors);
+                }
+                logger.info("Job {}: snapshot of {} vectors at {}", name, vectors.size(), snapshotFile());
+
+                // Start all remaining workers at once; partitions then merge them in order
+                for (int shard = firstPartition; shard < shards; shard++) {
+                    if (!Files.exists(shardFile(shard))) {
+                        workers.put(shard, launchWorker(shard));
+                    }
+                }
+            } catch (IOException e) {
+                // Workers already started would otherwise run on with no partition to await them
+                stopWorkers();
+                throw new UncheckedIOException(e);
+            } catch (RuntimeException e) {
+                stopWorkers();
+                throw e;
+            }
+        }
+
+        @Override
+        public int processPartition(int shard) {
+            try {
+                awaitWorker(shard);
+                long merged = mergeShard(shard);
+                logger.info("Job {}: merged shard {}/{} ({} pairs)", name, shard + 1, shards, merged);
+                return (int) vectors.keySet().stream()
+                        .filter(id -> SimilarityShardWorker.isInShard(id, shard, shards))
+                        .count();
+            } catch (IOException e) {
+                stopWorkers();
+                throw new UncheckedIOException(e);
+            } catch (RuntimeException e) {
+                stopWorkers();
+                throw e;
+            }
+        }
+
+        @Override
+        public void afterRun() {
+            try {
+                deleteJobDir();
+            } catch (IOException e) {
+                logger.warn("Could not clean up {}: {}", jobDir, e.getMessage());
+            }
+        }
+
+        private Process launchWorker(int shard) throws IOException {
+            Path log = jobDir.resolve("shard-" + shard + ".log");
+            ProcessBuilder builder = new ProcessBuilder(workerCommand(snapshotFile(), shard, shards, metric,
+                    shardFile(shard)));
+            builder.redirectErrorStream(true);
+            builder.redirectOutput(log.toFile());
+            logger.info("Job {}: launching worker for shard {}/{}", name, shard + 1, shards);
+            return builder.start();
+        }
+
+        private void awaitWorker(int shard) throws IOException {
+            if (Files.exists(shardFile(shard))) {
+                return;
+            }
+
+            Process worker = workers.get(shard);
+            if (worker == null) {
+                worker = launchWorker(shard);
+                workers.put(shard, worker);
+            }
+
+            try {
+                int exitCode = worker.waitFor();
+                if (exitCode != 0 || !Files.exists(shardFile(shard))) {
+                    throw new RuntimeException("Worker for shard " + shard + " of job " + name
+                            + " failed with exit code " + exitCode + ", see " + jobDir.resolve("shard-" + shard + ".log"));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for shard " + shard, e);
+            }
+        }
+
+        /**
+         * Stream a shard file into the database in fixed-size batches
+         */
+        private long mergeShard(int shard) throws IOException {
+            long merged = 0;
+            List<SimilarityRow> batch = new ArrayList<>(MERGE_BATCH_SIZE);
+
+            try (BufferedReader reader = Files.newBufferedReader(shardFile(shard), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.split("\t");
+                    if (parts.length != 3) {
+                        continue;
+                    }
+                    batch.add(new SimilarityRow(Long.parseLong(parts[0]), Long.parseLong(parts[1]),
+                            Double.parseDouble(parts[2])));
+                    if (batch.size() == MERGE_BATCH_SIZE) {
+                        sink.save(batch);
+                        merged += batch.size();
+                        batch = new ArrayList<>(MERGE_BATCH_SIZE);
+                    }
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                sink.save(batch);
+                merged += batch.size();
+            }
+            return merged;
+        }
+
+        private void stopWorkers() {
+            workers.values().forEach(Process::destroy);
+        }
+
+        private void deleteJobDir() throws IOException {
+            if (!Files.exists(jobDir)) {
+                return;
+            }
+            try (Stream<Path> paths = Files.walk(jobDir)) {
+                List<Path> sorted = paths.sorted(Comparator.reverseOrder()).toList();
+                for (Path path : sorted) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+}
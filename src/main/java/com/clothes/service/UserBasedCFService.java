@@ -3,6 +3,8 @@ package com.clothes.service;
 import com.clothes.dao.*;
 import com.clothes.model.*;
 import com.clothes.util.CollaborativeFilteringUtil;
+import com.clothes.util.CompactBitmap;
+import com.clothes.util.SingleFlight;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -25,28 +27,48 @@ public class UserBasedCFService {
     private final UserInteractionDAO userInteractionDAO;
     private final ProductDAO productDAO;
     private final RecommendationDAO recommendationDAO;
+    private final SeenItemService seenItemService;
+
+    // Concurrent requests for the same user share one computation
+    private final SingleFlight<Long, Product> inFlight = new SingleFlight<>();
 
     // Configuration parameters
     private static final int TOP_K_NEIGHBORS = 20; // Number of similar users to consider
     private static final int RECOMMENDATION_COUNT = 10;
     private static final double MIN_SIMILARITY_THRESHOLD = 0.1;
+    private static final int SIMILARITY_PARTITION_SIZE = 50;
+
+    // Batch job name (checkpoint key)
+    public static final String USER_SIMILARITY_JOB = "user-similarity";
 
     public UserBasedCFService(UserRatingDAO userRatingDAO,
             UserSimilarityDAO userSimilarityDAO,
             UserInteractionDAO userInteractionDAO,
             ProductDAO productDAO,
-            RecommendationDAO recommendationDAO) {
+            RecommendationDAO recommendationDAO,
+            SeenItemService seenItemService) {
         this.userRatingDAO = userRatingDAO;
         this.userSimilarityDAO = userSimilarityDAO;
         this.userInteractionDAO = userInteractionDAO;
         this.productDAO = productDAO;
         this.recommendationDAO = recommendationDAO;
+        this.seenItemService = seenItemService;
     }
 
     /**
      * Get personalized recommendations for a user using User-Based CF
      */
     public List<Product> getRecommendations(Long userId, int limit) {
+        if (userId == null) {
+            return computeRecommendations(null, limit);
+        }
+        return inFlight.execute(userId, limit, n -> computeRecommendations(userId, n));
+    }
+
+    /**
+     * Compute recommendations, ranked best first
+     */
+    private List<Product> computeRecommendations(Long userId, int limit) {
         logger.info("Generating User-Based CF recommendations for user: {}", userId);
 
         // 1. Check cache first
@@ -58,7 +80,7 @@ public class UserBasedCFService {
             List<Long> productIds = cachedRecs.stream()
                     .map(Recommendation::getRecommendedProductId)
                     .collect(Collectors.toList());
-            return productDAO.findByIds(productIds);
+            return productDAO.findByIdsOrdered(productIds);
         }
 
         // 2. Find similar users
@@ -72,7 +94,7 @@ public class UserBasedCFService {
         }
 
         // 3. Get products the user has already interacted with (to filter out)
-        Set<Long> userProducts = new HashSet<>(userInteractionDAO.findProductIdsByUserId(userId));
+        CompactBitmap userProducts = seenItemService.getSeenItems(userId);
 
         // 4. Calculate recommendation scores
         Map<Long, Double> productScores = new HashMap<>();
@@ -114,7 +136,7 @@ public class UserBasedCFService {
         // 7. Return products
         logger.info("Generated {} User-Based CF recommendations for user: {}",
                 topProductIds.size(), userId);
-        return productDAO.findByIds(topProductIds);
+        return productDAO.findByIdsOrdered(topProductIds);
     }
 
     /**
@@ -123,7 +145,15 @@ public class UserBasedCFService {
      */
     public void computeUserSimilarities() {
         logger.info("Starting User Similarity computation");
+        long processed = userSimilarityJob().runAll();
+        logger.info("User Similarity computation completed for {} users", processed);
+    }
 
+    /**
+     * Build the user similarity job
+     * Each partition computes and saves the rows of a slice of the sorted user list
+     */
+    public PartitionedJob userSimilarityJob() {
         // Get all user-product rating pairs
         List<UserRatingDAO.RatingPair> allRatings = userRatingDAO.getAllRatingPairs();
 
@@ -134,40 +164,36 @@ public class UserBasedCFService {
                     .put(pair.productId, pair.rating);
         }
 
+        // Sorted so that partition boundaries are stable across restarts
         List<Long> userIds = new ArrayList<>(userVectors.keySet());
-        List<UserSimilarity> similarities = new ArrayList<>();
+        Collections.sort(userIds);
 
-        // Calculate pairwise similarities
-        for (int i = 0; i < userIds.size(); i++) {
-            Long userId1 = userIds.get(i);
-            Map<Long, Double> vector1 = userVectors.get(userId1);
-
-            for (int j = i + 1; j < userIds.size(); j++) {
-                Long userId2 = userIds.get(j);
-                Map<Long, Double> vector2 = userVectors.get(userId2);
-
-                // Calculate Pearson correlation
-                double similarity = CollaborativeFilteringUtil.pearsonCorrelation(vector1, vector2);
+        return PartitionedJob.ofRange(USER_SIMILARITY_JOB, userIds, SIMILARITY_PARTITION_SIZE,
+                (from, to) -> computeUserSimilarityRows(userIds, userVectors, from, to));
+    }
 
-                // Only store if similarity is meaningful
-                if (Math.abs(similarity) > MIN_SIMILARITY_THRESHOLD) {
-                    UserSimilarity userSim = new UserSimilarity(userId1, userId2,
-                            new BigDecimal(similarity));
-                    userSim.setSimilarityType(UserSimilarity.SimilarityType.PEARSON);
-                    similarities.add(userSim);
-                }
-            }
+    /**
+     * Calculate and save similarities of users [from, to) against all later users
+     */
+    private void computeUserSimilarityRows(List<Long> userIds, Map<Long, Map<Long, Double>> userVectors,
+            int from, int to) {
+        List<UserSimilarity> similarities = new ArrayList<>();
 
-            // Log progress
-            if ((i + 1) % 100 == 0) {
-                logger.info("Processed {} users", i + 1);
+        for (int i = from; i < to; i++) {
+            Long userId1 = userIds.get(i);
+            Map<Long, Double> row = CollaborativeFilteringUtil.similaritiesToLater(userIds, userVectors, i,
+                    CollaborativeFilteringUtil.Metric.PEARSON, MIN_SIMILARITY_THRESHOLD);
+            for (Map.Entry<Long, Double> pair : row.entrySet()) {
+                UserSimilarity userSim = new UserSimilarity(userId1, pair.getKey(),
+                        new BigDecimal(pair.getValue()));
+                userSim.setSimilarityType(UserSimilarity.SimilarityType.PEARSON);
+                similarities.add(userSim);
             }
         }
 
-        // Batch save
-        logger.info("Saving {} user similarity records", similarities.size());
-        userSimilarityDAO.batchSave(similarities);
-        logger.info("User Similarity computation completed");
+        if (!similarities.isEmpty()) {
+            userSimilarityDAO.batchSave(similarities);
+        }
     }
 
     /**
@@ -0,0 +1,235 @@
+package com.clothes.service;
+
+import com.clothes.dao.ProductDAO;
+import com.clothes.dao.UserInteractionDAO;
+import com.clothes.model.Product;
+import com.clothes.model.ProductFilter;
+import com.clothes.model.UserInteraction;
+import com.clothes.util.SparseWeights;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Per-user preference profiles for search re-ranking
+ * A profile holds interaction-weighted affinities by category, brand, gender, price band
+ * and product. It is built once from the user's history, cached for recently active users
+ * (LRU) and updated incrementally on each recorded interaction.
+ */
+@Service
+public class UserPreferenceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserPreferenceService.class);
+
+    // How much each affinity contributes to the re-ranking boost
+    private static final double WEIGHT_CATEGORY = 0.3;
+    private static final double WEIGHT_BRAND = 0.2;
+    private static final double WEIGHT_GENDER = 0.1;
+    private static final double WEIGHT_PRICE_BAND = 0.1;
+    private static final double WEIGHT_PRODUCT = 0.3;
+
+    private final UserInteractionDAO userInteractionDAO;
+    private final ProductDAO productDAO;
+    private final ProductCache productCache;
+    private final int maxUsers;
+
+    // Brand names mapped to dense ids shared by all profiles
+    private final Map<String, Integer> brandIds = new ConcurrentHashMap<>();
+    private final AtomicInteger nextBrandId = new AtomicInteger();
+
+    private final Map<Long, Profile> profiles;
+
+    public UserPreferenceService(UserInteractionDAO userInteractionDAO,
+            ProductDAO productDAO,
+            ProductCache productCache,
+            @Value("${recommendation.profiles.max-users:10000}") int maxUsers) {
+        this.userInteractionDAO = userInteractionDAO;
+        this.productDAO = productDAO;
+        this.productCache = productCache;
+        this.maxUsers = maxUsers;
+        this.profiles = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Profile> eldest) {
+                return size() > UserPreferenceService.this.maxUsers;
+            }
+        };
+    }
+
+    /**
+     * Get the profile of a user, building it from their history on first use
+     */
+    public Profile getProfile(Long userId) {
+        synchronized (profiles) {
+            Profile cached = profiles.get(userId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        Profile built = buildProfile(userId);
+        synchronized (profiles) {
+            Profile existing = profiles.putIfAbsent(userId, built);
+            return existing != null ? existing : built;
+        }
+    }
+
+    /**
+     * Fold a new interaction into the user's profile, if it is in memory
+     */
+    public void recordInteraction(Long userId, Long productId, UserInteraction interaction) {
+        if (userId == null || productId == null) {
+            return;
+        }
+        Profile profile;
+        synchronized (profiles) {
+            profile = profiles.get(userId);
+        }
+        if (profile == null) {
+            return;
+        }
+        productCache.findById(productId).ifPresent(product -> profile.add(product, interaction.getWeightedScore()));
+    }
+
+    /**
+     * Boost in [0, 1] for a product given the user's profile
+     */
+    public double getAffinity(Profile profile, Product product) {
+        if (profile.totalWeight <= 0) {
+            return 0.0;
+        }
+        synchronized (profile) {
+            double total = profile.totalWeight;
+            double boost = 0.0;
+            if (product.getCategoryId() != null) {
+                boost += WEIGHT_CATEGORY * profile.categories.get(product.getCategoryId()) / total;
+            }
+            Integer brandId = brandId(product.getBrand(), false);
+            if (brandId != null) {
+                boost += WEIGHT_BRAND * profile.brands.get(brandId) / total;
+            }
+            if (product.getGender() != null) {
+                boost += WEIGHT_GENDER * profile.genders[product.getGender().ordinal()] / total;
+            }
+            int band = priceBand(product);
+            if (band >= 0) {
+                boost += WEIGHT_PRICE_BAND * profile.priceBands[band] / total;
+            }
+            double productWeight = profile.products.get(product.getProductId());
+            boost += WEIGHT_PRODUCT * Math.min(1.0, productWeight / profile.maxProductWeight);
+            return boost;
+        }
+    }
+
+    public void evict(Long userId) {
+        synchronized (profiles) {
+            profiles.remove(userId);
+        }
+    }
+
+    /**
+     * Cached profiles and their approximate memory use
+     */
+    public Map<String, Object> getStats() {
+        synchronized (profiles) {
+            long bytes = 0;
+            for (Profile profile : profiles.values()) {
+                bytes += profile.getSizeInBytes();
+            }
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("users", profiles.size());
+            stats.put("maxUsers", maxUsers);
+            stats.put("brands", brandIds.size());
+            stats.put("approxBytes", bytes);
+            return stats;
+        }
+    }
+
+    private Profile buildProfile(Long userId) {
+        List<UserInteraction> history = userInteractionDAO.findByUserId(userId);
+        Profile profile = new Profile();
+        if (history.isEmpty()) {
+            return profile;
+        }
+
+        List<Long> productIds = history.stream()
+                .map(UserInteraction::getProductId)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productDAO.findByIds(productIds)) {
+            products.put(product.getProductId(), product);
+        }
+
+        for (UserInteraction interaction : history) {
+            Product product = products.get(interaction.getProductId());
+            if (product != null) {
+                profile.add(product, interaction.getWeightedScore());
+            }
+        }
+        logger.debug("Built preference profile for user {} from {} interactions", userId, history.size());
+        return profile;
+    }
+
+    private Integer brandId(String brand, boolean create) {
+        if (brand == null || brand.isBlank()) {
+            return null;
+        }
+        String key = brand.trim().toLowerCase(Locale.ROOT);
+        if (create) {
+            return brandIds.computeIfAbsent(key, k -> nextBrandId.getAndIncrement());
+        }
+        return brandIds.get(key);
+    }
+
+    // Same bands as the listing's price filter, applied to the price actually paid
+    private static int priceBand(Product product) {
+        BigDecimal price = product.getDiscountPrice() != null ? product.getDiscountPrice() : product.getPrice();
+        return ProductFilter.priceBucket(price);
+    }
+
+    /**
+     * Interaction-weighted affinities of one user
+     */
+    public class Profile {
+        private final SparseWeights categories = new SparseWeights();
+        private final SparseWeights brands = new SparseWeights();
+        private final SparseWeights products = new SparseWeights(16);
+        private final float[] genders = new float[Product.Gender.values().length];
+        private final float[] priceBands = new float[ProductFilter.PRICE_BUCKET_LIMITS.length + 1];
+        private volatile double totalWeight;
+        private double maxProductWeight;
+
+        synchronized void add(Product product, double weight) {
+            float w = (float) weight;
+            if (product.getCategoryId() != null) {
+                categories.add(product.getCategoryId(), w);
+            }
+            Integer brandId = brandId(product.getBrand(), true);
+            if (brandId != null) {
+                brands.add(brandId, w);
+            }
+            if (product.getGender() != null) {
+                genders[product.getGender().ordinal()] += w;
+            }
+            int band = priceBand(product);
+            if (band >= 0) {
+                priceBands[band] += w;
+            }
+            products.add(product.getProductId(), w);
+            maxProductWeight = Math.max(maxProductWeight, products.get(product.getProductId()));
+            totalWeight += weight;
+        }
+
+        synchronized long getSizeInBytes() {
+            return categories.getSizeInBytes() + brands.getSizeInBytes() + products.getSizeInBytes()
+                    + genders.length * 4L + priceBands.length * 4L;
+        }
+    }
+}
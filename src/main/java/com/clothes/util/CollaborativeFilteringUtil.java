@@ -8,6 +8,52 @@ import java.util.*;
  */
 public class CollaborativeFilteringUtil {
 
+    /**
+     * Metric of a pairwise similarity job
+     */
+    public enum Metric {
+        COSINE, PEARSON;
+
+        /**
+         * Metric named on a worker command line; anything but "pearson" is cosine
+         */
+        public static Metric fromName(String name) {
+            return "pearson".equalsIgnoreCase(name) ? PEARSON : COSINE;
+        }
+
+        public double similarity(Map<Long, Double> vector1, Map<Long, Double> vector2) {
+            return this == PEARSON ? pearsonCorrelation(vector1, vector2) : cosineSimilarity(vector1, vector2);
+        }
+
+        /**
+         * Whether a score is worth storing; strong negative correlations count for Pearson
+         */
+        public boolean isMeaningful(double similarity, double threshold) {
+            return this == PEARSON ? Math.abs(similarity) > threshold : similarity > threshold;
+        }
+    }
+
+    /**
+     * Similarities of ids[index] to every later id, keeping only meaningful scores
+     * One row of the upper triangle of the similarity matrix, shared by the in-process
+     * jobs and SimilarityShardWorker so both store the same pairs.
+     *
+     * @return Later ids in list order, mapped to their similarity
+     */
+    public static Map<Long, Double> similaritiesToLater(List<Long> ids, Map<Long, Map<Long, Double>> vectors,
+            int index, Metric metric, double threshold) {
+        Map<Long, Double> row = new LinkedHashMap<>();
+        Map<Long, Double> vector1 = vectors.get(ids.get(index));
+        for (int j = index + 1; j < ids.size(); j++) {
+            Long id2 = ids.get(j);
+            double similarity = metric.similarity(vector1, vectors.get(id2));
+            if (metric.isMeaningful(similarity, threshold)) {
+                row.put(id2, similarity);
+            }
+        }
+        return row;
+    }
+
     /**
      * Calculate Cosine Similarity between two vectors
      * Used for both user-based and item-based CF
@@ -0,0 +1,160 @@
+package com.clothes.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Compact set of non-negative ids, roaring-bitmap style
+ * Ids are split into a 16-bit high key and a 16-bit low part. Each key holds a container:
+ * a sorted char array while it has at most 4096 members, a 65536-bit bitmap after that.
+ * Sparse sets cost about 2 bytes per id, dense ones about 1 bit per id, with no boxing.
+ * Auto-increment product ids are already dense, so they are used directly as indices.
+ * Methods are synchronized so one instance can be read and updated from several threads.
+ */
+public class CompactBitmap {
+
+    // Largest id that fits in 16 + 16 bits
+    public static final long MAX_ID = 0xFFFFFFFFL;
+
+    private static final int ARRAY_CONTAINER_MAX = 4096;
+    private static final int BITMAP_WORDS = 1024;
+
+    private int[] keys = new int[4];
+    private Container[] containers = new Container[4];
+    private int size;
+    private int cardinality;
+
+    /**
+     * Build a bitmap from a collection of ids
+     */
+    public static CompactBitmap of(Collection<Long> ids) {
+        CompactBitmap bitmap = new CompactBitmap();
+        for (Long id : ids) {
+            if (id != null) {
+                bitmap.add(id);
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * Add an id; returns false if it was already present
+     */
+    public synchronized boolean add(long id) {
+        if (id < 0 || id > MAX_ID) {
+            throw new IllegalArgumentException("Id out of bitmap range: " + id);
+        }
+        int key = (int) (id >>> 16);
+        char low = (char) id;
+
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, key);
+        }
+
+        boolean added = containers[index].add(low);
+        if (added) {
+            cardinality++;
+        }
+        return added;
+    }
+
+    /**
+     * Check whether an id is present
+     */
+    public synchronized boolean contains(long id) {
+        if (id < 0 || id > MAX_ID) {
+            return false;
+        }
+        int index = Arrays.binarySearch(keys, 0, size, (int) (id >>> 16));
+        return index >= 0 && containers[index].contains((char) id);
+    }
+
+    public synchronized int getCardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Approximate heap footprint of the containers in bytes
+     */
+    public synchronized long getSizeInBytes() {
+        long bytes = keys.length * 4L + containers.length * 8L;
+        for (int i = 0; i < size; i++) {
+            bytes += containers[i].getSizeInBytes();
+        }
+        return bytes;
+    }
+
+    private void insertContainer(int index, int key) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = new Container();
+        size++;
+    }
+
+    /**
+     * Low 16 bits of the ids sharing one high key
+     */
+    private static final class Container {
+        private char[] array = new char[4];
+        private long[] bitmap;
+        private int cardinality;
+
+        boolean contains(char low) {
+            if (bitmap != null) {
+                return (bitmap[low >>> 6] & (1L << low)) != 0;
+            }
+            return Arrays.binarySearch(array, 0, cardinality, low) >= 0;
+        }
+
+        boolean add(char low) {
+            if (bitmap != null) {
+                long mask = 1L << low;
+                if ((bitmap[low >>> 6] & mask) != 0) {
+                    return false;
+                }
+                bitmap[low >>> 6] |= mask;
+                cardinality++;
+                return true;
+            }
+
+            int index = Arrays.binarySearch(array, 0, cardinality, low);
+            if (index >= 0) {
+                return false;
+            }
+
+            if (cardinality == ARRAY_CONTAINER_MAX) {
+                toBitmap();
+                return add(low);
+            }
+
+            index = -index - 1;
+            if (cardinality == array.length) {
+                array = Arrays.copyOf(array, Math.min(ARRAY_CONTAINER_MAX, cardinality * 2));
+            }
+            System.arraycopy(array, index, array, index + 1, cardinality - index);
+            array[index] = low;
+            cardinality++;
+            return true;
+        }
+
+        long getSizeInBytes() {
+            return bitmap != null ? BITMAP_WORDS * 8L : array.length * 2L;
+        }
+
+        private void toBitmap() {
+            bitmap = new long[BITMAP_WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                char low = array[i];
+                bitmap[low >>> 6] |= 1L << low;
+            }
+            array = null;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.clothes.util;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming RFC 4180 CSV reader
+ * Reads one record at a time, so memory stays flat whatever the file size. Handles quoted
+ * fields with commas, doubled quotes and line breaks, CRLF or LF line ends and a UTF-8 BOM.
+ */
+public class CsvReader implements Closeable {
+
+    // A single field longer than this is treated as a broken file rather than buffered
+    private static final int MAX_FIELD_LENGTH = 1 << 20;
+
+    private final Reader reader;
+    private final char separator;
+    private int line = 1;
+    private int recordLine;
+    private boolean started;
+    // One character of lookahead after a bare CR; -2 when empty
+    private int pushBack = -2;
+
+    public CsvReader(Reader reader) {
+        this(reader, ',');
+    }
+
+    public CsvReader(Reader reader, char separator) {
+        this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+        this.separator = separator;
+    }
+
+    /**
+     * Next record, or null at the end of input
+     * Blank lines are skipped.
+     */
+    public List<String> next() throws IOException {
+        while (true) {
+            List<String> record = readRecord();
+            if (record == null) {
+                return null;
+            }
+            if (record.size() > 1 || !record.get(0).isEmpty()) {
+                return record;
+            }
+        }
+    }
+
+    /**
+     * Line the last returned record started on, 1-based
+     */
+    public int getLineNumber() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private List<String> readRecord() throws IOException {
+        int c = read();
+        if (!started) {
+            started = true;
+            if (c == '\uFEFF') {
+                c = read();
+            }
+        }
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStart = true;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                }
+                if (c == '"') {
+                    c = read();
+                    if (c == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+                fieldStart = false;
+            } else if (c == separator) {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldStart = true;
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    c = read();
+                    if (c != '\n') {
+                        pushBack = c;
+                    }
+                }
+                if (c != -1) {
+                    line++;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+                fieldStart = false;
+            }
+            if (field.length() > MAX_FIELD_LENGTH) {
+                throw new IOException("Field longer than " + MAX_FIELD_LENGTH + " characters on line " + recordLine);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (pushBack != -2) {
+            int c = pushBack;
+            pushBack = -2;
+            return c;
+        }
+        return reader.read();
+    }
+}
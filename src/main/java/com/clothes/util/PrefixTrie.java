@@ -0,0 +1,225 @@
+package com.clothes.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Weighted prefix trie for typeahead suggestions
+ * Labels are folded with TextNormalizer and indexed from every word start, so "khoac" finds
+ * "Áo khoác". Each node keeps its best entries by weight, so a lookup only walks the prefix.
+ * Entries can be added, re-weighted and removed one at a time. Not thread-safe.
+ */
+public class PrefixTrie<K, V> {
+
+    // Keys are indexed up to this length; longer queries are cut to it
+    private static final int MAX_KEY_LENGTH = 40;
+    // Word starts indexed per label
+    private static final int MAX_WORD_STARTS = 6;
+
+    private static final Comparator<Entry<?, ?>> BY_WEIGHT = Comparator
+            .comparingLong((Entry<?, ?> e) -> e.weight).reversed()
+            .thenComparing(e -> e.key);
+
+    private final int topSize;
+    private final Node<K, V> root = new Node<>();
+    private final Map<K, Entry<K, V>> entries = new HashMap<>();
+
+    public PrefixTrie(int topSize) {
+        this.topSize = topSize;
+    }
+
+    /**
+     * Add an entry, or replace the label, weight and value of an existing one
+     */
+    public void put(K id, String label, long weight, V value) {
+        remove(id);
+        List<String> keys = keys(label);
+        if (keys.isEmpty()) {
+            return;
+        }
+        Entry<K, V> entry = new Entry<>(id, label, weight, value, keys.get(0), keys);
+        entries.put(id, entry);
+        for (String key : keys) {
+            insert(key, entry);
+        }
+    }
+
+    public void remove(K id) {
+        Entry<K, V> entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        for (String key : entry.keys) {
+            delete(key, entry);
+        }
+    }
+
+    public Entry<K, V> get(K id) {
+        return entries.get(id);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Best entries whose label has a word sequence starting with the query, highest weight first
+     */
+    public List<Entry<K, V>> complete(String query, int limit) {
+        String prefix = String.join(" ", TextNormalizer.tokenize(query));
+        if (prefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        if (prefix.length() > MAX_KEY_LENGTH) {
+            prefix = prefix.substring(0, MAX_KEY_LENGTH);
+        }
+        Node<K, V> node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        List<Entry<K, V>> top = node.top;
+        return new ArrayList<>(top.subList(0, Math.min(limit, top.size())));
+    }
+
+    private void insert(String key, Entry<K, V> entry) {
+        Node<K, V> node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new Node<>());
+            node.count++;
+            offer(node, entry);
+        }
+        node.terminal.add(entry);
+    }
+
+    private void delete(String key, Entry<K, V> entry) {
+        List<Node<K, V>> path = new ArrayList<>(key.length());
+        Node<K, V> node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.get(key.charAt(i));
+            if (node == null) {
+                return;
+            }
+            path.add(node);
+        }
+        node.terminal.remove(entry);
+
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node<K, V> current = path.get(i);
+            current.count--;
+            if (current.count == 0) {
+                Node<K, V> parent = i > 0 ? path.get(i - 1) : root;
+                parent.children.remove(key.charAt(i));
+                continue;
+            }
+            if (current.top.remove(entry) && current.count > current.top.size()) {
+                refill(current);
+            }
+        }
+    }
+
+    private void offer(Node<K, V> node, Entry<K, V> entry) {
+        List<Entry<K, V>> top = node.top;
+        if (top.contains(entry)) {
+            return;
+        }
+        if (top.size() >= topSize && BY_WEIGHT.compare(entry, top.get(top.size() - 1)) >= 0) {
+            return;
+        }
+        int position = 0;
+        while (position < top.size() && BY_WEIGHT.compare(top.get(position), entry) < 0) {
+            position++;
+        }
+        top.add(position, entry);
+        if (top.size() > topSize) {
+            top.remove(top.size() - 1);
+        }
+    }
+
+    // Recompute a node's best entries from its subtree after one of them was removed
+    private void refill(Node<K, V> node) {
+        Map<K, Entry<K, V>> subtree = new LinkedHashMap<>();
+        collect(node, subtree);
+        List<Entry<K, V>> best = new ArrayList<>(subtree.values());
+        best.sort(BY_WEIGHT);
+        node.top.clear();
+        node.top.addAll(best.subList(0, Math.min(topSize, best.size())));
+    }
+
+    private void collect(Node<K, V> node, Map<K, Entry<K, V>> into) {
+        for (Entry<K, V> entry : node.terminal) {
+            into.putIfAbsent(entry.id, entry);
+        }
+        for (Node<K, V> child : node.children.values()) {
+            collect(child, into);
+        }
+    }
+
+    // Folded label from each of its first word starts
+    private static List<String> keys(String label) {
+        List<String> tokens = TextNormalizer.tokenize(label);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < tokens.size() && i < MAX_WORD_STARTS; i++) {
+            String key = String.join(" ", tokens.subList(i, tokens.size()));
+            if (key.length() > MAX_KEY_LENGTH) {
+                key = key.substring(0, MAX_KEY_LENGTH);
+            }
+            if (!keys.contains(key)) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    private static class Node<K, V> {
+        private final Map<Character, Node<K, V>> children = new HashMap<>(4);
+        private final List<Entry<K, V>> top = new ArrayList<>(2);
+        private final List<Entry<K, V>> terminal = new ArrayList<>(1);
+        // Keys passing through this node
+        private int count;
+    }
+
+    /**
+     * One suggestion
+     */
+    public static final class Entry<K, V> {
+        private final K id;
+        private final String label;
+        private final long weight;
+        private final V value;
+        // Folded label, breaks weight ties alphabetically
+        private final String key;
+        private final List<String> keys;
+
+        private Entry(K id, String label, long weight, V value, String key, List<String> keys) {
+            this.id = id;
+            this.label = label;
+            this.weight = weight;
+            this.value = value;
+            this.key = key;
+            this.keys = keys;
+        }
+
+        public K getId() {
+            return id;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public long getWeight() {
+            return weight;
+        }
+
+        public V getValue() {
+            return value;
+        }
+    }
+}
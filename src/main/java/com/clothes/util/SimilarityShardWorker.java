@@ -0,0 +1,139 @@
+package com.clothes.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Stand-alone worker process for sharded similarity computation
+ * Reads a shared vector snapshot and computes the similarity rows of one shard
+ * (ids with id mod shards == shard) against every later id, writing "id1 TAB id2 TAB score" lines.
+ *
+ * Usage (normally launched by ShardedSimilarityService, but can be started by hand):
+ * java -cp target/classes com.clothes.util.SimilarityShardWorker
+ * --snapshot=vectors.tsv --shard=0 --shards=4 --metric=cosine --threshold=0.1 --out=shard-0.tsv
+ */
+public final class SimilarityShardWorker {
+
+    private SimilarityShardWorker() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parseArgs(args);
+
+        Path snapshot = Paths.get(required(options, "snapshot"));
+        int shard = Integer.parseInt(required(options, "shard"));
+        int shards = Integer.parseInt(required(options, "shards"));
+        String metric = options.getOrDefault("metric", "cosine");
+        double threshold = Double.parseDouble(options.getOrDefault("threshold", "0.1"));
+        Path out = Paths.get(required(options, "out"));
+
+        long startTime = System.currentTimeMillis();
+        Map<Long, Map<Long, Double>> vectors = readSnapshot(snapshot);
+        System.out.println("Shard " + shard + "/" + shards + ": loaded " + vectors.size() + " vectors");
+
+        int rows = computeShard(vectors, shard, shards, metric, threshold, out);
+
+        long duration = System.currentTimeMillis() - startTime;
+        System.out.println("Shard " + shard + "/" + shards + ": computed " + rows + " rows in " + duration + " ms");
+    }
+
+    /**
+     * Compute the rows of one shard and write them to the output file
+     * The file only appears under its final name once complete, so a crashed worker leaves no output
+     */
+    public static int computeShard(Map<Long, Map<Long, Double>> vectors, int shard, int shards,
+            String metric, double threshold, Path out) throws IOException {
+        List<Long> ids = new ArrayList<>(vectors.keySet());
+        Collections.sort(ids);
+        CollaborativeFilteringUtil.Metric similarityMetric = CollaborativeFilteringUtil.Metric.fromName(metric);
+
+        Path partial = out.resolveSibling(out.getFileName() + ".part");
+        int rows = 0;
+
+        try (BufferedWriter writer = Files.newBufferedWriter(partial, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < ids.size(); i++) {
+                Long id1 = ids.get(i);
+                if (!isInShard(id1, shard, shards)) {
+                    continue;
+                }
+                Map<Long, Double> row = CollaborativeFilteringUtil.similaritiesToLater(ids, vectors, i,
+                        similarityMetric, threshold);
+                for (Map.Entry<Long, Double> pair : row.entrySet()) {
+                    writer.write(id1 + "\t" + pair.getKey() + "\t" + pair.getValue());
+                    writer.newLine();
+                }
+                rows++;
+            }
+        }
+
+        Files.move(partial, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return rows;
+    }
+
+    /**
+     * Check which shard owns an id
+     */
+    public static boolean isInShard(long id, int shard, int shards) {
+        return Math.floorMod(id, shards) == shard;
+    }
+
+    /**
+     * Write vectors as "rowId TAB colId TAB value" lines
+     */
+    public static void writeSnapshot(Path file, Map<Long, Map<Long, Double>> vectors) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (Map.Entry<Long, Map<Long, Double>> row : vectors.entrySet()) {
+                for (Map.Entry<Long, Double> cell : row.getValue().entrySet()) {
+                    writer.write(row.getKey() + "\t" + cell.getKey() + "\t" + cell.getValue());
+                    writer.newLine();
+                }
+            }
+        }
+    }
+
+    /**
+     * Read vectors written by writeSnapshot
+     */
+    public static Map<Long, Map<Long, Double>> readSnapshot(Path file) throws IOException {
+        Map<Long, Map<Long, Double>> vectors = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t");
+                if (parts.length != 3) {
+                    continue;
+                }
+                vectors.computeIfAbsent(Long.parseLong(parts[0]), k -> new HashMap<>())
+                        .put(Long.parseLong(parts[1]), Double.parseDouble(parts[2]));
+            }
+        }
+        return vectors;
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int eq = arg.indexOf('=');
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return options;
+    }
+
+    private static String required(Map<String, String> options, String name) {
+        String value = options.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing required option --" + name);
+        }
+        return value;
+    }
+}
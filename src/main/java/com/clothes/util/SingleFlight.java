@@ -0,0 +1,92 @@
+package com.clothes.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * Coalesces concurrent computations of the same ranked list
+ * The first caller for a key computes; callers arriving while it runs wait for that result
+ * and take its first {@code limit} items, as long as the running call asked for at least as many.
+ * Nothing is kept once the computation finishes, so this is not a cache.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, Call<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder computed = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+
+    /**
+     * Compute the list for a key, or share the result of an in-flight computation
+     */
+    public List<V> execute(K key, int limit, IntFunction<List<V>> loader) {
+        Call<V> call = new Call<>(limit);
+        Call<V> existing = inFlight.putIfAbsent(key, call);
+
+        if (existing != null) {
+            if (existing.limit >= limit) {
+                shared.increment();
+                List<V> result = await(existing);
+                return new ArrayList<>(result.subList(0, Math.min(limit, result.size())));
+            }
+            // The running call is too short for this caller; compute independently
+            computed.increment();
+            return loader.apply(limit);
+        }
+
+        computed.increment();
+        try {
+            List<V> result = loader.apply(limit);
+            call.future.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            call.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * Number of computations actually run
+     */
+    public long getComputedCount() {
+        return computed.sum();
+    }
+
+    /**
+     * Number of callers served from another caller's computation
+     */
+    public long getSharedCount() {
+        return shared.sum();
+    }
+
+    private List<V> await(Call<V> call) {
+        try {
+            return call.future.join();
+        } catch (CompletionException e) {
+            // Rethrow the loader's own exception to waiting callers
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static class Call<V> {
+        final int limit;
+        final CompletableFuture<List<V>> future = new CompletableFuture<>();
+
+        Call(int limit) {
+            this.limit = limit;
+        }
+    }
+}
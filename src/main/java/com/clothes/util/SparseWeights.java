@@ -0,0 +1,65 @@
+package com.clothes.util;
+
+import java.util.Arrays;
+
+/**
+ * Small map from long keys to float weights backed by two parallel sorted arrays
+ * Lookups are a binary search with no boxing; meant for a few dozen to a few hundred keys.
+ * Not thread-safe; callers synchronize.
+ */
+public class SparseWeights {
+
+    private long[] keys;
+    private float[] weights;
+    private int size;
+
+    public SparseWeights() {
+        this(8);
+    }
+
+    public SparseWeights(int initialCapacity) {
+        this.keys = new long[Math.max(1, initialCapacity)];
+        this.weights = new float[keys.length];
+    }
+
+    /**
+     * Add delta to the weight of a key, inserting it if missing
+     */
+    public void add(long key, float delta) {
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        if (index >= 0) {
+            weights[index] += delta;
+            return;
+        }
+
+        index = -index - 1;
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            weights = Arrays.copyOf(weights, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(weights, index, weights, index + 1, size - index);
+        keys[index] = key;
+        weights[index] = delta;
+        size++;
+    }
+
+    /**
+     * Weight of a key, 0 if absent
+     */
+    public float get(long key) {
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        return index >= 0 ? weights[index] : 0f;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Approximate heap footprint in bytes
+     */
+    public long getSizeInBytes() {
+        return keys.length * 8L + weights.length * 4L;
+    }
+}
@@ -16,11 +16,10 @@ $(document).ready(function() {
         return new bootstrap.Popover(popoverTriggerEl);
     });
 
-    // Load cart count
-    loadCartCount();
-    
-    // Load wishlist count
-    loadWishlistCount();
+    // Load cart and wishlist badge counts
+    loadBadgeCounts();
+
+    initSearchSuggestions();
 });
 
 // Cart functions
@@ -37,7 +36,7 @@ function addToCart(productId, quantity = 1, size = null, color = null) {
         success: function(response) {
             if (response.success) {
                 showNotification('Đã thêm vào giỏ hàng!', 'success');
-                loadCartCount();
+                loadBadgeCounts();
                 
                 // Show mini cart preview
                 showMiniCart();
@@ -94,14 +93,27 @@ function removeCartItem(cartItemId) {
     }
 }
 
-function loadCartCount() {
-    $.get('/cart/count', function(response) {
-        if (response.count !== undefined) {
-            $('.fa-shopping-cart').parent().find('.badge').text(response.count);
-        }
+// Both header badges in one request; the server answers from its session cache
+function loadBadgeCounts() {
+    $.get('/badges', function(response) {
+        renderBadge('.fa-shopping-cart', response.cart);
+        renderBadge('.fa-heart', response.wishlist);
     });
 }
 
+function renderBadge(iconSelector, count) {
+    if (count === undefined) {
+        return;
+    }
+    const link = $(iconSelector).first().parent();
+    let badge = link.find('.badge');
+    if (badge.length === 0) {
+        badge = $('<span class="position-absolute top-0 start-100 translate-middle badge rounded-pill bg-danger"></span>')
+            .appendTo(link);
+    }
+    badge.text(count).toggle(count > 0);
+}
+
 function showMiniCart() {
     // Can implement a mini cart dropdown here
     console.log('Mini cart preview');
@@ -122,7 +134,7 @@ function toggleWishlist(productId, button) {
                     $(button).find('i').removeClass('fas').addClass('far').css('color', '');
                     showNotification('Đã xóa khỏi danh sách yêu thích!', 'info');
                 }
-                loadWishlistCount();
+                loadBadgeCounts();
             } else {
                 showNotification(response.message || 'Có lỗi xảy ra!', 'error');
             }
@@ -158,14 +170,6 @@ function removeFromWishlist(wishlistId) {
     }
 }
 
-function loadWishlistCount() {
-    $.get('/wishlist/count', function(response) {
-        if (response.count !== undefined) {
-            $('.fa-heart').parent().find('.badge').text(response.count);
-        }
-    });
-}
-
 // Notification function
 function showNotification(message, type = 'info') {
     const bgClass = {
@@ -387,6 +391,49 @@ if ($('#priceRange').length) {
     });
 }
 
+// Search suggestions
+function initSearchSuggestions() {
+    const input = $('#searchInput');
+    const menu = $('#searchSuggestions');
+    if (!input.length) return;
+
+    let timer = null;
+    let lastQuery = '';
+    input.on('input', function() {
+        clearTimeout(timer);
+        const query = $(this).val().trim();
+        if (query.length < 2) {
+            menu.removeClass('show').empty();
+            return;
+        }
+        timer = setTimeout(function() {
+            lastQuery = query;
+            $.get('/products/suggest', { q: query, limit: 5 }, function(response) {
+                if (query !== lastQuery) return;
+                renderSearchSuggestions(menu, response);
+            });
+        }, 150);
+    });
+    input.on('blur', function() {
+        setTimeout(function() { menu.removeClass('show'); }, 200);
+    });
+}
+
+function renderSearchSuggestions(menu, response) {
+    menu.empty();
+    const addGroup = function(title, items, link) {
+        if (!items || !items.length) return;
+        menu.append($('<h6 class="dropdown-header"></h6>').text(title));
+        items.forEach(function(item) {
+            menu.append($('<a class="dropdown-item"></a>').attr('href', link(item)).text(item.label));
+        });
+    };
+    addGroup('Sản phẩm', response.products, item => '/products/' + item.productId);
+    addGroup('Thương hiệu', response.brands, item => '/products?brand=' + encodeURIComponent(item.label));
+    addGroup('Danh mục', response.categories, item => '/products?categoryId=' + item.categoryId);
+    menu.toggleClass('show', menu.children().length > 0);
+}
+
 // Format number
 function formatNumber(num) {
     return new Intl.NumberFormat('vi-VN').format(num);
@@ -0,0 +1,83 @@
+package com.clothes.dao;
+
+import com.clothes.model.ProductCursor;
+import com.clothes.model.ProductFilter;
+import com.clothes.model.ProductSort;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductDAOTest {
+
+    /**
+     * Records the last query instead of running it
+     */
+    private static class RecordingJdbcTemplate extends JdbcTemplate {
+        String sql;
+        List<Object> args;
+
+        @Override
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            this.sql = sql;
+            this.args = Arrays.asList(args);
+            return List.of();
+        }
+    }
+
+    private final RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate();
+    private final ProductDAO productDAO = new ProductDAO(jdbcTemplate);
+
+    @Test
+    void ascendingPageOrdersNullKeysLast() {
+        productDAO.findCardPage(new ProductFilter(), ProductSort.PRICE_ASC, null, 20);
+
+        assertTrue(jdbcTemplate.sql.endsWith(" ORDER BY price IS NULL, price ASC, product_id ASC LIMIT ?"),
+                jdbcTemplate.sql);
+    }
+
+    @Test
+    void pageAfterNonNullKeyContinuesIntoNullKeys() {
+        ProductCursor cursor = new ProductCursor(ProductSort.PRICE_ASC, "150000", 7L);
+        productDAO.findCardPage(new ProductFilter(), ProductSort.PRICE_ASC, cursor, 20);
+
+        assertTrue(jdbcTemplate.sql.contains(" AND ((price, product_id) > (?, ?) OR price IS NULL)"),
+                jdbcTemplate.sql);
+        assertEquals(List.of(new BigDecimal("150000"), 7L, 20), jdbcTemplate.args);
+    }
+
+    @Test
+    void pageAfterNullKeyOnlyReadsLaterNullKeys() {
+        ProductCursor cursor = new ProductCursor(ProductSort.PRICE_ASC, null, 7L);
+        productDAO.findCardPage(new ProductFilter(), ProductSort.PRICE_ASC, cursor, 20);
+
+        assertTrue(jdbcTemplate.sql.contains(" AND price IS NULL AND product_id > ?"), jdbcTemplate.sql);
+        assertEquals(List.of(7L, 20), jdbcTemplate.args);
+    }
+
+    @Test
+    void descendingPageKeepsMysqlNullOrder() {
+        ProductCursor cursor = new ProductCursor(ProductSort.NEWEST, null, 7L);
+        productDAO.findCardPage(new ProductFilter(), ProductSort.NEWEST, cursor, 20);
+
+        assertTrue(jdbcTemplate.sql.contains(" AND created_at IS NULL AND product_id < ?"), jdbcTemplate.sql);
+        assertTrue(jdbcTemplate.sql.endsWith(" ORDER BY created_at DESC, product_id DESC LIMIT ?"),
+                jdbcTemplate.sql);
+    }
+
+    @Test
+    void popularPageSeeksOnIndexedScore() {
+        ProductCursor cursor = new ProductCursor(ProductSort.POPULAR, "42", 7L);
+        productDAO.findCardPage(new ProductFilter(), ProductSort.POPULAR, cursor, 20);
+
+        assertTrue(jdbcTemplate.sql.contains(" AND ((popularity_score, product_id) < (?, ?)"), jdbcTemplate.sql);
+        assertTrue(jdbcTemplate.sql.endsWith(" ORDER BY popularity_score DESC, product_id DESC LIMIT ?"),
+                jdbcTemplate.sql);
+    }
+}
@@ -0,0 +1,84 @@
+package com.clothes.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CategoryTreeTest {
+
+    private static Category category(long id, Long parentId) {
+        Category category = new Category(id, "c" + id);
+        category.setParentId(parentId);
+        return category;
+    }
+
+    // 1 > (2 > 4, 3); 5 alone
+    private static CategoryTree sampleTree() {
+        return new CategoryTree(
+                List.of(category(1, null), category(2, 1L), category(3, 1L), category(4, 2L), category(5, null)),
+                Map.of(1L, 1, 2L, 2, 4L, 4, 5L, 5));
+    }
+
+    @Test
+    void countsRollUpThroughTheSubtree() {
+        CategoryTree tree = sampleTree();
+
+        assertEquals(7, tree.getSubtreeProductCount(1L));
+        assertEquals(6, tree.getSubtreeProductCount(2L));
+        assertEquals(0, tree.getSubtreeProductCount(3L));
+        assertEquals(1, tree.getDirectProductCount(1L));
+        assertEquals(Integer.valueOf(7), tree.find(1L).get().getProductCount());
+    }
+
+    @Test
+    void directCountCopiesKeepParentsAndDoNotTouchTheTree() {
+        CategoryTree tree = sampleTree();
+
+        List<Category> direct = tree.getCategoriesWithDirectCounts();
+        Category two = direct.get(1);
+
+        assertEquals(Integer.valueOf(1), direct.get(0).getProductCount());
+        assertEquals(Integer.valueOf(2), two.getProductCount());
+        assertEquals(Integer.valueOf(0), direct.get(2).getProductCount());
+        assertSame(tree.find(1L).get(), two.getParentCategory());
+
+        two.setProductCount(99);
+        assertEquals(Integer.valueOf(6), tree.find(2L).get().getProductCount());
+    }
+
+    @Test
+    void descendantsIncludeTheCategoryItself() {
+        CategoryTree tree = sampleTree();
+
+        assertEquals(Set.of(1L, 2L, 3L, 4L), tree.getDescendantIds(1L));
+        assertEquals(Set.of(4L), tree.getDescendantIds(4L));
+        assertTrue(tree.getDescendantIds(42L).isEmpty());
+        assertEquals(List.of(2L, 4L, 5L, 42L), tree.withDescendants(List.of(2L, 5L, 42L)));
+    }
+
+    @Test
+    void missingOrLoopingParentsBecomeRoots() {
+        CategoryTree tree = new CategoryTree(
+                List.of(category(1, 2L), category(2, 1L), category(3, 99L)), Map.of());
+
+        assertEquals(3, tree.getRoots().size());
+        assertNull(tree.find(3L).get().getParentCategory());
+        assertTrue(tree.getParent(1L).isEmpty());
+    }
+
+    @Test
+    void rollUpSumsFacetCountsPerSubtree() {
+        Map<Long, Integer> rolled = sampleTree().rollUp(Map.of(3L, 2, 4L, 1));
+
+        assertEquals(Integer.valueOf(3), rolled.get(1L));
+        assertEquals(Integer.valueOf(1), rolled.get(2L));
+        assertEquals(Integer.valueOf(0), rolled.get(5L));
+    }
+}
@@ -0,0 +1,87 @@
+package com.clothes.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ProductCursorTest {
+
+    private static String rawCursor(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void encodeDecodeRoundTrip() {
+        Product product = new Product();
+        product.setProductId(42L);
+        product.setPrice(new BigDecimal("199000.50"));
+        product.setCreatedAt(LocalDateTime.of(2024, 3, 1, 10, 15, 30));
+
+        for (ProductSort sort : new ProductSort[]{ProductSort.PRICE_ASC, ProductSort.NEWEST}) {
+            ProductCursor cursor = ProductCursor.decode(ProductCursor.after(product, sort).encode(), sort);
+
+            assertEquals(sort, cursor.getSort());
+            assertEquals(sort.cursorKey(product), cursor.getKey());
+            assertEquals(Long.valueOf(42), cursor.getProductId());
+        }
+    }
+
+    @Test
+    void nameKeyMayContainSeparatorsAndAccents() {
+        ProductCursor original = new ProductCursor(ProductSort.NAME_ASC, "Áo thun\nbasic, trắng", 7L);
+
+        ProductCursor decoded = ProductCursor.decode(original.encode(), ProductSort.NAME_ASC);
+
+        assertEquals("Áo thun\nbasic, trắng", decoded.getKey());
+        assertEquals(Long.valueOf(7), decoded.getProductId());
+    }
+
+    @Test
+    void nullKeyRoundTripsAsNull() {
+        Product product = new Product();
+        product.setProductId(5L);
+
+        String encoded = ProductCursor.after(product, ProductSort.PRICE_DESC).encode();
+        ProductCursor decoded = ProductCursor.decode(encoded, ProductSort.PRICE_DESC);
+
+        assertNull(decoded.getKey());
+        assertEquals(Long.valueOf(5), decoded.getProductId());
+        assertNull(ProductSort.PRICE_DESC.sqlValue(decoded.getKey()));
+    }
+
+    @Test
+    void popularKeyTreatsMissingCountersAsZero() {
+        Product product = new Product();
+        product.setProductId(9L);
+        product.setPurchaseCount(3);
+
+        assertEquals("30", ProductSort.POPULAR.cursorKey(product));
+        ProductCursor decoded = ProductCursor.decode(ProductCursor.after(product, ProductSort.POPULAR).encode(),
+                ProductSort.POPULAR);
+        assertEquals(30L, ProductSort.POPULAR.sqlValue(decoded.getKey()));
+    }
+
+    @Test
+    void missingOrMalformedCursorDecodesToNull() {
+        assertNull(ProductCursor.decode(null, ProductSort.NEWEST));
+        assertNull(ProductCursor.decode("  ", ProductSort.NEWEST));
+        assertNull(ProductCursor.decode("not base64!", ProductSort.NEWEST));
+        assertNull(ProductCursor.decode(rawCursor("newest\n12"), ProductSort.NEWEST));
+        assertNull(ProductCursor.decode(rawCursor("newest\nabc\n2024-03-01T10:15:30"), ProductSort.NEWEST));
+        assertNull(ProductCursor.decode(rawCursor("price_asc\n12\ncheap"), ProductSort.PRICE_ASC));
+    }
+
+    @Test
+    void cursorOfAnotherSortDecodesToNull() {
+        String encoded = new ProductCursor(ProductSort.PRICE_ASC, "100", 3L).encode();
+
+        assertNull(ProductCursor.decode(encoded, ProductSort.PRICE_DESC));
+        assertEquals(Long.valueOf(3), ProductCursor.decode(encoded, ProductSort.PRICE_ASC).getProductId());
+    }
+}
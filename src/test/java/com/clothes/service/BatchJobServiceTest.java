@@ -0,0 +1,154 @@
+package com.clothes.service;
+
+import com.clothes.dao.JobCheckpointDAO;
+import com.clothes.model.JobCheckpoint;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BatchJobServiceTest {
+
+    /**
+     * Checkpoint store holding the last checkpoint in memory
+     */
+    private static class InMemoryCheckpoints extends JobCheckpointDAO {
+        JobCheckpoint checkpoint;
+
+        InMemoryCheckpoints() {
+            super(null);
+        }
+
+        @Override
+        public Optional<JobCheckpoint> findByJobName(String jobName) {
+            return Optional.ofNullable(checkpoint);
+        }
+
+        @Override
+        public void start(JobCheckpoint checkpoint) {
+            this.checkpoint = checkpoint;
+        }
+
+        @Override
+        public int resume(String jobName, String runId) {
+            checkpoint.setStatus(JobCheckpoint.Status.RUNNING);
+            return 1;
+        }
+
+        @Override
+        public int saveProgress(String jobName, String runId, int completedPartitions, long processedItems) {
+            checkpoint.setCompletedPartitions(completedPartitions);
+            checkpoint.setProcessedItems(processedItems);
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            return 1;
+        }
+
+        @Override
+        public int complete(String jobName, String runId) {
+            checkpoint.setStatus(JobCheckpoint.Status.COMPLETED);
+            return 1;
+        }
+
+        @Override
+        public int fail(String jobName, String runId, String error) {
+            checkpoint.setStatus(JobCheckpoint.Status.FAILED);
+            checkpoint.setLastError(error);
+            return 1;
+        }
+    }
+
+    private static List<Long> ids(long count) {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    @Test
+    void failedRunResumesAfterLastCompletedPartition() {
+        InMemoryCheckpoints checkpoints = new InMemoryCheckpoints();
+        BatchJobService service = new BatchJobService(checkpoints);
+        List<Integer> slices = new ArrayList<>();
+
+        assertThrows(IllegalStateException.class, () -> service.run(PartitionedJob.ofRange("sim", ids(10), 3,
+                (from, to) -> {
+                    if (from == 6) {
+                        throw new IllegalStateException("worker died");
+                    }
+                    slices.add(from);
+                })));
+        assertEquals(Integer.valueOf(2), checkpoints.checkpoint.getCompletedPartitions());
+        String firstRun = checkpoints.checkpoint.getRunId();
+
+        BatchJobService.JobProgress progress = service.run(
+                PartitionedJob.ofRange("sim", ids(10), 3, (from, to) -> slices.add(from)));
+
+        assertEquals(List.of(0, 3, 6, 9), slices);
+        assertEquals(firstRun, checkpoints.checkpoint.getRunId());
+        assertEquals(10L, progress.getProcessedItems());
+        assertEquals("completed", progress.getStatus());
+    }
+
+    @Test
+    void changedItemListStartsOver() {
+        InMemoryCheckpoints checkpoints = new InMemoryCheckpoints();
+        BatchJobService service = new BatchJobService(checkpoints);
+
+        assertThrows(IllegalStateException.class, () -> service.run(PartitionedJob.ofRange("sim", ids(10), 3,
+                (from, to) -> {
+                    if (from == 3) {
+                        throw new IllegalStateException("worker died");
+                    }
+                })));
+        String firstRun = checkpoints.checkpoint.getRunId();
+
+        // Same size and partition count, different ids
+        List<Long> changed = ids(10);
+        changed.set(0, 42L);
+        List<Integer> slices = new ArrayList<>();
+        service.run(PartitionedJob.ofRange("sim", changed, 3, (from, to) -> slices.add(from)));
+
+        assertEquals(List.of(0, 3, 6, 9), slices);
+        assertNotEquals(firstRun, checkpoints.checkpoint.getRunId());
+    }
+
+    @Test
+    void staleCheckpointIsNotResumed() {
+        InMemoryCheckpoints checkpoints = new InMemoryCheckpoints();
+        JobCheckpoint stale = new JobCheckpoint("sim", "old-run", 4, 10);
+        stale.setInputHash(PartitionedJob.inputHash(ids(10)));
+        stale.setCompletedPartitions(3);
+        stale.setUpdatedAt(LocalDateTime.now().minusDays(2));
+        checkpoints.checkpoint = stale;
+        List<Integer> slices = new ArrayList<>();
+
+        new BatchJobService(checkpoints).run(PartitionedJob.ofRange("sim", ids(10), 3, (from, to) -> slices.add(from)));
+
+        assertEquals(List.of(0, 3, 6, 9), slices);
+    }
+
+    @Test
+    void inputHashDependsOnOrderAndContent() {
+        assertEquals(PartitionedJob.inputHash(List.of(1L, 2L, 3L)), PartitionedJob.inputHash(List.of(1L, 2L, 3L)));
+        assertNotEquals(PartitionedJob.inputHash(List.of(1L, 2L, 3L)), PartitionedJob.inputHash(List.of(3L, 2L, 1L)));
+        assertNotEquals(PartitionedJob.inputHash(List.of(1L, 2L)), PartitionedJob.inputHash(List.of(1L, 2L, 3L)));
+    }
+
+    @Test
+    void rangeJobCutsTheLastPartitionShort() {
+        List<int[]> slices = new ArrayList<>();
+        PartitionedJob job = PartitionedJob.ofRange("sim", ids(7), 3, (from, to) -> slices.add(new int[]{from, to}));
+
+        assertEquals(3, job.getPartitionCount());
+        assertEquals(7L, job.runAll());
+        assertEquals(6, slices.get(2)[0]);
+        assertEquals(7, slices.get(2)[1]);
+    }
+}
@@ -0,0 +1,90 @@
+package com.clothes.service;
+
+import com.clothes.dao.CategoryDAO;
+import com.clothes.dao.ProductDAO;
+import com.clothes.model.Category;
+import com.clothes.model.Product;
+import com.clothes.model.ProductCard;
+import com.clothes.model.ProductCursor;
+import com.clothes.model.ProductFilter;
+import com.clothes.model.ProductSort;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProductFacetIndexTest {
+
+    private static Product product(long id, String price, LocalDateTime createdAt) {
+        Product product = new Product();
+        product.setProductId(id);
+        product.setProductName("Product " + id);
+        product.setPrice(price != null ? new BigDecimal(price) : null);
+        product.setCreatedAt(createdAt);
+        product.setIsActive(true);
+        return product;
+    }
+
+    private static ProductFacetIndex index(List<Product> products) {
+        ProductFacetIndex index = new ProductFacetIndex(new ProductDAO(null) {
+            @Override
+            public List<Product> findAllActive() {
+                return products;
+            }
+        }, new CategoryDAO(null) {
+            @Override
+            public List<Category> findAll() {
+                return List.of();
+            }
+        });
+        index.rebuild();
+        return index;
+    }
+
+    // Walks the listing one product per page, following the returned cursors
+    private static List<Long> pageThrough(ProductFacetIndex index, ProductSort sort) {
+        ProductFilter filter = new ProductFilter();
+        filter.setSort(sort);
+        List<Long> ids = new ArrayList<>();
+        ProductCursor cursor = null;
+        do {
+            ProductFacetIndex.FacetResult result = index.filterWithCounts(filter, null, cursor, 1);
+            for (ProductCard card : result.getProducts()) {
+                ids.add(card.getProductId());
+            }
+            cursor = result.getNextCursor() != null
+                    ? ProductCursor.decode(result.getNextCursor().encode(), sort)
+                    : null;
+        } while (cursor != null);
+        return ids;
+    }
+
+    @Test
+    void ascendingPagesReachNullKeysLast() {
+        ProductFacetIndex index = index(List.of(
+                product(1, "300000", null),
+                product(2, null, null),
+                product(3, "100000", null),
+                product(4, null, null),
+                product(5, "100000", null)));
+
+        assertEquals(List.of(3L, 5L, 1L, 2L, 4L), pageThrough(index, ProductSort.PRICE_ASC));
+    }
+
+    @Test
+    void descendingPagesReachNullKeysLast() {
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 12, 0);
+        ProductFacetIndex index = index(List.of(
+                product(1, "100000", now.minusDays(2)),
+                product(2, "100000", null),
+                product(3, "100000", now),
+                product(4, "100000", null),
+                product(5, "100000", now)));
+
+        assertEquals(List.of(5L, 3L, 1L, 4L, 2L), pageThrough(index, ProductSort.NEWEST));
+    }
+}
@@ -0,0 +1,122 @@
+package com.clothes.service;
+
+import com.clothes.dao.ProductDAO;
+import com.clothes.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProductSearchIndexTest {
+
+    private static Product product(long id, String name, String brand, String description) {
+        Product product = new Product();
+        product.setProductId(id);
+        product.setProductName(name);
+        product.setBrand(brand);
+        product.setDescription(description);
+        product.setIsActive(true);
+        return product;
+    }
+
+    private static ProductSearchIndex indexOf(Product... products) {
+        ProductSearchIndex index = new ProductSearchIndex(new ProductDAO(null) {
+            @Override
+            public List<Product> findAllActive() {
+                return List.of(products);
+            }
+        });
+        index.rebuild();
+        return index;
+    }
+
+    @Test
+    void nameMatchOutranksDescriptionMatch() {
+        ProductSearchIndex index = indexOf(
+                product(1, "Quần jean", "Levi", "Đi cùng áo sơ mi"),
+                product(2, "Áo sơ mi trắng", "Owen", "Cotton"),
+                product(3, "Giày thể thao", "Bitis", "Êm chân"));
+
+        assertEquals(List.of(2L, 1L), index.search("ao so mi", 10));
+    }
+
+    @Test
+    void rareTermWeighsMoreThanCommonTerm() {
+        ProductSearchIndex index = indexOf(
+                product(1, "Áo cotton", null, null),
+                product(2, "Áo khoác", null, null),
+                product(3, "Quần cotton", null, null));
+
+        // Each product matches one token; "khoac" is in fewer products than "cotton"
+        List<Long> ids = index.search("cotton khoac", 10);
+        assertEquals(3, ids.size());
+        assertEquals(Long.valueOf(2), ids.get(0));
+    }
+
+    @Test
+    void fullMatchesDropPartialMatches() {
+        ProductSearchIndex index = indexOf(
+                product(1, "Áo khoác gió", null, null),
+                product(2, "Áo thun", null, null),
+                product(3, "Khoác dạ", null, null));
+
+        assertEquals(List.of(1L), index.search("áo khoác", 10));
+    }
+
+    @Test
+    void lastTokenMatchesAsPrefix() {
+        ProductSearchIndex index = indexOf(
+                product(1, "Áo khoác gió", null, null),
+                product(2, "Quần kaki", null, null));
+
+        assertEquals(List.of(1L), index.search("ao kho", 10));
+        // Only the last token is expanded
+        assertEquals(List.of(2L), index.search("kho quan", 10));
+    }
+
+    @Test
+    void removedProductIsNoLongerFound() {
+        ProductSearchIndex index = indexOf(
+                product(1, "Áo polo", null, null),
+                product(2, "Áo polo kẻ", null, null));
+
+        index.remove(1L);
+
+        assertEquals(List.of(2L), index.search("polo", 10));
+        assertEquals(1, index.getStats().get("products"));
+    }
+
+    @Test
+    void changesDuringRebuildSurviveTheLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ProductSearchIndex index = new ProductSearchIndex(new ProductDAO(null) {
+            @Override
+            public List<Product> findAllActive() {
+                loading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                // Snapshot taken before the changes below
+                return new ArrayList<>(List.of(product(1, "Áo cũ", null, null), product(2, "Mũ len", null, null)));
+            }
+        });
+
+        Thread rebuild = new Thread(index::rebuild);
+        rebuild.start();
+        loading.await();
+        index.index(product(1, "Áo mới", null, null));
+        index.remove(2L);
+        release.countDown();
+        rebuild.join();
+
+        assertEquals(List.of(1L), index.search("moi", 10));
+        assertEquals(List.of(), index.search("cu", 10));
+        assertEquals(List.of(), index.search("mu len", 10));
+    }
+}
@@ -0,0 +1,85 @@
+package com.clothes.service;
+
+import com.clothes.dao.UserInteractionDAO;
+import com.clothes.util.CompactBitmap;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeenItemServiceTest {
+
+    /**
+     * Interaction source whose load blocks until released
+     */
+    private static class BlockingInteractions extends UserInteractionDAO {
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        BlockingInteractions() {
+            super(null);
+        }
+
+        @Override
+        public List<Long> findProductIdsByUserId(Long userId) {
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of(1L, 2L);
+        }
+    }
+
+    @Test
+    void productMarkedSeenDuringLoadIsKept() throws Exception {
+        BlockingInteractions interactions = new BlockingInteractions();
+        SeenItemService service = new SeenItemService(interactions, 10);
+
+        Thread loader = new Thread(() -> service.getSeenItems(7L));
+        loader.start();
+        interactions.loading.await();
+        service.markSeen(7L, 99L);
+        interactions.release.countDown();
+        loader.join();
+
+        CompactBitmap seen = service.getSeenItems(7L);
+        assertTrue(seen.contains(1));
+        assertTrue(seen.contains(99));
+    }
+
+    @Test
+    void loadRacedByEvictionIsNotCached() throws Exception {
+        BlockingInteractions interactions = new BlockingInteractions();
+        SeenItemService service = new SeenItemService(interactions, 10);
+
+        CompactBitmap[] loaded = new CompactBitmap[1];
+        Thread loader = new Thread(() -> loaded[0] = service.getSeenItems(7L));
+        loader.start();
+        interactions.loading.await();
+        service.evict(7L);
+        interactions.release.countDown();
+        loader.join();
+
+        assertNotSame(loaded[0], service.getSeenItems(7L));
+    }
+
+    @Test
+    void usersNotInMemoryAreSkipped() {
+        SeenItemService service = new SeenItemService(new UserInteractionDAO(null) {
+            @Override
+            public List<Long> findProductIdsByUserId(Long userId) {
+                return List.of();
+            }
+        }, 10);
+
+        service.markSeen(7L, 99L);
+
+        assertFalse(service.getSeenItems(7L).contains(99));
+    }
+}
@@ -0,0 +1,81 @@
+package com.clothes.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactBitmapTest {
+
+    @Test
+    void idsOnBothSidesOfAContainerBoundaryStaySeparate() {
+        CompactBitmap bitmap = new CompactBitmap();
+        assertTrue(bitmap.add(65_535));
+        assertTrue(bitmap.add(65_536));
+        assertTrue(bitmap.add(131_072));
+        assertTrue(bitmap.add(CompactBitmap.MAX_ID));
+
+        assertTrue(bitmap.contains(65_535));
+        assertTrue(bitmap.contains(65_536));
+        assertTrue(bitmap.contains(131_072));
+        assertTrue(bitmap.contains(CompactBitmap.MAX_ID));
+        assertFalse(bitmap.contains(65_534));
+        assertFalse(bitmap.contains(65_537));
+        assertFalse(bitmap.contains(131_071));
+        assertFalse(bitmap.contains(0));
+        assertEquals(4, bitmap.getCardinality());
+    }
+
+    @Test
+    void containersAreKeptInKeyOrderWhenAddedOutOfOrder() {
+        CompactBitmap bitmap = new CompactBitmap();
+        long[] ids = { 5L << 16, 1L << 16, 9L << 16, 3L << 16, 7L << 16, 2L << 16, 0 };
+        for (long id : ids) {
+            bitmap.add(id);
+        }
+        for (long id : ids) {
+            assertTrue(bitmap.contains(id), "missing " + id);
+            assertFalse(bitmap.contains(id + 1), "unexpected " + (id + 1));
+        }
+        assertEquals(ids.length, bitmap.getCardinality());
+    }
+
+    @Test
+    void denseContainerSwitchesToBitmapWithoutLosingIds() {
+        CompactBitmap bitmap = new CompactBitmap();
+        // Every other id of the second container, past the 4096 array limit
+        for (long id = 65_536; id < 65_536 + 10_000; id += 2) {
+            assertTrue(bitmap.add(id));
+        }
+        assertFalse(bitmap.add(65_536 + 4_096 * 2));
+
+        for (long id = 65_536; id < 65_536 + 10_000; id++) {
+            assertEquals(id % 2 == 0, bitmap.contains(id), "id " + id);
+        }
+        assertFalse(bitmap.contains(65_535));
+        assertEquals(5_000, bitmap.getCardinality());
+    }
+
+    @Test
+    void ofSkipsNullsAndDuplicates() {
+        CompactBitmap bitmap = CompactBitmap.of(Arrays.asList(3L, null, 3L, 70_000L));
+
+        assertEquals(2, bitmap.getCardinality());
+        assertTrue(bitmap.contains(3));
+        assertTrue(bitmap.contains(70_000));
+    }
+
+    @Test
+    void idsOutsideTheRangeAreRejected() {
+        CompactBitmap bitmap = new CompactBitmap();
+
+        assertThrows(IllegalArgumentException.class, () -> bitmap.add(-1));
+        assertThrows(IllegalArgumentException.class, () -> bitmap.add(CompactBitmap.MAX_ID + 1));
+        assertFalse(bitmap.contains(-1));
+        assertFalse(bitmap.contains(CompactBitmap.MAX_ID + 1));
+    }
+}
@@ -0,0 +1,79 @@
+package com.clothes.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvReaderTest {
+
+    private static List<List<String>> readAll(String csv) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        try (CsvReader reader = new CsvReader(new StringReader(csv))) {
+            List<String> record;
+            while ((record = reader.next()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    @Test
+    void quotedFieldsKeepSeparatorsQuotesAndLineBreaks() throws IOException {
+        List<List<String>> records = readAll(
+                "sku,description\r\n" +
+                "A1,\"Cotton, 100%\"\r\n" +
+                "A2,\"The \"\"classic\"\" fit\"\r\n" +
+                "A3,\"Line one\nLine two\r\nLine three\"\r\n");
+
+        assertEquals(List.of(
+                List.of("sku", "description"),
+                List.of("A1", "Cotton, 100%"),
+                List.of("A2", "The \"classic\" fit"),
+                List.of("A3", "Line one\nLine two\r\nLine three")), records);
+    }
+
+    @Test
+    void lineNumbersCountLineBreaksInsideQuotes() throws IOException {
+        try (CsvReader reader = new CsvReader(new StringReader("a,\"x\ny\"\nb,z\n"))) {
+            reader.next();
+            assertEquals(1, reader.getLineNumber());
+            reader.next();
+            assertEquals(3, reader.getLineNumber());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void emptyFieldsBlankLinesAndBomAreHandled() throws IOException {
+        List<List<String>> records = readAll("﻿a,,c\n\n\r\n,\"\",\nlast");
+
+        assertEquals(List.of(
+                List.of("a", "", "c"),
+                List.of("", "", ""),
+                List.of("last")), records);
+    }
+
+    @Test
+    void bareCarriageReturnEndsARecord() throws IOException {
+        assertEquals(List.of(List.of("a", "b"), List.of("c")), readAll("a,b\rc"));
+    }
+
+    @Test
+    void customSeparator() throws IOException {
+        try (CsvReader reader = new CsvReader(new StringReader("a;\"b;c\"\n"), ';')) {
+            assertEquals(List.of("a", "b;c"), reader.next());
+        }
+    }
+
+    @Test
+    void unterminatedQuoteIsAnError() {
+        assertThrows(IOException.class, () -> readAll("a,\"never closed\nb,c\n"));
+    }
+}
@@ -0,0 +1,38 @@
+package com.clothes.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvWriterTest {
+
+    @Test
+    void quotesOnlyFieldsThatNeedIt() throws IOException {
+        StringWriter out = new StringWriter();
+        CsvWriter writer = new CsvWriter(out);
+        writer.writeRecord("plain", "a,b", "say \"hi\"", "two\nlines", null, 42);
+        writer.flush();
+
+        assertEquals("plain,\"a,b\",\"say \"\"hi\"\"\",\"two\nlines\",,42\r\n", out.toString());
+    }
+
+    @Test
+    void readerReadsBackWhatWriterWrote() throws IOException {
+        List<String> fields = Arrays.asList("Áo \"polo\", size L", "first\r\nsecond", "", "\"", "end");
+        StringWriter out = new StringWriter();
+        CsvWriter writer = new CsvWriter(out);
+        writer.writeRecord(fields.toArray());
+        writer.writeRecord("next");
+
+        try (CsvReader reader = new CsvReader(new StringReader(out.toString()))) {
+            assertEquals(fields, reader.next());
+            assertEquals(List.of("next"), reader.next());
+        }
+    }
+}
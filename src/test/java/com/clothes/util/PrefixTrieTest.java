@@ -0,0 +1,82 @@
+package com.clothes.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrefixTrieTest {
+
+    private static List<Long> ids(List<PrefixTrie.Entry<Long, Void>> entries) {
+        return entries.stream().map(PrefixTrie.Entry::getId).toList();
+    }
+
+    @Test
+    void completesFromAnyWordStartIgnoringAccents() {
+        PrefixTrie<Long, Void> trie = new PrefixTrie<>(5);
+        trie.put(1L, "Áo khoác gió", 10, null);
+        trie.put(2L, "Quần jean", 20, null);
+
+        assertEquals(List.of(1L), ids(trie.complete("khoac", 5)));
+        assertEquals(List.of(1L), ids(trie.complete("ÁO KH", 5)));
+        assertEquals(List.of(2L), ids(trie.complete("jea", 5)));
+        assertTrue(trie.complete("xyz", 5).isEmpty());
+    }
+
+    @Test
+    void resultsAreOrderedByWeightAndLimited() {
+        PrefixTrie<Long, Void> trie = new PrefixTrie<>(5);
+        trie.put(1L, "Áo thun", 5, null);
+        trie.put(2L, "Áo sơ mi", 30, null);
+        trie.put(3L, "Áo khoác", 10, null);
+
+        assertEquals(List.of(2L, 3L, 1L), ids(trie.complete("ao", 5)));
+        assertEquals(List.of(2L, 3L), ids(trie.complete("ao", 2)));
+    }
+
+    @Test
+    void removedEntryIsReplacedFromTheSubtree() {
+        // Nodes keep only their best two, so removing one must refill from below
+        PrefixTrie<Long, Void> trie = new PrefixTrie<>(2);
+        trie.put(1L, "Áo thun", 30, null);
+        trie.put(2L, "Áo sơ mi", 20, null);
+        trie.put(3L, "Áo khoác", 10, null);
+        assertEquals(List.of(1L, 2L), ids(trie.complete("ao", 5)));
+
+        trie.remove(1L);
+
+        assertEquals(List.of(2L, 3L), ids(trie.complete("ao", 5)));
+        assertTrue(trie.complete("thun", 5).isEmpty());
+        assertNull(trie.get(1L));
+        assertEquals(2, trie.size());
+    }
+
+    @Test
+    void prefixSharedWithARemovedEntryStillFindsTheOthers() {
+        PrefixTrie<Long, Void> trie = new PrefixTrie<>(5);
+        trie.put(1L, "Váy", 10, null);
+        trie.put(2L, "Váy dài", 5, null);
+
+        trie.remove(1L);
+
+        assertEquals(List.of(2L), ids(trie.complete("vay", 5)));
+        assertEquals(List.of(2L), ids(trie.complete("dai", 5)));
+    }
+
+    @Test
+    void putReplacesLabelAndWeight() {
+        PrefixTrie<Long, Void> trie = new PrefixTrie<>(5);
+        trie.put(1L, "Áo thun", 5, null);
+        trie.put(2L, "Áo khoác", 10, null);
+
+        trie.put(1L, "Áo polo", 50, null);
+
+        assertEquals(List.of(1L, 2L), ids(trie.complete("ao", 5)));
+        assertTrue(trie.complete("thun", 5).isEmpty());
+        assertEquals(List.of(1L), ids(trie.complete("polo", 5)));
+        assertEquals(2, trie.size());
+    }
+}
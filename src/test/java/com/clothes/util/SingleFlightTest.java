@@ -0,0 +1,152 @@
+package com.clothes.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+class SingleFlightTest {
+
+    /**
+     * Loader that blocks until released and counts how often it runs
+     */
+    private static class BlockingLoader implements IntFunction<List<Integer>> {
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public List<Integer> apply(int limit) {
+            calls.incrementAndGet();
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            List<Integer> result = new ArrayList<>();
+            for (int i = 0; i < limit; i++) {
+                result.add(i);
+            }
+            return result;
+        }
+    }
+
+    private static void awaitShared(SingleFlight<?, ?> flight, long expected) throws InterruptedException {
+        while (flight.getSharedCount() < expected) {
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        BlockingLoader loader = new BlockingLoader();
+        List<List<Integer>> results = new CopyOnWriteArrayList<>();
+
+        Thread leader = new Thread(() -> results.add(flight.execute("u1", 5, loader)));
+        leader.start();
+        loader.loading.await();
+
+        List<Thread> followers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread follower = new Thread(() -> results.add(flight.execute("u1", 3, loader)));
+            follower.start();
+            followers.add(follower);
+        }
+        awaitShared(flight, 4);
+        loader.release.countDown();
+        leader.join();
+        for (Thread follower : followers) {
+            follower.join();
+        }
+
+        assertEquals(1, loader.calls.get());
+        assertEquals(1, flight.getComputedCount());
+        assertEquals(4, flight.getSharedCount());
+        assertEquals(5, results.size());
+        long trimmed = results.stream().filter(r -> r.equals(List.of(0, 1, 2))).count();
+        assertEquals(4, trimmed);
+    }
+
+    @Test
+    void callerNeedingMoreItemsComputesOnItsOwn() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        BlockingLoader loader = new BlockingLoader();
+
+        Thread leader = new Thread(() -> flight.execute("u1", 2, loader));
+        leader.start();
+        loader.loading.await();
+
+        // The leader is still running but only asked for two items
+        assertEquals(List.of(7, 7, 7, 7), flight.execute("u1", 4, limit -> List.of(7, 7, 7, 7)));
+        loader.release.countDown();
+        leader.join();
+        assertEquals(2, flight.getComputedCount());
+        assertEquals(0, flight.getSharedCount());
+    }
+
+    @Test
+    void loaderFailureReachesWaitingCallers() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IntFunction<List<Integer>> failing = limit -> {
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("boom");
+        };
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+
+        Thread leader = new Thread(() -> {
+            try {
+                flight.execute("u1", 3, failing);
+            } catch (RuntimeException e) {
+                errors.add(e);
+            }
+        });
+        leader.start();
+        loading.await();
+        Thread follower = new Thread(() -> {
+            try {
+                flight.execute("u1", 3, failing);
+            } catch (RuntimeException e) {
+                errors.add(e);
+            }
+        });
+        follower.start();
+        awaitShared(flight, 1);
+        release.countDown();
+        leader.join();
+        follower.join();
+
+        assertEquals(2, errors.size());
+        for (Throwable error : errors) {
+            assertInstanceOf(IllegalStateException.class, error);
+        }
+    }
+
+    @Test
+    void finishedLoadIsNotReused() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        flight.execute("u1", 1, limit -> List.of(calls.incrementAndGet()));
+        List<Integer> second = flight.execute("u1", 1, limit -> List.of(calls.incrementAndGet()));
+
+        assertEquals(List.of(2), second);
+        assertEquals(2, flight.getComputedCount());
+        assertEquals(0, flight.getSharedCount());
+    }
+}